@@ -0,0 +1,138 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class FreeCellBenchmark {
+
+  private static final int MOVES = 100;
+
+  @Param({"fork", "packed"})
+  public String impl;
+
+  private FreeCell start;
+  private List<UnaryOperator<FreeCell>> moves;
+  private List<FreeCell> games;
+  private final IntMoveBuffer moveBuffer = new IntMoveBuffer();
+
+  @Setup
+  public void setUp() {
+    RandomGenerator rng = new SplittableRandom(1);
+    ForkFreeCell fork = ForkFreeCell.dealDeck(rng);
+    start = switch (impl) {
+      case "fork" -> fork;
+      case "packed" -> PackedFreeCell.copyOf(fork);
+      default -> throw new IllegalArgumentException(impl);
+    };
+    moves = new ArrayList<>(MOVES);
+    games = new ArrayList<>(MOVES);
+    FreeCell game = start;
+    while (moves.size() < MOVES) {
+      List<UnaryOperator<FreeCell>> legal = legalMoves(game);
+      if (legal.isEmpty()) {
+        game = start;
+        continue;
+      }
+      var move = legal.get(rng.nextInt(legal.size()));
+      moves.add(move);
+      game = move.apply(game);
+      games.add(game);
+    }
+  }
+
+  /**
+   * Replays a fixed walk of random legal moves.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public FreeCell play() {
+    FreeCell game = start;
+    for (UnaryOperator<FreeCell> move : moves) {
+      FreeCell next = move.apply(game);
+      game = next.gameWon() ? start : next;
+    }
+    return game;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int findMoves() {
+    int found = 0;
+    for (FreeCell game : games) {
+      moveBuffer.clear();
+      game.findMoves(moveBuffer);
+      found += moveBuffer.size();
+    }
+    return found;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Set<FreeCell> hashSet() {
+    Set<FreeCell> seen = new HashSet<>();
+    for (FreeCell game : games) {
+      seen.add(game);
+    }
+    for (FreeCell game : games) {
+      seen.contains(game);
+    }
+    return seen;
+  }
+
+  private static List<UnaryOperator<FreeCell>> legalMoves(FreeCell game) {
+    List<UnaryOperator<FreeCell>> moves = new ArrayList<>();
+    for (int src = 0; src < TABLEAU_COLS; src++) {
+      final int srcCol = src;
+      if (game.canMoveToHomeCellFromTableau(src)) {
+        moves.add(g -> g.moveToHomeCellFromTableau(srcCol));
+      }
+      if (game.canMoveToFreeCellFromTableau(src)) {
+        moves.add(g -> g.moveToFreeCellFromTableau(srcCol));
+      }
+      int stack = game.stackSize(src);
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        final int dstCol = dst;
+        for (int count = 1; count <= stack; count++) {
+          final int cardCount = count;
+          if (game.canMoveToTableauFromTableau(dst, src, count)) {
+            moves.add(g -> g.moveToTableauFromTableau(dstCol, srcCol, cardCount));
+          }
+        }
+      }
+    }
+    for (int free = 0; free < FREE_CELLS; free++) {
+      final int freeCol = free;
+      if (game.canMoveToHomeCellFromFreeCell(free)) {
+        moves.add(g -> g.moveToHomeCellFromFreeCell(freeCol));
+      }
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        final int dstCol = dst;
+        if (game.canMoveToTableauFromFreeCell(dst, free)) {
+          moves.add(g -> g.moveToTableauFromFreeCell(dstCol, freeCol));
+        }
+      }
+    }
+    return moves;
+  }
+}
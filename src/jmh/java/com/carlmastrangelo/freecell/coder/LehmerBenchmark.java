@@ -5,7 +5,6 @@ import static com.carlmastrangelo.freecell.Card.CARDS_BY_ORD;
 import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
 
 import com.carlmastrangelo.freecell.Card;
-import com.carlmastrangelo.freecell.LehmerCoder;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -28,6 +27,10 @@ public class LehmerBenchmark {
   private int[] permdexes;
   private int[] altPermdexes;
   private BigInteger encode;
+  private long[] fixedEncode;
+
+  private final int[] fixedPermdexes = new int[CARD_COUNT];
+  private final long[] fixedScratch = new long[LehmerCoder.FIXED_WORDS];
 
   @Setup
   public void setUp() {
@@ -37,6 +40,8 @@ public class LehmerBenchmark {
     altPermdexes = coder.altPermdexes(cards, Card::ordinal);
     permdexes = coder.permdexes(new ArrayList<>(cards), CARDS_BY_ORD::get);
     encode = coder.encode(permdexes);
+    fixedEncode = new long[LehmerCoder.FIXED_WORDS];
+    LehmerCoder.encode(fixedEncode, altPermdexes);
   }
 
   @Benchmark
@@ -85,4 +90,43 @@ public class LehmerBenchmark {
     return coder.decode(encode);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public long[] encodeFixed() {
+    LehmerCoder.encode(fixedScratch, altPermdexes);
+    return fixedScratch;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int[] decodeFixed() {
+    System.arraycopy(fixedEncode, 0, fixedScratch, 0, LehmerCoder.FIXED_WORDS);
+    LehmerCoder.decode(fixedPermdexes, fixedScratch);
+    return fixedPermdexes;
+  }
+
+  /**
+   * A whole deal through the BigInteger path: ranks, encodes, and decodes.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int[] roundTrip() {
+    return coder.decode(CARD_COUNT, coder.encode(coder.altPermdexes(cards, Card::ordinal)));
+  }
+
+  /**
+   * A whole deal through the fixed width path, without allocating.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int[] roundTripFixed() {
+    coder.altPermdexes(fixedPermdexes, cards, Card::ordinal);
+    LehmerCoder.encode(fixedScratch, fixedPermdexes);
+    LehmerCoder.decode(fixedPermdexes, fixedScratch);
+    return fixedPermdexes;
+  }
 }
@@ -0,0 +1,102 @@
+package com.carlmastrangelo.freecell.coder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link RangeCoder} with the {@link ArithmeticCoder} it replaces, on the same symbols and frequencies.
+ */
+@State(Scope.Benchmark)
+public class RangeCoderBenchmark {
+
+  private static final int[] FREQS = {500, 450, 50};
+
+  @Param({"8", "64"})
+  public int symbolCount;
+
+  private final RangeCoder.FrequencyTable table = RangeCoder.FrequencyTable.of(FREQS);
+  private ArithmeticCoder.SymbolRanges<Integer> symbolRanges;
+
+  private int[] symbols;
+  private List<Integer> boxedSymbols;
+  private ArithmeticCoder.BitString arithmeticCode;
+
+  private final ByteBuffer buf = ByteBuffer.allocate(1024);
+  private final int[] decoded = new int[1024];
+
+  @Setup
+  public void setUp() {
+    var probabilities = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < FREQS.length; i++) {
+      probabilities.put(i, FREQS[i]);
+    }
+    symbolRanges = ArithmeticCoder.convertProbabilityMap(probabilities);
+
+    var rng = new SplittableRandom(1);
+    symbols = new int[symbolCount];
+    boxedSymbols = new ArrayList<>(symbolCount);
+    for (int i = 0; i < symbolCount; i++) {
+      int value = rng.nextInt(table.total());
+      symbols[i] = table.symbolAt(value);
+      boxedSymbols.add(symbols[i]);
+    }
+    arithmeticCode = ArithmeticCoder.arithmeticEncode(boxedSymbols, symbolRanges);
+    rangeEncode();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ArithmeticCoder.BitString arithmeticEncode() {
+    return ArithmeticCoder.arithmeticEncode(boxedSymbols, symbolRanges);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Integer> arithmeticDecode() {
+    var decoder = new ArithmeticCoder.Decoder<>(symbolRanges);
+    var out = new ArrayList<Integer>(symbolCount);
+    for (int pos = 0; pos <= arithmeticCode.bitsUsed() && out.size() < symbolCount; pos++) {
+      decoder.acceptBit(out::add, arithmeticCode.bs().get(pos));
+    }
+    return out;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ByteBuffer rangeEncode() {
+    buf.clear();
+    var encoder = new RangeCoder.Encoder(buf);
+    for (int symbol : symbols) {
+      encoder.encode(table, symbol);
+    }
+    encoder.finish();
+    return buf.flip();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int[] rangeDecode() {
+    buf.rewind();
+    var decoder = new RangeCoder.Decoder(buf);
+    for (int i = 0; i < symbolCount; i++) {
+      decoded[i] = decoder.decode(table);
+    }
+    return decoded;
+  }
+}
@@ -92,7 +92,14 @@ public final class ForkFreeCell implements FreeCell {
     if (!allCards.isEmpty()) {
       throw new IllegalArgumentException("Not all cards used " + allCards);
     }
-    return new ForkFreeCell(cardIds, tableauRoot);
+    return of(cardIds, tableauRoot);
+  }
+
+  /**
+   * Builds a game directly from its array representation.  The arrays are not copied.
+   */
+  static ForkFreeCell of(byte[] cardIds, int[] tableauRoot) {
+    return new ForkFreeCell(cardIds, tableauRoot, zobrist(cardIds, tableauRoot));
   }
 
   @Nullable
@@ -116,7 +123,7 @@ public final class ForkFreeCell implements FreeCell {
   *
   * */
 
-  private static final int HOME_CELLS = SUIT_COUNT;
+  static final int HOME_CELLS = SUIT_COUNT;
   @VisibleForTesting
   static final byte EMPTY = -1;
   private static final Card[] ALL_CARDS_ID;
@@ -134,19 +141,14 @@ public final class ForkFreeCell implements FreeCell {
 
   private final byte[] cardIds;
   private final int[] tableauRoot;
+  private final long zobrist;
 
-  private ForkFreeCell(byte[] cardIds, int[] tableauRoot) {
+  private ForkFreeCell(byte[] cardIds, int[] tableauRoot, long zobrist) {
     assert validateGame(cardIds, tableauRoot);
     this.cardIds = cardIds;
     this.tableauRoot = tableauRoot;
-    if (false && !isSorted()) {
-      //System.out.println(this);
-      sort();
-      assert isSorted();
-      //System.out.println(isSorted());
-      //.out.println(this);
-      //System.out.println();
-    }
+    this.zobrist = zobrist;
+    assert zobrist == Zobrist.hash(this);
   }
 
   @Override
@@ -160,6 +162,7 @@ public final class ForkFreeCell implements FreeCell {
     return true;
   }
 
+  @Override
   public int minMovesToWin() {
     int sum = 0;
     for (int i = 0; i < HOME_CELLS; i++) {
@@ -177,6 +180,9 @@ public final class ForkFreeCell implements FreeCell {
     assert canMoveToHomeCellFromTableau(tableauCol);
     int srcTabPos = tabTop(tableauCol);
     byte cardId = checkCardNotEmpty(cardIds[srcTabPos]);
+    long newZobrist = zobrist
+        ^ Zobrist.key(cardOrd(cardId), location(cardIds[srcTabPos - 1]))
+        ^ Zobrist.key(cardOrd(cardId), Zobrist.HOME);
     byte[] newCardIds = copyAndRemoveAt(cardIds, srcTabPos);
     newCardIds[suitOrd(cardId)] = cardId;
     int[] newTableauRoot = tableauRoot.clone();
@@ -184,7 +190,7 @@ public final class ForkFreeCell implements FreeCell {
       newTableauRoot[col]--;
     }
 
-    return new ForkFreeCell(newCardIds, newTableauRoot);
+    return new ForkFreeCell(newCardIds, newTableauRoot, newZobrist);
   }
 
   @Override
@@ -204,6 +210,9 @@ public final class ForkFreeCell implements FreeCell {
     assert canMoveToHomeCellFromFreeCell(freeCol);
     int srcFreePos = HOME_CELLS + freeCol;
     byte cardId = cardIds[srcFreePos];
+    long newZobrist = zobrist
+        ^ Zobrist.key(cardOrd(cardId), Zobrist.FREE)
+        ^ Zobrist.key(cardOrd(cardId), Zobrist.HOME);
     byte[] newCardIds = copyAndRemoveAt(cardIds, srcFreePos);
     newCardIds[suitOrd(cardId)] = cardId;
     int[] newTableauRoot = tableauRoot.clone();
@@ -211,7 +220,7 @@ public final class ForkFreeCell implements FreeCell {
       newTableauRoot[col]--;
     }
 
-    return new ForkFreeCell(newCardIds, newTableauRoot);
+    return new ForkFreeCell(newCardIds, newTableauRoot, newZobrist);
   }
 
   @Override
@@ -252,7 +261,10 @@ public final class ForkFreeCell implements FreeCell {
     for (int col = 0; col <= tableauCol; col++) {
       newTableauRoot[col]++;
     }
-    return new ForkFreeCell(newCardIds, newTableauRoot);
+    long newZobrist = zobrist
+        ^ Zobrist.key(cardOrd(cardId), location(cardIds[topTabCardPos - 1]))
+        ^ Zobrist.key(cardOrd(cardId), Zobrist.FREE);
+    return new ForkFreeCell(newCardIds, newTableauRoot, newZobrist);
   }
 
   @Override
@@ -346,8 +358,12 @@ public final class ForkFreeCell implements FreeCell {
         newTableauRoot[col] += count;
       }
     }
+    // Only the bottom card of the moved stack changes what it sits on.
+    long newZobrist = zobrist
+        ^ Zobrist.key(cardOrd(srcCardId), location(cardIds[srcPos - 1]))
+        ^ Zobrist.key(cardOrd(srcCardId), location(dstCardId));
 
-    return new ForkFreeCell(newCardIds, newTableauRoot);
+    return new ForkFreeCell(newCardIds, newTableauRoot, newZobrist);
   }
 
   public boolean canMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol) {
@@ -421,6 +437,86 @@ public final class ForkFreeCell implements FreeCell {
     return false;
   }
 
+  /**
+   * Finds moves from a summary of the board built once up front: the top card and run length of each column packed
+   * into a {@code long} each, and a mask of the empty columns.  The largest number of cards that can be moved at once
+   * only depends on whether the destination is empty, so it is also computed once, and each source and destination
+   * pair has at most one legal count unless the destination is empty.
+   */
+  @Override
+  public void findMoves(IntMoveBuffer moves) {
+    long tops = 0;
+    long runs = 0;
+    int emptyCols = 0;
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      int tabTop = tabTop(col);
+      int tabRoot = tabRoot(col);
+      tops |= (cardIds[tabTop] & 0xFFL) << (col * Byte.SIZE);
+      runs |= (long) stackSize(tabRoot, tabTop, Integer.MAX_VALUE) << (col * Byte.SIZE);
+      if (tabTop == tabRoot) {
+        emptyCols++;
+      }
+    }
+    int freeCellsUsed = freeCellsUsed();
+    int movableCards = FREE_CELLS - freeCellsUsed + 1;
+    int maxToNonEmpty = movableCards << emptyCols;
+    int maxToEmpty = emptyCols == 0 ? 0 : movableCards << (emptyCols - 1);
+
+    for (int srcTableauCol = 0; srcTableauCol < TABLEAU_COLS; srcTableauCol++) {
+      byte srcCardId = (byte) (tops >>> (srcTableauCol * Byte.SIZE));
+      if (isEmpty(srcCardId)) {
+        continue;
+      }
+      if (canMoveHome(srcCardId)) {
+        moves.add(MoveCode.homeFromTableau(srcTableauCol));
+      }
+      if (freeCellsUsed < FREE_CELLS) {
+        moves.add(MoveCode.freeCellFromTableau(srcTableauCol));
+      }
+      int run = (int) (runs >>> (srcTableauCol * Byte.SIZE)) & 0xFF;
+      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
+        if (dstTableauCol == srcTableauCol) {
+          continue;
+        }
+        byte dstCardId = (byte) (tops >>> (dstTableauCol * Byte.SIZE));
+        if (isEmpty(dstCardId)) {
+          int maxCount = Math.min(run, maxToEmpty);
+          for (int count = 1; count <= maxCount; count++) {
+            moves.add(MoveCode.tableauFromTableau(dstTableauCol, srcTableauCol, count));
+          }
+          continue;
+        }
+        // Ranks go up by one going down the run, so only one card in it can go on the destination.
+        int count = rankOrd(dstCardId) - rankOrd(srcCardId);
+        if (count < 1 || count > run || count > maxToNonEmpty) {
+          continue;
+        }
+        byte baseCardId = cardIds[tabTop(srcTableauCol) - count + 1];
+        if (colorOrd(baseCardId) != colorOrd(dstCardId)) {
+          moves.add(MoveCode.tableauFromTableau(dstTableauCol, srcTableauCol, count));
+        }
+      }
+    }
+    for (int freeCol = 0; freeCol < freeCellsUsed; freeCol++) {
+      byte srcCardId = cardIds[HOME_CELLS + freeCol];
+      if (canMoveHome(srcCardId)) {
+        moves.add(MoveCode.homeFromFreeCell(freeCol));
+      }
+      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
+        byte dstCardId = (byte) (tops >>> (dstTableauCol * Byte.SIZE));
+        if (isEmpty(dstCardId)
+            || (rankOrd(dstCardId) - 1 == rankOrd(srcCardId) && colorOrd(dstCardId) != colorOrd(srcCardId))) {
+          moves.add(MoveCode.tableauFromFreeCell(dstTableauCol, freeCol));
+        }
+      }
+    }
+  }
+
+  @Override
+  public int tableauSize(int tableauCol) {
+    return tabTop(tableauCol) - tabRoot(tableauCol);
+  }
+
   @Override
   public int stackSize(int tableauCol) {
     int tabTop = tabTop(tableauCol);
@@ -518,8 +614,11 @@ public final class ForkFreeCell implements FreeCell {
     for (int col = 0; col <= dstTableauCol; col++) {
       newTableauRoot[col]--;
     }
+    long newZobrist = zobrist
+        ^ Zobrist.key(cardOrd(srcCardId), Zobrist.FREE)
+        ^ Zobrist.key(cardOrd(srcCardId), location(cardIds[dstTabPos]));
 
-    return new ForkFreeCell(newCardIds, newTableauRoot);
+    return new ForkFreeCell(newCardIds, newTableauRoot, newZobrist);
   }
 
   @Override
@@ -556,15 +655,22 @@ public final class ForkFreeCell implements FreeCell {
 
   @Override
   public String toString() {
+    return toString(this);
+  }
+
+  /**
+   * Formats any game in the layout accepted by {@link #parse(String)}.
+   */
+  static String toString(FreeCell game) {
     StringBuilder sb = new StringBuilder();
     for (Suit suit : Suit.SUITS_BY_ORD) {
-      Card card = topHomeCell(suit);
+      Card card = game.topHomeCell(suit);
       sb.append(card != null ? card.asciiSymbol() : CRD_SPC).append(COL_SPC);
     }
     sb.delete(sb.lastIndexOf(COL_SPC), sb.length());
     sb.append(" | ");
     for (int i = 0; i < FREE_CELLS; i++) {
-      Card card = peekFreeCell(i);
+      Card card = game.peekFreeCell(i);
       sb.append(card != null ? card.asciiSymbol() : CRD_SPC).append(COL_SPC);
     }
     sb.delete(sb.lastIndexOf(COL_SPC), sb.length());
@@ -572,7 +678,7 @@ public final class ForkFreeCell implements FreeCell {
     boolean done = false;
     for (int row = 0; !done; row++) {
       sb.append("\n");
-      done = tableauRowStream(row)
+      done = game.tableauRowStream(row)
           .peek(c -> sb.append(c != null ? c.asciiSymbol() : CRD_SPC).append(COL_SPC))
           .filter(Objects::isNull).count() == TABLEAU_COLS;
       sb.delete(sb.lastIndexOf(COL_SPC), sb.length());
@@ -620,34 +726,76 @@ public final class ForkFreeCell implements FreeCell {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     ForkFreeCell that = (ForkFreeCell) o;
-    return Arrays.equals(cardIds, that.cardIds);
+    return zobrist == that.zobrist && Arrays.equals(cardIds, that.cardIds);
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(cardIds);
+    return Long.hashCode(zobrist);
+  }
+
+  @Override
+  public long zobrist() {
+    return zobrist;
   }
 
-  private static byte cardId(Card card) {
+  private static long zobrist(byte[] cardIds, int[] tableauRoot) {
+    long hash = 0;
+    for (int i = 0; i < HOME_CELLS; i++) {
+      if (isEmpty(cardIds[i])) {
+        continue;
+      }
+      for (byte home = cardIds[i]; ; home--) {
+        hash ^= Zobrist.key(cardOrd(home), Zobrist.HOME);
+        if (rankOrd(home) == Rank.ACE_ORD) {
+          break;
+        }
+      }
+    }
+    for (int pos = HOME_CELLS; pos < tableauRoot[0]; pos++) {
+      hash ^= Zobrist.key(cardOrd(cardIds[pos]), Zobrist.FREE);
+    }
+    // Columns are contiguous, and each starts with an empty root, so the previous byte is always the card underneath.
+    for (int pos = tableauRoot[0] + 1; pos < cardIds.length; pos++) {
+      if (!isEmpty(cardIds[pos])) {
+        hash ^= Zobrist.key(cardOrd(cardIds[pos]), location(cardIds[pos - 1]));
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the {@link Zobrist} location of a tableau card sitting on the given card.
+   */
+  static int location(byte underCardId) {
+    return isEmpty(underCardId) ? Zobrist.BOTTOM : cardOrd(underCardId);
+  }
+
+  @Nullable
+  static Card card(byte cardId) {
+    return isEmpty(cardId) ? null : ALL_CARDS_ID[cardId];
+  }
+
+  static byte cardId(Card card) {
     return (byte) ((card.suit().ordinal() << 4) + card.rank().ordinal());
   }
 
-  private static int cardOrd(byte cardId) {
+  static int cardOrd(byte cardId) {
     return suitOrd(cardId) * RANK_COUNT + rankOrd(cardId);
   }
 
-  private static int suitOrd(byte cardId) {
+  static int suitOrd(byte cardId) {
     assert (cardId >>> 4) < SUIT_COUNT;
     assert (cardId >>> 4) >= 0;
     return cardId >> 4;
   }
 
-  private static int rankOrd(byte cardId) {
+  static int rankOrd(byte cardId) {
     assert (cardId & 0xF) < RANK_COUNT;
     return cardId & 0xF;
   }
 
-  private static int colorOrd(byte cardId) {
+  static int colorOrd(byte cardId) {
     return SUIT_COLOR[suitOrd(cardId)];
   }
 
@@ -705,47 +853,63 @@ public final class ForkFreeCell implements FreeCell {
     return newArr;
   }
 
-  private void sort() {
-    record SortOrder(int col, byte bottom) {}
-    List<SortOrder> order = new ArrayList<>(TABLEAU_COLS);
-
-    for (int col = 0; col < tableauRoot.length; col++) {
-      byte cardId = EMPTY;
-      if (tableauRoot[col] != cardIds.length - 1) {
-        cardId = cardIds[tableauRoot[col] + 1];
-      }
-      order.add(new SortOrder(col, cardId));
+  @Override
+  public ForkFreeCell canonical() {
+    if (isSorted()) {
+      return this;
     }
-    order.sort(Comparator.comparing(SortOrder::bottom));
-    byte[] oldCardIds = cardIds.clone();
-    int[] oldTableauRoot = Arrays.copyOf(tableauRoot, tableauRoot.length + 1);
-    oldTableauRoot[tableauRoot.length] = cardIds.length;
+    int[] order = canonicalColumns();
+    byte[] newCardIds = new byte[cardIds.length];
+    int[] newTableauRoot = new int[TABLEAU_COLS];
     int pos = tabRoot(0);
-    int col = 0;
-    for (SortOrder so : order) {
-      int bytes = oldTableauRoot[so.col + 1] - oldTableauRoot[so.col];
-      System.arraycopy(oldCardIds, oldTableauRoot[so.col], cardIds, pos, bytes);
-
-      tableauRoot[col++] = pos;
+    System.arraycopy(cardIds, 0, newCardIds, 0, pos);
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      int srcCol = order[col];
+      // Copy the root along with the cards.
+      int bytes = tabTop(srcCol) - tabRoot(srcCol) + 1;
+      System.arraycopy(cardIds, tabRoot(srcCol), newCardIds, pos, bytes);
+      newTableauRoot[col] = pos;
       pos += bytes;
     }
+    // Column order doesn't affect the hash.
+    var sorted = new ForkFreeCell(newCardIds, newTableauRoot, zobrist);
+    assert sorted.isSorted();
+    return sorted;
   }
 
-  private boolean isSorted() {
-    for (int col = 0; col < tableauRoot.length - 1; col++) {
-      byte cardIdLeft = cardIds[tableauRoot[col] + 1];
-      byte cardIdRight = EMPTY;
-      if (tableauRoot[col + 1] != cardIds.length - 1) {
-        cardIdRight = cardIds[tableauRoot[col + 1] + 1];
+  @Override
+  public int[] canonicalColumns() {
+    int[] order = new int[TABLEAU_COLS];
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      byte bottom = bottom(col);
+      int pos = col;
+      // Insertion sort is stable, so identical (i.e. empty) columns keep their order.
+      for (; pos > 0 && bottom(order[pos - 1]) > bottom; pos--) {
+        order[pos] = order[pos - 1];
       }
-      if (cardIdRight < cardIdLeft) {
+      order[pos] = col;
+    }
+    return order;
+  }
+
+  private boolean isSorted() {
+    for (int col = 0; col < TABLEAU_COLS - 1; col++) {
+      if (bottom(col) > bottom(col + 1)) {
         return false;
       }
     }
     return true;
   }
 
-  private static boolean isEmpty(byte cardId) {
+  /**
+   * Returns the bottom most card of this column, or {@link #EMPTY} if there are no cards in the column.
+   */
+  private byte bottom(int col) {
+    int root = tabRoot(col);
+    return tabTop(col) == root ? EMPTY : cardIds[root + 1];
+  }
+
+  static boolean isEmpty(byte cardId) {
     return cardId == EMPTY;
   }
 
@@ -1,48 +1,50 @@
 package com.carlmastrangelo.freecell;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Spliterator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import javax.annotation.Nullable;
 
-public sealed interface FreeCell permits ForkFreeCell {
+public sealed interface FreeCell extends FreeCellView permits ForkFreeCell, PackedFreeCell {
 
   int FREE_CELLS = 4;
   int TABLEAU_COLS = 8;
 
-  boolean gameWon();
-
   FreeCell moveToHomeCellFromTableau(int tableauCol);
 
-  boolean canMoveToHomeCellFromTableau(int tableauCol);
-
   FreeCell moveToHomeCellFromFreeCell(int freeCol);
 
-  boolean canMoveToHomeCellFromFreeCell(int freeCol);
-
   FreeCell moveToFreeCellFromTableau(int tableauCol);
 
-  boolean canMoveToFreeCellFromTableau(int tableauCol);
-
-  @Nullable
-  Card peekTableau(int tableauCol);
-
-  @Nullable
-  Card peekFreeCell(int freeCol);
-
   FreeCell moveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count);
 
-  boolean canMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count);
-
   FreeCell moveToTableauFromFreeCell(int dstTableauCol, int freeCol);
 
-  boolean canMoveToTableauFromFreeCell(int dstTableauCol, int freeCol);
+  /**
+   * Plays a {@link MoveCode encoded move}.
+   */
+  default FreeCell playEncoded(int move) {
+    return switch (MoveCode.kind(move)) {
+      case MoveCode.HOME_FROM_TABLEAU -> moveToHomeCellFromTableau(MoveCode.src(move));
+      case MoveCode.FREE_CELL_FROM_TABLEAU -> moveToFreeCellFromTableau(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_TABLEAU ->
+          moveToTableauFromTableau(MoveCode.dst(move), MoveCode.src(move), MoveCode.count(move));
+      case MoveCode.HOME_FROM_FREE_CELL -> moveToHomeCellFromFreeCell(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_FREE_CELL -> moveToTableauFromFreeCell(MoveCode.dst(move), MoveCode.src(move));
+      default -> throw new IllegalArgumentException("bad move " + move);
+    };
+  }
 
   /**
-   * Returns the size of the alternating-color, increasing-rank run of cards on the column.
+   * Returns the number of cards on the column.
    */
+  default int tableauSize(int tableauCol) {
+    var cards = new ArrayList<Card>();
+    readTableau(cards, tableauCol);
+    return cards.size();
+  }
+
+  @Override
   default int stackSize(int tableauCol) {
     // TODO: test
     var cards = new ArrayList<Card>();
@@ -62,10 +64,25 @@ public sealed interface FreeCell permits ForkFreeCell {
     return count;
   }
 
-  void readTableau(Collection<? super Card> column, int tableauCol);
+  /**
+   * Returns an equivalent game with the tableau columns sorted by their bottom card, empty columns first.  Games that
+   * differ only in the order of their tableau columns have equal canonical forms.
+   */
+  FreeCell canonical();
+
+  /**
+   * Returns the mapping from the columns of {@link #canonical()} back to the columns of this game.  Column {@code i} of
+   * the canonical game is column {@code canonicalColumns()[i]} of this game.
+   */
+  int[] canonicalColumns();
 
-  @Nullable
-  Card topHomeCell(Suit suit);
+  /**
+   * Returns the 64-bit Zobrist hash of this game, which is updated incrementally on each move.  Games that differ only
+   * in the order of their tableau columns have the same hash.  Equal hashes don't imply equal games, so callers that
+   * need exactness must still compare the games.
+   */
+  @Override
+  long zobrist();
 
   Spliterator<Card> tableauColSpliterator(int tableauCol);
 
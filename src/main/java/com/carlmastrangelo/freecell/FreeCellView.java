@@ -0,0 +1,96 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+
+import java.util.Collection;
+import javax.annotation.Nullable;
+
+/**
+ * The read only part of a game board, shared by the immutable {@link FreeCell}s and the {@link MutableFreeCell}, so that
+ * code which only looks at a board, like finding its moves or estimating how far it is from a win, is written once.
+ */
+public sealed interface FreeCellView permits FreeCell, MutableFreeCell {
+
+  boolean gameWon();
+
+  /**
+   * Returns the number of cards not yet in the home cells.  Each needs at least one more move, so this is a lower bound
+   * on the moves needed to win.
+   */
+  int minMovesToWin();
+
+  boolean canMoveToHomeCellFromTableau(int tableauCol);
+
+  boolean canMoveToHomeCellFromFreeCell(int freeCol);
+
+  boolean canMoveToFreeCellFromTableau(int tableauCol);
+
+  boolean canMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count);
+
+  boolean canMoveToTableauFromFreeCell(int dstTableauCol, int freeCol);
+
+  @Nullable
+  Card peekTableau(int tableauCol);
+
+  @Nullable
+  Card peekFreeCell(int freeCol);
+
+  /**
+   * Returns the size of the alternating-color, increasing-rank run of cards on the column.
+   */
+  int stackSize(int tableauCol);
+
+  /**
+   * Adds the cards of the column to the collection, from the bottom of the column to the top.
+   */
+  void readTableau(Collection<? super Card> column, int tableauCol);
+
+  @Nullable
+  Card topHomeCell(Suit suit);
+
+  /**
+   * Returns the 64-bit Zobrist hash of the board.  Games that differ only in the order of their tableau columns have
+   * the same hash.
+   */
+  long zobrist();
+
+  /**
+   * Adds all legal moves to the buffer, as {@link MoveCode encoded moves}.  Moves from the tableau come first, in
+   * column order, followed by moves from the free cells.
+   */
+  default void findMoves(IntMoveBuffer moves) {
+    for (int srcTableauCol = 0; srcTableauCol < TABLEAU_COLS; srcTableauCol++) {
+      if (peekTableau(srcTableauCol) == null) {
+        continue;
+      }
+      if (canMoveToHomeCellFromTableau(srcTableauCol)) {
+        moves.add(MoveCode.homeFromTableau(srcTableauCol));
+      }
+      if (canMoveToFreeCellFromTableau(srcTableauCol)) {
+        moves.add(MoveCode.freeCellFromTableau(srcTableauCol));
+      }
+      int stack = stackSize(srcTableauCol);
+      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
+        for (int count = 1; count <= stack; count++) {
+          if (canMoveToTableauFromTableau(dstTableauCol, srcTableauCol, count)) {
+            moves.add(MoveCode.tableauFromTableau(dstTableauCol, srcTableauCol, count));
+          }
+        }
+      }
+    }
+    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
+      if (peekFreeCell(freeCol) == null) {
+        continue;
+      }
+      if (canMoveToHomeCellFromFreeCell(freeCol)) {
+        moves.add(MoveCode.homeFromFreeCell(freeCol));
+      }
+      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
+        if (canMoveToTableauFromFreeCell(dstTableauCol, freeCol)) {
+          moves.add(MoveCode.tableauFromFreeCell(dstTableauCol, freeCol));
+        }
+      }
+    }
+  }
+}
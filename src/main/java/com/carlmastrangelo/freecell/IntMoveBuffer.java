@@ -0,0 +1,81 @@
+package com.carlmastrangelo.freecell;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A growable list of {@link MoveCode encoded moves}.  Meant to be reused between calls to
+ * {@link FreeCell#findMoves(IntMoveBuffer)}, so that finding moves doesn't allocate once the buffer is big enough.
+ */
+public final class IntMoveBuffer {
+
+  private int[] moves = new int[64];
+  private int size;
+
+  public void add(int move) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = move;
+  }
+
+  public int get(int index) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return moves[index];
+  }
+
+  public void set(int index, int move) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    moves[index] = move;
+  }
+
+  /**
+   * Removes all moves after the first {@code size}.
+   */
+  public void truncate(int size) {
+    if (size < 0 || size > this.size) {
+      throw new IndexOutOfBoundsException(size);
+    }
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Shuffles the moves in place, using the same algorithm as {@link java.util.Collections#shuffle}.
+   */
+  public void shuffle(RandomGenerator rng) {
+    for (int i = size; i > 1; i--) {
+      int pos = rng.nextInt(i);
+      int move = moves[i - 1];
+      moves[i - 1] = moves[pos];
+      moves[pos] = move;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i != 0) {
+        sb.append(", ");
+      }
+      sb.append(MoveCode.toString(moves[i]));
+    }
+    return sb.append(']').toString();
+  }
+}
@@ -0,0 +1,52 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
+import static com.carlmastrangelo.freecell.Rank.RANK_COUNT;
+import static com.carlmastrangelo.freecell.Suit.SUIT_COUNT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deals the numbered games of Microsoft FreeCell, the set other solvers report results on.  The deck is shuffled with
+ * the Microsoft C runtime's {@code rand()}, seeded with the deal number, and dealt the same way as
+ * {@link ForkFreeCell#dealDeck(List, List, List)}: left to right along each row, starting with the top row.
+ *
+ * <p>Deal numbers run from 1 to {@link Integer#MAX_VALUE}, which covers the original 32,000 deals.
+ */
+public final class MicrosoftDeals {
+
+  /**
+   * Returns the cards of the deal in the order they are dealt.
+   */
+  public static List<Card> cards(int dealNumber) {
+    if (dealNumber <= 0) {
+      throw new IllegalArgumentException("bad deal number " + dealNumber);
+    }
+    // Cards are numbered by rank, then by suit in the order clubs, diamonds, hearts, spades.  The deck starts with the
+    // highest card first.
+    int[] deck = new int[CARD_COUNT];
+    for (int i = 0; i < CARD_COUNT; i++) {
+      deck[i] = CARD_COUNT - 1 - i;
+    }
+    int seed = dealNumber;
+    for (int i = 0; i < CARD_COUNT - 1; i++) {
+      seed = (seed * 214013 + 2531011) & Integer.MAX_VALUE;
+      int j = CARD_COUNT - 1 - (seed >>> 16) % (CARD_COUNT - i);
+      int card = deck[i];
+      deck[i] = deck[j];
+      deck[j] = card;
+    }
+    List<Card> cards = new ArrayList<>(CARD_COUNT);
+    for (int card : deck) {
+      cards.add(Card.CARDS_BY_ORD.get((card % SUIT_COUNT) * RANK_COUNT + card / SUIT_COUNT));
+    }
+    return cards;
+  }
+
+  public static ForkFreeCell deal(int dealNumber) {
+    return ForkFreeCell.dealDeck(List.of(), List.of(), cards(dealNumber));
+  }
+
+  private MicrosoftDeals() {}
+}
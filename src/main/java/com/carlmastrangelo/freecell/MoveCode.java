@@ -0,0 +1,99 @@
+package com.carlmastrangelo.freecell;
+
+/**
+ * Encodes moves as {@code int}s, so that they can be generated and stored without allocating.  Bits 0-2 hold the kind
+ * of move, bits 3-5 the source column (a tableau column or a free cell), bits 6-8 the destination tableau column, and
+ * bits 9-12 the number of cards moved.
+ */
+public final class MoveCode {
+
+  public static final int HOME_FROM_TABLEAU = 0;
+  public static final int FREE_CELL_FROM_TABLEAU = 1;
+  public static final int TABLEAU_FROM_TABLEAU = 2;
+  public static final int HOME_FROM_FREE_CELL = 3;
+  public static final int TABLEAU_FROM_FREE_CELL = 4;
+
+  /**
+   * The number of kinds of moves, one more than the largest kind.
+   */
+  public static final int KIND_COUNT = 5;
+
+  /**
+   * Not a move, for use as a placeholder.
+   */
+  public static final int NONE = -1;
+
+  private static final int KIND_MASK = 0x7;
+  private static final int COL_BITS = 3;
+  private static final int COL_MASK = (1 << COL_BITS) - 1;
+  private static final int SRC_SHIFT = 3;
+  private static final int DST_SHIFT = SRC_SHIFT + COL_BITS;
+  private static final int COUNT_SHIFT = DST_SHIFT + COL_BITS;
+
+  static {
+    assert FreeCell.TABLEAU_COLS <= 1 << COL_BITS;
+    assert FreeCell.FREE_CELLS <= 1 << COL_BITS;
+  }
+
+  public static int homeFromTableau(int tableauCol) {
+    return encode(HOME_FROM_TABLEAU, tableauCol, 0, 1);
+  }
+
+  public static int freeCellFromTableau(int tableauCol) {
+    return encode(FREE_CELL_FROM_TABLEAU, tableauCol, 0, 1);
+  }
+
+  public static int tableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    return encode(TABLEAU_FROM_TABLEAU, srcTableauCol, dstTableauCol, count);
+  }
+
+  public static int homeFromFreeCell(int freeCol) {
+    return encode(HOME_FROM_FREE_CELL, freeCol, 0, 1);
+  }
+
+  public static int tableauFromFreeCell(int dstTableauCol, int freeCol) {
+    return encode(TABLEAU_FROM_FREE_CELL, freeCol, dstTableauCol, 1);
+  }
+
+  public static int kind(int move) {
+    return move & KIND_MASK;
+  }
+
+  /**
+   * Returns the tableau column or free cell the move takes cards from.
+   */
+  public static int src(int move) {
+    return (move >>> SRC_SHIFT) & COL_MASK;
+  }
+
+  /**
+   * Returns the tableau column the move puts cards on.  Only meaningful for moves to the tableau.
+   */
+  public static int dst(int move) {
+    return (move >>> DST_SHIFT) & COL_MASK;
+  }
+
+  public static int count(int move) {
+    return move >>> COUNT_SHIFT;
+  }
+
+  public static String toString(int move) {
+    return switch (kind(move)) {
+      case HOME_FROM_TABLEAU -> "home <- tableau " + src(move);
+      case FREE_CELL_FROM_TABLEAU -> "free cell <- tableau " + src(move);
+      case TABLEAU_FROM_TABLEAU -> "tableau " + dst(move) + " <- tableau " + src(move) + " x" + count(move);
+      case HOME_FROM_FREE_CELL -> "home <- free cell " + src(move);
+      case TABLEAU_FROM_FREE_CELL -> "tableau " + dst(move) + " <- free cell " + src(move);
+      default -> "bad move " + move;
+    };
+  }
+
+  private static int encode(int kind, int src, int dst, int count) {
+    assert src >= 0 && src <= COL_MASK;
+    assert dst >= 0 && dst <= COL_MASK;
+    assert count > 0 && count <= Rank.RANK_COUNT;
+    return kind | src << SRC_SHIFT | dst << DST_SHIFT | count << COUNT_SHIFT;
+  }
+
+  private MoveCode() {}
+}
@@ -0,0 +1,457 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
+import static com.carlmastrangelo.freecell.ForkFreeCell.EMPTY;
+import static com.carlmastrangelo.freecell.ForkFreeCell.HOME_CELLS;
+import static com.carlmastrangelo.freecell.ForkFreeCell.cardId;
+import static com.carlmastrangelo.freecell.ForkFreeCell.cardOrd;
+import static com.carlmastrangelo.freecell.ForkFreeCell.colorOrd;
+import static com.carlmastrangelo.freecell.ForkFreeCell.isEmpty;
+import static com.carlmastrangelo.freecell.ForkFreeCell.location;
+import static com.carlmastrangelo.freecell.ForkFreeCell.rankOrd;
+import static com.carlmastrangelo.freecell.ForkFreeCell.suitOrd;
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+import static com.carlmastrangelo.freecell.Rank.RANK_COUNT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A single game board that is edited in place.  Each {@code moveTo*} method has a matching {@code undoMoveTo*} method
+ * which must be called with the same arguments, in the reverse order the moves were made.  Neither allocates once the
+ * move history has grown to the search depth.  Use {@link #snapshot()} to get an immutable copy of the current board.
+ *
+ * <p>Cards use the same ids as {@link ForkFreeCell}, and free cells are kept in the same order, so free cell indexes
+ * are interchangeable between the two.
+ */
+public final class MutableFreeCell implements FreeCellView {
+
+  public static MutableFreeCell copyOf(FreeCell game) {
+    var mutable = new MutableFreeCell();
+    mutable.reset(game);
+    return mutable;
+  }
+
+  private final byte[] homeCells = new byte[HOME_CELLS];
+  private final byte[] freeCells = new byte[FREE_CELLS];
+  private final byte[] tableau = new byte[TABLEAU_COLS * CARD_COUNT];
+  private final int[] heights = new int[TABLEAU_COLS];
+  private int freeCellsUsed;
+  private long zobrist;
+
+  /**
+   * The card moved by each move, used to restore free cells and home cells on undo.
+   */
+  private byte[] history = new byte[256];
+  private int historySize;
+
+  private MutableFreeCell() {}
+
+  /**
+   * Replaces this board with the given game, and clears the move history.
+   */
+  public void reset(FreeCell game) {
+    Objects.requireNonNull(game);
+    Arrays.fill(homeCells, EMPTY);
+    Arrays.fill(freeCells, EMPTY);
+    freeCellsUsed = 0;
+    historySize = 0;
+    for (Suit suit : Suit.SUITS_BY_ORD) {
+      Card card = game.topHomeCell(suit);
+      if (card != null) {
+        homeCells[suit.ordinal()] = cardId(card);
+      }
+    }
+    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
+      Card card = game.peekFreeCell(freeCol);
+      if (card != null) {
+        insertFreeCard(cardId(card));
+      }
+    }
+    List<Card> column = new ArrayList<>();
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      column.clear();
+      game.readTableau(column, col);
+      heights[col] = 0;
+      for (Card card : column) {
+        push(col, cardId(card));
+      }
+    }
+    zobrist = game.zobrist();
+  }
+
+  /**
+   * Returns an immutable copy of the current board.
+   */
+  public ForkFreeCell snapshot() {
+    int homeCards = 0;
+    for (byte cardId : homeCells) {
+      if (!isEmpty(cardId)) {
+        homeCards += rankOrd(cardId) + 1;
+      }
+    }
+    byte[] cardIds = new byte[CARD_COUNT - homeCards + HOME_CELLS + TABLEAU_COLS];
+    int[] tableauRoot = new int[TABLEAU_COLS];
+    System.arraycopy(homeCells, 0, cardIds, 0, HOME_CELLS);
+    System.arraycopy(freeCells, 0, cardIds, HOME_CELLS, freeCellsUsed);
+    int pos = HOME_CELLS + freeCellsUsed;
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      tableauRoot[col] = pos;
+      cardIds[pos++] = EMPTY;
+      System.arraycopy(tableau, col * CARD_COUNT, cardIds, pos, heights[col]);
+      pos += heights[col];
+    }
+    assert pos == cardIds.length;
+    return ForkFreeCell.of(cardIds, tableauRoot);
+  }
+
+  /**
+   * Returns the same hash as {@link FreeCell#zobrist()} would for the current board.
+   */
+  @Override
+  public long zobrist() {
+    return zobrist;
+  }
+
+  /**
+   * Returns the number of moves made since the last {@link #reset}, that have not been undone.
+   */
+  public int movesMade() {
+    return historySize;
+  }
+
+  @Override
+  public boolean gameWon() {
+    for (byte cardId : homeCells) {
+      if (isEmpty(cardId) || rankOrd(cardId) != Rank.KING_ORD) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int minMovesToWin() {
+    int sum = 0;
+    for (byte cardId : homeCells) {
+      sum += isEmpty(cardId) ? RANK_COUNT : Rank.KING_ORD - rankOrd(cardId);
+    }
+    return sum;
+  }
+
+  @Override
+  @Nullable
+  public Card topHomeCell(Suit suit) {
+    return ForkFreeCell.card(homeCells[suit.ordinal()]);
+  }
+
+  @Override
+  @Nullable
+  public Card peekTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    return ForkFreeCell.card(top(tableauCol));
+  }
+
+  @Override
+  @Nullable
+  public Card peekFreeCell(int freeCol) {
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    return ForkFreeCell.card(freeCells[freeCol]);
+  }
+
+  @Override
+  public int stackSize(int tableauCol) {
+    int height = heights[tableauCol];
+    if (height == 0) {
+      return 0;
+    }
+    int base = tableauCol * CARD_COUNT;
+    int count = 1;
+    for (int pos = base + height - 1; pos > base; pos--, count++) {
+      byte cardId = tableau[pos];
+      byte underCardId = tableau[pos - 1];
+      if (colorOrd(cardId) == colorOrd(underCardId) || rankOrd(cardId) != rankOrd(underCardId) - 1) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public boolean canMoveToHomeCellFromTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    byte cardId = top(tableauCol);
+    return !isEmpty(cardId) && canMoveHome(cardId);
+  }
+
+  public void moveToHomeCellFromTableau(int tableauCol) {
+    assert canMoveToHomeCellFromTableau(tableauCol);
+    byte cardId = pop(tableauCol);
+    homeCells[suitOrd(cardId)] = cardId;
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.HOME);
+    record(cardId);
+  }
+
+  public void undoMoveToHomeCellFromTableau(int tableauCol) {
+    byte cardId = unrecord();
+    assert homeCells[suitOrd(cardId)] == cardId;
+    homeCells[suitOrd(cardId)] = rankOrd(cardId) == Rank.ACE_ORD ? EMPTY : (byte) (cardId - 1);
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.HOME);
+    push(tableauCol, cardId);
+  }
+
+  @Override
+  public boolean canMoveToHomeCellFromFreeCell(int freeCol) {
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    return freeCol < freeCellsUsed && canMoveHome(freeCells[freeCol]);
+  }
+
+  public void moveToHomeCellFromFreeCell(int freeCol) {
+    assert canMoveToHomeCellFromFreeCell(freeCol);
+    byte cardId = removeFreeCard(freeCol);
+    homeCells[suitOrd(cardId)] = cardId;
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.HOME);
+    record(cardId);
+  }
+
+  public void undoMoveToHomeCellFromFreeCell(int freeCol) {
+    byte cardId = unrecord();
+    assert homeCells[suitOrd(cardId)] == cardId;
+    homeCells[suitOrd(cardId)] = rankOrd(cardId) == Rank.ACE_ORD ? EMPTY : (byte) (cardId - 1);
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.HOME);
+    insertFreeCard(cardId);
+    assert freeCells[freeCol] == cardId;
+  }
+
+  @Override
+  public boolean canMoveToFreeCellFromTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    return heights[tableauCol] != 0 && freeCellsUsed < FREE_CELLS;
+  }
+
+  public void moveToFreeCellFromTableau(int tableauCol) {
+    assert canMoveToFreeCellFromTableau(tableauCol);
+    byte cardId = pop(tableauCol);
+    insertFreeCard(cardId);
+    record(cardId);
+  }
+
+  public void undoMoveToFreeCellFromTableau(int tableauCol) {
+    byte cardId = unrecord();
+    int freeCol = 0;
+    while (freeCells[freeCol] != cardId) {
+      freeCol++;
+    }
+    removeFreeCard(freeCol);
+    push(tableauCol, cardId);
+  }
+
+  @Override
+  public boolean canMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    assert dstTableauCol >= 0 && dstTableauCol < TABLEAU_COLS;
+    assert srcTableauCol >= 0 && srcTableauCol < TABLEAU_COLS;
+    assert count > 0 && count <= RANK_COUNT;
+    if (srcTableauCol == dstTableauCol || heights[srcTableauCol] < count) {
+      return false;
+    }
+    byte srcCardId = tableau[srcTableauCol * CARD_COUNT + heights[srcTableauCol] - count];
+    byte dstCardId = top(dstTableauCol);
+    if (!isEmpty(dstCardId)) {
+      if (rankOrd(dstCardId) - 1 != rankOrd(srcCardId) || colorOrd(dstCardId) == colorOrd(srcCardId)) {
+        return false;
+      }
+    }
+    if (stackSize(srcTableauCol) < count) {
+      return false;
+    }
+    int movableCards = FREE_CELLS - freeCellsUsed + 1;
+    if (movableCards >= count) {
+      return true;
+    }
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      if (col == dstTableauCol || col == srcTableauCol) {
+        continue;
+      }
+      if (heights[col] == 0) {
+        movableCards *= 2;
+        if (count <= movableCards) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  public void moveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    assert canMoveToTableauFromTableau(dstTableauCol, srcTableauCol, count);
+    transfer(dstTableauCol, srcTableauCol, count);
+    record(top(dstTableauCol));
+  }
+
+  public void undoMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    byte cardId = unrecord();
+    assert top(dstTableauCol) == cardId;
+    transfer(srcTableauCol, dstTableauCol, count);
+  }
+
+  @Override
+  public boolean canMoveToTableauFromFreeCell(int dstTableauCol, int freeCol) {
+    assert dstTableauCol >= 0 && dstTableauCol < TABLEAU_COLS;
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    if (freeCol >= freeCellsUsed) {
+      return false;
+    }
+    byte srcCardId = freeCells[freeCol];
+    byte dstCardId = top(dstTableauCol);
+    if (isEmpty(dstCardId)) {
+      return true;
+    }
+    return rankOrd(dstCardId) - 1 == rankOrd(srcCardId) && colorOrd(dstCardId) != colorOrd(srcCardId);
+  }
+
+  public void moveToTableauFromFreeCell(int dstTableauCol, int freeCol) {
+    assert canMoveToTableauFromFreeCell(dstTableauCol, freeCol);
+    byte cardId = removeFreeCard(freeCol);
+    push(dstTableauCol, cardId);
+    record(cardId);
+  }
+
+  public void undoMoveToTableauFromFreeCell(int dstTableauCol, int freeCol) {
+    byte cardId = unrecord();
+    byte topCardId = pop(dstTableauCol);
+    assert topCardId == cardId;
+    insertFreeCard(cardId);
+    assert freeCells[freeCol] == cardId;
+  }
+
+  /**
+   * Plays a {@link MoveCode encoded move}.
+   */
+  public void playEncoded(int move) {
+    switch (MoveCode.kind(move)) {
+      case MoveCode.HOME_FROM_TABLEAU -> moveToHomeCellFromTableau(MoveCode.src(move));
+      case MoveCode.FREE_CELL_FROM_TABLEAU -> moveToFreeCellFromTableau(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_TABLEAU ->
+          moveToTableauFromTableau(MoveCode.dst(move), MoveCode.src(move), MoveCode.count(move));
+      case MoveCode.HOME_FROM_FREE_CELL -> moveToHomeCellFromFreeCell(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_FREE_CELL -> moveToTableauFromFreeCell(MoveCode.dst(move), MoveCode.src(move));
+      default -> throw new IllegalArgumentException("bad move " + move);
+    }
+  }
+
+  /**
+   * Undoes a move made by {@link #playEncoded}.
+   */
+  public void undoEncoded(int move) {
+    switch (MoveCode.kind(move)) {
+      case MoveCode.HOME_FROM_TABLEAU -> undoMoveToHomeCellFromTableau(MoveCode.src(move));
+      case MoveCode.FREE_CELL_FROM_TABLEAU -> undoMoveToFreeCellFromTableau(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_TABLEAU ->
+          undoMoveToTableauFromTableau(MoveCode.dst(move), MoveCode.src(move), MoveCode.count(move));
+      case MoveCode.HOME_FROM_FREE_CELL -> undoMoveToHomeCellFromFreeCell(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_FREE_CELL -> undoMoveToTableauFromFreeCell(MoveCode.dst(move), MoveCode.src(move));
+      default -> throw new IllegalArgumentException("bad move " + move);
+    }
+  }
+
+  /**
+   * Adds the cards of the column to the collection, from the bottom of the column to the top.
+   */
+  @Override
+  public void readTableau(Collection<? super Card> column, int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    int base = tableauCol * CARD_COUNT;
+    for (int pos = base; pos < base + heights[tableauCol]; pos++) {
+      column.add(ForkFreeCell.card(tableau[pos]));
+    }
+  }
+
+  private boolean canMoveHome(byte cardId) {
+    byte homeCardId = homeCells[suitOrd(cardId)];
+    if (isEmpty(homeCardId)) {
+      return rankOrd(cardId) == Rank.ACE_ORD;
+    }
+    return homeCardId + 1 == cardId;
+  }
+
+  private byte top(int tableauCol) {
+    int height = heights[tableauCol];
+    return height == 0 ? EMPTY : tableau[tableauCol * CARD_COUNT + height - 1];
+  }
+
+  /*
+   * The helpers below keep the Zobrist hash up to date, except for home cells which the move methods handle.
+   */
+
+  private void push(int tableauCol, byte cardId) {
+    zobrist ^= Zobrist.key(cardOrd(cardId), location(top(tableauCol)));
+    tableau[tableauCol * CARD_COUNT + heights[tableauCol]++] = cardId;
+  }
+
+  private byte pop(int tableauCol) {
+    assert heights[tableauCol] > 0;
+    byte cardId = tableau[tableauCol * CARD_COUNT + --heights[tableauCol]];
+    zobrist ^= Zobrist.key(cardOrd(cardId), location(top(tableauCol)));
+    return cardId;
+  }
+
+  private void transfer(int dstTableauCol, int srcTableauCol, int count) {
+    assert heights[srcTableauCol] >= count;
+    heights[srcTableauCol] -= count;
+    // Only the bottom card of the moved stack changes what it sits on.
+    byte baseCardId = tableau[srcTableauCol * CARD_COUNT + heights[srcTableauCol]];
+    zobrist ^= Zobrist.key(cardOrd(baseCardId), location(top(srcTableauCol)))
+        ^ Zobrist.key(cardOrd(baseCardId), location(top(dstTableauCol)));
+    System.arraycopy(
+        tableau, srcTableauCol * CARD_COUNT + heights[srcTableauCol],
+        tableau, dstTableauCol * CARD_COUNT + heights[dstTableauCol],
+        count);
+    heights[dstTableauCol] += count;
+  }
+
+  /**
+   * Inserts the card in the free cells, keeping them in descending order like {@link ForkFreeCell}.
+   */
+  private void insertFreeCard(byte cardId) {
+    assert freeCellsUsed < FREE_CELLS;
+    int pos = freeCellsUsed++;
+    for (; pos > 0 && freeCells[pos - 1] < cardId; pos--) {
+      freeCells[pos] = freeCells[pos - 1];
+    }
+    freeCells[pos] = cardId;
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.FREE);
+  }
+
+  private byte removeFreeCard(int freeCol) {
+    assert freeCol < freeCellsUsed;
+    byte cardId = freeCells[freeCol];
+    System.arraycopy(freeCells, freeCol + 1, freeCells, freeCol, freeCellsUsed - freeCol - 1);
+    freeCells[--freeCellsUsed] = EMPTY;
+    zobrist ^= Zobrist.key(cardOrd(cardId), Zobrist.FREE);
+    return cardId;
+  }
+
+  private void record(byte cardId) {
+    if (historySize == history.length) {
+      history = Arrays.copyOf(history, history.length * 2);
+    }
+    history[historySize++] = cardId;
+  }
+
+  private byte unrecord() {
+    if (historySize == 0) {
+      throw new IllegalStateException("no moves to undo");
+    }
+    return history[--historySize];
+  }
+
+  @Override
+  public String toString() {
+    return snapshot().toString();
+  }
+}
@@ -0,0 +1,644 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.Card.CARDS_BY_ORD;
+import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
+import static com.carlmastrangelo.freecell.Rank.RANK_COUNT;
+import static com.carlmastrangelo.freecell.Suit.SUIT_COUNT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link FreeCell} that packs the entire game into a fixed number of {@code long} fields.  Moves allocate a single
+ * new object and no arrays.
+ *
+ * <p>Cards are identified by their 6 bit {@link Card#ordinal()}.  The six lanes each hold ten 6 bit slots.  Slots
+ * {@code [0, 52)} hold the card directly underneath the card with that ordinal, or {@link #NONE} if the card is at the
+ * bottom of a column or not in the tableau.  Slots {@code [52, 60)} hold the top card of each tableau column.  The
+ * header holds the home cell counts, the free cells (sorted in descending order, like {@link ForkFreeCell}), and the
+ * number of free cells used.
+ */
+public final class PackedFreeCell implements FreeCell {
+
+  public static PackedFreeCell dealDeck() {
+    return copyOf(ForkFreeCell.dealDeck());
+  }
+
+  public static PackedFreeCell dealDeck(RandomGenerator rng) {
+    return copyOf(ForkFreeCell.dealDeck(rng));
+  }
+
+  public static PackedFreeCell dealDeck(List<Card> homeCells, List<Card> freeCells, List<Card> tableauCards) {
+    return copyOf(ForkFreeCell.dealDeck(homeCells, freeCells, tableauCards));
+  }
+
+  public static PackedFreeCell dealColumns(
+      List<Card> homeCells, List<Card> freeCells, List<? extends List<Card>> tableauColumns) {
+    return copyOf(ForkFreeCell.dealColumns(homeCells, freeCells, tableauColumns));
+  }
+
+  public static PackedFreeCell parse(String s) {
+    return copyOf(ForkFreeCell.parse(s));
+  }
+
+  public static PackedFreeCell copyOf(FreeCell game) {
+    Objects.requireNonNull(game);
+    if (game instanceof PackedFreeCell packed) {
+      return packed;
+    }
+    var copy = new PackedFreeCell();
+    copy.clear();
+    for (Suit suit : Suit.SUITS_BY_ORD) {
+      Card top = game.topHomeCell(suit);
+      if (top != null) {
+        copy.header = withHomeCount(copy.header, suit.ordinal(), top.rank().ordinal() + 1);
+      }
+    }
+    for (int freeCol = FREE_CELLS - 1; freeCol >= 0; freeCol--) {
+      Card card = game.peekFreeCell(freeCol);
+      if (card != null) {
+        copy.header = insertFree(copy.header, card.ordinal());
+      }
+    }
+    List<Card> column = new ArrayList<>();
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      column.clear();
+      game.readTableau(column, col);
+      int below = NONE;
+      for (Card card : column) {
+        copy.setSlot(card.ordinal(), below);
+        below = card.ordinal();
+      }
+      copy.setSlot(TOP_SLOT + col, below);
+    }
+    copy.zobrist = game.zobrist();
+    return copy;
+  }
+
+  private static final int CARD_BITS = 6;
+  private static final long CARD_MASK = (1L << CARD_BITS) - 1;
+  private static final int NONE = (int) CARD_MASK;
+  private static final int SLOTS_PER_LANE = Long.SIZE / CARD_BITS;
+  private static final int TOP_SLOT = CARD_COUNT;
+
+  private static final int HOME_BITS = 4;
+  private static final long HOME_MASK = (1L << HOME_BITS) - 1;
+  private static final int FREE_SHIFT = HOME_BITS * SUIT_COUNT;
+  private static final int FREE_USED_SHIFT = FREE_SHIFT + CARD_BITS * FREE_CELLS;
+  private static final long FREE_USED_MASK = 0x7;
+
+  private static final byte[] RANK_ORD = new byte[NONE + 1];
+  private static final byte[] SUIT_ORD = new byte[NONE + 1];
+  private static final byte[] COLOR_ORD = new byte[NONE + 1];
+
+  static {
+    assert TOP_SLOT + TABLEAU_COLS == SLOTS_PER_LANE * 6;
+    assert RANK_COUNT < (1 << HOME_BITS);
+    Arrays.fill(RANK_ORD, (byte) -1);
+    Arrays.fill(SUIT_ORD, (byte) -1);
+    Arrays.fill(COLOR_ORD, (byte) -1);
+    for (Card card : CARDS_BY_ORD) {
+      RANK_ORD[card.ordinal()] = (byte) card.rank().ordinal();
+      SUIT_ORD[card.ordinal()] = (byte) card.suit().ordinal();
+      COLOR_ORD[card.ordinal()] = (byte) card.suit().color().ordinal();
+    }
+  }
+
+  /*
+   * These fields are only written before the instance is returned from a factory or move method.
+   */
+  private long header;
+  private long lane0;
+  private long lane1;
+  private long lane2;
+  private long lane3;
+  private long lane4;
+  private long lane5;
+  private long zobrist;
+
+  private PackedFreeCell() {}
+
+  private PackedFreeCell(PackedFreeCell other) {
+    this.header = other.header;
+    this.lane0 = other.lane0;
+    this.lane1 = other.lane1;
+    this.lane2 = other.lane2;
+    this.lane3 = other.lane3;
+    this.lane4 = other.lane4;
+    this.lane5 = other.lane5;
+    this.zobrist = other.zobrist;
+  }
+
+  @Override
+  public boolean gameWon() {
+    for (int suit = 0; suit < SUIT_COUNT; suit++) {
+      if (homeCount(header, suit) != RANK_COUNT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int minMovesToWin() {
+    int sum = CARD_COUNT;
+    for (int suit = 0; suit < SUIT_COUNT; suit++) {
+      sum -= homeCount(header, suit);
+    }
+    return sum;
+  }
+
+  @Override
+  public PackedFreeCell moveToHomeCellFromTableau(int tableauCol) {
+    assert canMoveToHomeCellFromTableau(tableauCol);
+    int card = checkCardNotNone(top(tableauCol));
+    var next = new PackedFreeCell(this);
+    next.setSlot(TOP_SLOT + tableauCol, below(card));
+    next.setSlot(card, NONE);
+    next.header = withHomeCount(header, SUIT_ORD[card], RANK_ORD[card] + 1);
+    next.zobrist = zobrist ^ Zobrist.key(card, location(below(card))) ^ Zobrist.key(card, Zobrist.HOME);
+    return next;
+  }
+
+  @Override
+  public boolean canMoveToHomeCellFromTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    int card = top(tableauCol);
+    if (card == NONE) {
+      return false;
+    }
+    return canMoveHome(card);
+  }
+
+  @Override
+  public PackedFreeCell moveToHomeCellFromFreeCell(int freeCol) {
+    assert canMoveToHomeCellFromFreeCell(freeCol);
+    int card = freeCard(header, freeCol);
+    var next = new PackedFreeCell(this);
+    next.header = withHomeCount(removeFree(header, freeCol), SUIT_ORD[card], RANK_ORD[card] + 1);
+    next.zobrist = zobrist ^ Zobrist.key(card, Zobrist.FREE) ^ Zobrist.key(card, Zobrist.HOME);
+    return next;
+  }
+
+  @Override
+  public boolean canMoveToHomeCellFromFreeCell(int freeCol) {
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    if (freeCol >= freeCellsUsed(header)) {
+      return false;
+    }
+    return canMoveHome(freeCard(header, freeCol));
+  }
+
+  private boolean canMoveHome(int card) {
+    return homeCount(header, SUIT_ORD[card]) == RANK_ORD[card];
+  }
+
+  @Override
+  public PackedFreeCell moveToFreeCellFromTableau(int tableauCol) {
+    assert canMoveToFreeCellFromTableau(tableauCol);
+    int card = checkCardNotNone(top(tableauCol));
+    var next = new PackedFreeCell(this);
+    next.setSlot(TOP_SLOT + tableauCol, below(card));
+    next.setSlot(card, NONE);
+    next.header = insertFree(header, card);
+    next.zobrist = zobrist ^ Zobrist.key(card, location(below(card))) ^ Zobrist.key(card, Zobrist.FREE);
+    return next;
+  }
+
+  @Override
+  public boolean canMoveToFreeCellFromTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    return top(tableauCol) != NONE && freeCellsUsed(header) < FREE_CELLS;
+  }
+
+  @Nullable
+  @Override
+  public Card peekTableau(int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    return card(top(tableauCol));
+  }
+
+  @Nullable
+  @Override
+  public Card peekFreeCell(int freeCol) {
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    if (freeCol >= freeCellsUsed(header)) {
+      return null;
+    }
+    return card(freeCard(header, freeCol));
+  }
+
+  @Override
+  public PackedFreeCell moveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    assert canMoveToTableauFromTableau(dstTableauCol, srcTableauCol, count);
+    int srcTop = checkCardNotNone(top(srcTableauCol));
+    int srcBase = srcTop;
+    for (int i = 1; i < count; i++) {
+      srcBase = checkCardNotNone(below(srcBase));
+    }
+    var next = new PackedFreeCell(this);
+    next.setSlot(TOP_SLOT + srcTableauCol, below(srcBase));
+    next.setSlot(srcBase, top(dstTableauCol));
+    next.setSlot(TOP_SLOT + dstTableauCol, srcTop);
+    next.zobrist = zobrist
+        ^ Zobrist.key(srcBase, location(below(srcBase)))
+        ^ Zobrist.key(srcBase, location(top(dstTableauCol)));
+    return next;
+  }
+
+  @Override
+  public boolean canMoveToTableauFromTableau(int dstTableauCol, int srcTableauCol, int count) {
+    assert dstTableauCol >= 0 && dstTableauCol < TABLEAU_COLS;
+    assert srcTableauCol >= 0 && srcTableauCol < TABLEAU_COLS;
+    assert count > 0 && count <= RANK_COUNT;
+    if (srcTableauCol == dstTableauCol) {
+      return false;
+    }
+    int srcTop = top(srcTableauCol);
+    if (srcTop == NONE) {
+      return false;
+    }
+    int srcBase = srcTop;
+    for (int i = 1; i < count; i++) {
+      int under = below(srcBase);
+      if (under == NONE || COLOR_ORD[under] == COLOR_ORD[srcBase] || RANK_ORD[under] != RANK_ORD[srcBase] + 1) {
+        return false;
+      }
+      srcBase = under;
+    }
+    int dstTop = top(dstTableauCol);
+    if (dstTop != NONE) {
+      if (RANK_ORD[dstTop] - 1 != RANK_ORD[srcBase] || COLOR_ORD[dstTop] == COLOR_ORD[srcBase]) {
+        return false;
+      }
+    }
+
+    int movableCards = FREE_CELLS - freeCellsUsed(header) + 1;
+    if (movableCards >= count) {
+      return true;
+    }
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      if (col == dstTableauCol || col == srcTableauCol) {
+        continue;
+      }
+      if (top(col) == NONE) {
+        movableCards *= 2;
+        if (count <= movableCards) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public PackedFreeCell moveToTableauFromFreeCell(int dstTableauCol, int freeCol) {
+    assert canMoveToTableauFromFreeCell(dstTableauCol, freeCol);
+    int card = freeCard(header, freeCol);
+    var next = new PackedFreeCell(this);
+    next.header = removeFree(header, freeCol);
+    next.setSlot(card, top(dstTableauCol));
+    next.setSlot(TOP_SLOT + dstTableauCol, card);
+    next.zobrist = zobrist ^ Zobrist.key(card, Zobrist.FREE) ^ Zobrist.key(card, location(top(dstTableauCol)));
+    return next;
+  }
+
+  @Override
+  public boolean canMoveToTableauFromFreeCell(int dstTableauCol, int freeCol) {
+    assert dstTableauCol >= 0 && dstTableauCol < TABLEAU_COLS;
+    assert freeCol >= 0 && freeCol < FREE_CELLS;
+    if (freeCol >= freeCellsUsed(header)) {
+      return false;
+    }
+    int card = freeCard(header, freeCol);
+    int dstTop = top(dstTableauCol);
+    if (dstTop == NONE) {
+      return true;
+    }
+    return RANK_ORD[dstTop] - 1 == RANK_ORD[card] && COLOR_ORD[dstTop] != COLOR_ORD[card];
+  }
+
+  @Override
+  public int tableauSize(int tableauCol) {
+    return height(top(tableauCol));
+  }
+
+  @Override
+  public int stackSize(int tableauCol) {
+    int card = top(tableauCol);
+    if (card == NONE) {
+      return 0;
+    }
+    int count = 1;
+    for (int under; (under = below(card)) != NONE; card = under, count++) {
+      if (COLOR_ORD[under] == COLOR_ORD[card] || RANK_ORD[under] != RANK_ORD[card] + 1) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void readTableau(Collection<? super Card> column, int tableauCol) {
+    assert tableauCol >= 0 && tableauCol < TABLEAU_COLS;
+    column.addAll(Arrays.asList(column(tableauCol)));
+  }
+
+  @Nullable
+  @Override
+  public Card topHomeCell(Suit suit) {
+    int count = homeCount(header, suit.ordinal());
+    if (count == 0) {
+      return null;
+    }
+    return CARDS_BY_ORD.get(suit.ordinal() * RANK_COUNT + count - 1);
+  }
+
+  @Override
+  public Spliterator<Card> tableauColSpliterator(int tableauCol) {
+    return Spliterators.spliterator(
+        column(tableauCol),
+        Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+  }
+
+  @Override
+  public Spliterator<Card> tableauRowSpliterator(int tableauRow) {
+    return new Spliterators.AbstractSpliterator<>(
+        TABLEAU_COLS,
+        Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SUBSIZED) {
+
+      int tableauCol;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super Card> action) {
+        if (tableauCol >= TABLEAU_COLS) {
+          return false;
+        }
+        int card = top(tableauCol++);
+        int height = height(card);
+        if (tableauRow >= height) {
+          action.accept(null);
+          return true;
+        }
+        for (int i = height - 1; i > tableauRow; i--) {
+          card = below(card);
+        }
+        action.accept(card(card));
+        return true;
+      }
+    };
+  }
+
+  @Override
+  public PackedFreeCell canonical() {
+    int[] order = canonicalColumns();
+    var sorted = new PackedFreeCell(this);
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      sorted.setSlot(TOP_SLOT + col, top(order[col]));
+    }
+    return sorted;
+  }
+
+  @Override
+  public int[] canonicalColumns() {
+    int[] order = new int[TABLEAU_COLS];
+    int[] bottoms = new int[TABLEAU_COLS];
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      int bottom = bottom(col);
+      int pos = col;
+      // Insertion sort is stable, so identical (i.e. empty) columns keep their order.
+      for (; pos > 0 && bottoms[pos - 1] > bottom; pos--) {
+        order[pos] = order[pos - 1];
+        bottoms[pos] = bottoms[pos - 1];
+      }
+      order[pos] = col;
+      bottoms[pos] = bottom;
+    }
+    return order;
+  }
+
+  /**
+   * Returns the bottom most card of the column, or -1 if the column is empty so that empty columns sort first.
+   */
+  private int bottom(int tableauCol) {
+    int card = top(tableauCol);
+    if (card == NONE) {
+      return -1;
+    }
+    for (int under; (under = below(card)) != NONE; ) {
+      card = under;
+    }
+    return card;
+  }
+
+  @Override
+  public String toString() {
+    return ForkFreeCell.toString(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    PackedFreeCell that = (PackedFreeCell) o;
+    return zobrist == that.zobrist
+        && header == that.header
+        && lane0 == that.lane0
+        && lane1 == that.lane1
+        && lane2 == that.lane2
+        && lane3 == that.lane3
+        && lane4 == that.lane4
+        && lane5 == that.lane5;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(zobrist);
+  }
+
+  @Override
+  public long zobrist() {
+    return zobrist;
+  }
+
+  /**
+   * The number of {@code long}s written by {@link #pack}.
+   */
+  public static final int PACKED_LONGS = 7;
+
+  /**
+   * Writes the game as {@link #PACKED_LONGS} {@code long}s.  Equal games write equal values, so packed games can be
+   * sorted and compared without unpacking them.  Games that differ only in column order pack differently unless they
+   * are {@link #canonical()}.
+   */
+  public void pack(long[] dst, int offset) {
+    Objects.checkFromIndexSize(offset, PACKED_LONGS, dst.length);
+    dst[offset] = header;
+    dst[offset + 1] = lane0;
+    dst[offset + 2] = lane1;
+    dst[offset + 3] = lane2;
+    dst[offset + 4] = lane3;
+    dst[offset + 5] = lane4;
+    dst[offset + 6] = lane5;
+  }
+
+  /**
+   * Reads a game written by {@link #pack}.  The values are not checked, so they must come from a packed game.
+   */
+  public static PackedFreeCell unpack(long[] src, int offset) {
+    Objects.checkFromIndexSize(offset, PACKED_LONGS, src.length);
+    var game = new PackedFreeCell();
+    game.header = src[offset];
+    game.lane0 = src[offset + 1];
+    game.lane1 = src[offset + 2];
+    game.lane2 = src[offset + 3];
+    game.lane3 = src[offset + 4];
+    game.lane4 = src[offset + 5];
+    game.lane5 = src[offset + 6];
+    game.zobrist = Zobrist.hash(game);
+    return game;
+  }
+
+  /**
+   * Returns the {@link Zobrist} location of a tableau card sitting on the given card.
+   */
+  private static int location(int under) {
+    return under == NONE ? Zobrist.BOTTOM : under;
+  }
+
+  private Card[] column(int tableauCol) {
+    int card = top(tableauCol);
+    Card[] cards = new Card[height(card)];
+    for (int i = cards.length - 1; i >= 0; i--, card = below(card)) {
+      cards[i] = CARDS_BY_ORD.get(card);
+    }
+    return cards;
+  }
+
+  /**
+   * Returns the number of cards at or below the given card.
+   */
+  private int height(int card) {
+    int height = 0;
+    for (; card != NONE; card = below(card)) {
+      height++;
+    }
+    return height;
+  }
+
+  private int top(int tableauCol) {
+    return slot(TOP_SLOT + tableauCol);
+  }
+
+  private int below(int card) {
+    return slot(card);
+  }
+
+  private int slot(int slot) {
+    return (int) ((lane(slot / SLOTS_PER_LANE) >>> ((slot % SLOTS_PER_LANE) * CARD_BITS)) & CARD_MASK);
+  }
+
+  private void setSlot(int slot, int value) {
+    int laneIdx = slot / SLOTS_PER_LANE;
+    int shift = (slot % SLOTS_PER_LANE) * CARD_BITS;
+    long lane = (lane(laneIdx) & ~(CARD_MASK << shift)) | ((long) value << shift);
+    switch (laneIdx) {
+      case 0 -> lane0 = lane;
+      case 1 -> lane1 = lane;
+      case 2 -> lane2 = lane;
+      case 3 -> lane3 = lane;
+      case 4 -> lane4 = lane;
+      case 5 -> lane5 = lane;
+      default -> throw new AssertionError(laneIdx);
+    }
+  }
+
+  private long lane(int laneIdx) {
+    return switch (laneIdx) {
+      case 0 -> lane0;
+      case 1 -> lane1;
+      case 2 -> lane2;
+      case 3 -> lane3;
+      case 4 -> lane4;
+      case 5 -> lane5;
+      default -> throw new AssertionError(laneIdx);
+    };
+  }
+
+  private void clear() {
+    for (int slot = 0; slot < TOP_SLOT + TABLEAU_COLS; slot++) {
+      setSlot(slot, NONE);
+    }
+    long freeCells = 0;
+    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
+      freeCells |= CARD_MASK << (freeCol * CARD_BITS);
+    }
+    header = freeCells << FREE_SHIFT;
+  }
+
+  private static int homeCount(long header, int suitOrd) {
+    return (int) ((header >>> (suitOrd * HOME_BITS)) & HOME_MASK);
+  }
+
+  private static long withHomeCount(long header, int suitOrd, int count) {
+    int shift = suitOrd * HOME_BITS;
+    return (header & ~(HOME_MASK << shift)) | ((long) count << shift);
+  }
+
+  private static int freeCellsUsed(long header) {
+    return (int) ((header >>> FREE_USED_SHIFT) & FREE_USED_MASK);
+  }
+
+  private static int freeCard(long header, int freeCol) {
+    return (int) ((header >>> (FREE_SHIFT + freeCol * CARD_BITS)) & CARD_MASK);
+  }
+
+  private static long withFreeCard(long header, int freeCol, int card) {
+    int shift = FREE_SHIFT + freeCol * CARD_BITS;
+    return (header & ~(CARD_MASK << shift)) | ((long) card << shift);
+  }
+
+  /**
+   * Inserts the card into the free cells, keeping them in descending order.
+   */
+  private static long insertFree(long header, int card) {
+    int used = freeCellsUsed(header);
+    assert used < FREE_CELLS;
+    int pos = used;
+    for (; pos > 0 && freeCard(header, pos - 1) < card; pos--) {
+      header = withFreeCard(header, pos, freeCard(header, pos - 1));
+    }
+    header = withFreeCard(header, pos, card);
+    return (header & ~(FREE_USED_MASK << FREE_USED_SHIFT)) | ((long) (used + 1) << FREE_USED_SHIFT);
+  }
+
+  private static long removeFree(long header, int freeCol) {
+    int used = freeCellsUsed(header);
+    assert freeCol < used;
+    for (int pos = freeCol; pos < used - 1; pos++) {
+      header = withFreeCard(header, pos, freeCard(header, pos + 1));
+    }
+    header = withFreeCard(header, used - 1, NONE);
+    return (header & ~(FREE_USED_MASK << FREE_USED_SHIFT)) | ((long) (used - 1) << FREE_USED_SHIFT);
+  }
+
+  @Nullable
+  private static Card card(int card) {
+    return card == NONE ? null : CARDS_BY_ORD.get(card);
+  }
+
+  private static int checkCardNotNone(int card) {
+    if (card == NONE) {
+      throw new IllegalArgumentException("empty card");
+    }
+    return card;
+  }
+}
@@ -0,0 +1,72 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for hashing games.  A game hashes to the XOR of one key per card, picked by the card and its location.
+ * The location of a tableau card is the card directly underneath it, or {@link #BOTTOM}.  Since tableau locations
+ * don't include the column, games that only differ by the order of their columns hash the same, and moving a run of
+ * cards only changes the location of the bottom card of the run.
+ */
+final class Zobrist {
+
+  static final int BOTTOM = CARD_COUNT;
+  static final int FREE = CARD_COUNT + 1;
+  static final int HOME = CARD_COUNT + 2;
+  private static final int LOCATIONS = CARD_COUNT + 3;
+
+  private static final long[] KEYS = new long[CARD_COUNT * LOCATIONS];
+
+  static {
+    // Fixed seed so hashes are stable between runs.
+    var rng = new SplittableRandom(0x5EED_F4EE_CE11L);
+    for (int i = 0; i < KEYS.length; i++) {
+      KEYS[i] = rng.nextLong();
+    }
+  }
+
+  /**
+   * Returns the key for a card at a location, which is either the ordinal of the card underneath it, or one of
+   * {@link #BOTTOM}, {@link #FREE}, or {@link #HOME}.
+   */
+  static long key(int cardOrd, int location) {
+    return KEYS[cardOrd * LOCATIONS + location];
+  }
+
+  /**
+   * Computes the hash of a game from scratch.
+   */
+  static long hash(FreeCell game) {
+    long hash = 0;
+    for (Suit suit : Suit.SUITS_BY_ORD) {
+      for (Card card = game.topHomeCell(suit); card != null; card = card.lowerRank()) {
+        hash ^= key(card.ordinal(), HOME);
+      }
+    }
+    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
+      Card card = game.peekFreeCell(freeCol);
+      if (card != null) {
+        hash ^= key(card.ordinal(), FREE);
+      }
+    }
+    List<Card> column = new ArrayList<>();
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      column.clear();
+      game.readTableau(column, col);
+      int location = BOTTOM;
+      for (Card card : column) {
+        hash ^= key(card.ordinal(), location);
+        location = card.ordinal();
+      }
+    }
+    return hash;
+  }
+
+  private Zobrist() {}
+}
@@ -1,19 +1,70 @@
 package com.carlmastrangelo.freecell.coder;
 
 import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
 import com.carlmastrangelo.freecell.FreeCell;
 import com.carlmastrangelo.freecell.Rank;
 import com.carlmastrangelo.freecell.Suit;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 
+/**
+ * Encodes a game into a single number, and back.  The number counts through every arrangement of the home cells, free
+ * cells, and tableau, so it is always less than {@link #KEY_COUNT} and fits in {@link #KEY_BYTES} bytes, about half
+ * the size of the card array of a {@link com.carlmastrangelo.freecell.ForkFreeCell}.
+ *
+ * <p>Games are ordered first by the number of cards at home, then by the ranks at home, the cards in the free cells,
+ * how the rest of the cards are split into columns, and finally by the order of the cards in the tableau.  Tableau
+ * columns keep their order, so games that differ only in the order of their columns have different keys.  Columns
+ * longer than {@link #MAX_COLUMN_SIZE} can't be encoded.
+ */
 final class BoardCoder {
 
+  /**
+   * The longest a column can be in a game played from a deal: six cards under a king, and twelve more on top.
+   */
+  static final int MAX_COLUMN_SIZE = 19;
+
+  /**
+   * The number of distinct keys.  Every key is less than this.
+   */
+  static final BigInteger KEY_COUNT;
+
+  static final int KEY_BITS;
+
+  static final int KEY_BYTES;
+
   private static final int[] FIBS = new int[45];
 
+  /**
+   * The number of ways to split the cards among the tableau columns, indexed by card count and then by the number of
+   * divisions between columns.
+   */
   private static final BigInteger[][] COLUMN_DIV_COUNTS;
 
+  /**
+   * The number of ways to have cards at home, indexed like {@link #COLUMN_DIV_COUNTS} with a home cell per column.
+   */
+  private static final BigInteger[][] HOME_DIV_COUNTS;
+
+  private static final BigInteger[] FACTORIALS = new BigInteger[Card.CARD_COUNT + 1];
+
+  private static final long[][] BINOMIALS = new long[Card.CARD_COUNT + 1][FreeCell.FREE_CELLS + 1];
+
+  /**
+   * The first key of the games with each number of free cards, indexed by the number of cards not at home.  The last
+   * entry is the number of such games for each way of having the rest at home.
+   */
+  private static final BigInteger[][] FREE_OFFSETS = new BigInteger[Card.CARD_COUNT + 1][];
+
+  /**
+   * The first key of the games with each number of cards at home.
+   */
+  private static final BigInteger[] HOME_OFFSETS = new BigInteger[Card.CARD_COUNT + 2];
+
   static {
     FIBS[0] = 1;
     FIBS[1] = 2;
@@ -21,14 +72,43 @@ final class BoardCoder {
       FIBS[i] = Math.addExact(FIBS[i - 1], FIBS[i - 2]);
     }
 
-    COLUMN_DIV_COUNTS = fillColumnDivCounts(Card.CARD_COUNT, FreeCell.TABLEAU_COLS);
+    COLUMN_DIV_COUNTS = fillColumnDivCounts(Card.CARD_COUNT, FreeCell.TABLEAU_COLS, MAX_COLUMN_SIZE);
+    HOME_DIV_COUNTS = fillColumnDivCounts(Card.CARD_COUNT, Suit.SUIT_COUNT, Rank.RANK_COUNT);
+
+    FACTORIALS[0] = BigInteger.ONE;
+    for (int i = 1; i < FACTORIALS.length; i++) {
+      FACTORIALS[i] = FACTORIALS[i - 1].multiply(BigInteger.valueOf(i));
+    }
+    for (int n = 0; n < BINOMIALS.length; n++) {
+      BINOMIALS[n][0] = 1;
+      for (int k = 1; k <= FreeCell.FREE_CELLS && k <= n; k++) {
+        BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+      }
+    }
+
+    for (int cards = 0; cards <= Card.CARD_COUNT; cards++) {
+      int maxFree = Math.min(FreeCell.FREE_CELLS, cards);
+      FREE_OFFSETS[cards] = new BigInteger[maxFree + 2];
+      FREE_OFFSETS[cards][0] = BigInteger.ZERO;
+      for (int free = 0; free <= maxFree; free++) {
+        FREE_OFFSETS[cards][free + 1] = FREE_OFFSETS[cards][free].add(freeBlockSize(cards, free));
+      }
+    }
+    HOME_OFFSETS[0] = BigInteger.ZERO;
+    for (int home = 0; home <= Card.CARD_COUNT; home++) {
+      BigInteger homeGames = HOME_DIV_COUNTS[home][Suit.SUIT_COUNT - 1].multiply(blockSize(Card.CARD_COUNT - home));
+      HOME_OFFSETS[home + 1] = HOME_OFFSETS[home].add(homeGames);
+    }
+    KEY_COUNT = HOME_OFFSETS[Card.CARD_COUNT + 1];
+    KEY_BITS = KEY_COUNT.subtract(BigInteger.ONE).bitLength();
+    KEY_BYTES = (KEY_BITS + Byte.SIZE - 1) / Byte.SIZE;
   }
 
-  private static BigInteger[][] fillColumnDivCounts(int cardCount, int columns) {
+  private static BigInteger[][] fillColumnDivCounts(int cardCount, int columns, int maxColumnSize) {
     BigInteger[][] columnDivCounts = new BigInteger[cardCount + 1][];
-    int maxColumnSize = 19;
-    // assert maxColumnSize == Math.ceil(1.0 * cardCount / columns) + Rank.RANK_COUNT - 2;
-    countColumnDiv(columnDivCounts, cardCount, columns, maxColumnSize);
+    for (int cards = 0; cards <= cardCount; cards++) {
+      countColumnDiv(columnDivCounts, cards, columns - 1, maxColumnSize);
+    }
     return columnDivCounts;
   }
 
@@ -57,18 +137,228 @@ final class BoardCoder {
     return (memo[elements][divisions] = combos);
   }
 
+  /**
+   * Returns the number of ways to split the cards into parts with this many divisions between them, each part no
+   * longer than a column can be.
+   */
+  static BigInteger columnDivCount(int cards, int divisions) {
+    return COLUMN_DIV_COUNTS[cards][divisions];
+  }
+
+  /**
+   * Returns the number of games for one way of having cards at home, leaving this many cards elsewhere.
+   */
+  private static BigInteger blockSize(int cards) {
+    return FREE_OFFSETS[cards][FREE_OFFSETS[cards].length - 1];
+  }
+
+  private static BigInteger freeBlockSize(int cards, int free) {
+    int tableau = cards - free;
+    return BigInteger.valueOf(BINOMIALS[cards][free])
+        .multiply(COLUMN_DIV_COUNTS[tableau][FreeCell.TABLEAU_COLS - 1])
+        .multiply(FACTORIALS[tableau]);
+  }
+
+  private final LehmerCoder lehmerCoder = new LehmerCoder(Card.CARD_COUNT);
+
   BigInteger encode(FreeCell freeCell) {
     int[] homeRanks = new int[Suit.SUIT_COUNT];
+    int homeCards = 0;
+    long awayCards = 0;
     for (Suit s : Suit.SUITS_BY_ORD) {
       var top = freeCell.topHomeCell(s);
       if (top != null) {
         homeRanks[s.num() - 1] = top.rank().num();
+        homeCards += top.rank().num();
+      }
+      awayCards |= ((1L << (Rank.RANK_COUNT - homeRanks[s.num() - 1])) - 1)
+          << (s.ordinal() * Rank.RANK_COUNT + homeRanks[s.num() - 1]);
+    }
+    int cards = Card.CARD_COUNT - homeCards;
+
+    long freeCards = 0;
+    for (int freeCol = 0; freeCol < FreeCell.FREE_CELLS; freeCol++) {
+      Card card = freeCell.peekFreeCell(freeCol);
+      if (card != null) {
+        freeCards |= 1L << card.ordinal();
+      }
+    }
+    int free = Long.bitCount(freeCards);
+    BigInteger freeRank = BigInteger.valueOf(rankCombination(awayCards, freeCards));
+
+    long tableauCards = awayCards & ~freeCards;
+    int tableau = cards - free;
+    int[] columnSizes = new int[FreeCell.TABLEAU_COLS];
+    List<Card> tableauOrder = new ArrayList<>(tableau);
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      int before = tableauOrder.size();
+      freeCell.readTableau(tableauOrder, col);
+      columnSizes[col] = tableauOrder.size() - before;
+      if (columnSizes[col] > MAX_COLUMN_SIZE) {
+        throw new IllegalArgumentException("bad column " + col + " has " + columnSizes[col] + " cards");
+      }
+    }
+    assert tableauOrder.size() == tableau;
+    BigInteger splitRank = rankSplit(COLUMN_DIV_COUNTS, columnSizes, tableau);
+    int[] permdexes = lehmerCoder.altPermdexes(
+        tableauOrder, card -> Long.bitCount(tableauCards & ((1L << card.ordinal()) - 1)));
+    BigInteger permRank = tableau == 0 ? BigInteger.ZERO : lehmerCoder.encode(permdexes);
+
+    BigInteger key = freeRank.multiply(COLUMN_DIV_COUNTS[tableau][FreeCell.TABLEAU_COLS - 1])
+        .add(splitRank)
+        .multiply(FACTORIALS[tableau])
+        .add(permRank)
+        .add(FREE_OFFSETS[cards][free]);
+    BigInteger homeRank = rankSplit(HOME_DIV_COUNTS, homeRanks, homeCards);
+    return homeRank.multiply(blockSize(cards)).add(key).add(HOME_OFFSETS[homeCards]);
+  }
+
+  FreeCell decode(BigInteger key) {
+    if (key.signum() < 0 || key.compareTo(KEY_COUNT) >= 0) {
+      throw new IllegalArgumentException("bad key " + key);
+    }
+    int homeCards = 0;
+    while (key.compareTo(HOME_OFFSETS[homeCards + 1]) >= 0) {
+      homeCards++;
+    }
+    int cards = Card.CARD_COUNT - homeCards;
+    BigInteger[] homeRankAndKey = key.subtract(HOME_OFFSETS[homeCards]).divideAndRemainder(blockSize(cards));
+    int[] homeRanks = new int[Suit.SUIT_COUNT];
+    unrankSplit(HOME_DIV_COUNTS, homeRankAndKey[0], homeCards, homeRanks);
+    key = homeRankAndKey[1];
+
+    List<Card> homeCells = new ArrayList<>(Suit.SUIT_COUNT);
+    long awayCards = 0;
+    for (Suit s : Suit.SUITS_BY_ORD) {
+      int rank = homeRanks[s.num() - 1];
+      if (rank != 0) {
+        homeCells.add(Card.CARDS_BY_ORD.get(s.ordinal() * Rank.RANK_COUNT + rank - 1));
       }
+      awayCards |= ((1L << (Rank.RANK_COUNT - rank)) - 1) << (s.ordinal() * Rank.RANK_COUNT + rank);
+    }
+
+    int free = 0;
+    while (key.compareTo(FREE_OFFSETS[cards][free + 1]) >= 0) {
+      free++;
+    }
+    key = key.subtract(FREE_OFFSETS[cards][free]);
+    int tableau = cards - free;
+    BigInteger[] restAndPermRank = key.divideAndRemainder(FACTORIALS[tableau]);
+    BigInteger[] freeRankAndSplitRank =
+        restAndPermRank[0].divideAndRemainder(COLUMN_DIV_COUNTS[tableau][FreeCell.TABLEAU_COLS - 1]);
+
+    long freeCards = unrankCombination(awayCards, free, freeRankAndSplitRank[0].longValueExact());
+    List<Card> freeCells = new ArrayList<>(free);
+    for (long bits = freeCards; bits != 0; bits &= bits - 1) {
+      freeCells.add(Card.CARDS_BY_ORD.get(Long.numberOfTrailingZeros(bits)));
     }
 
-    var bs = fibonacciEncode(homeRanks[0]);
+    int[] columnSizes = new int[FreeCell.TABLEAU_COLS];
+    unrankSplit(COLUMN_DIV_COUNTS, freeRankAndSplitRank[1], tableau, columnSizes);
+    long tableauCards = awayCards & ~freeCards;
+    int[] permdexes = lehmerCoder.decode(tableau, restAndPermRank[1]);
+    List<Card> tableauOrder = new ArrayList<>(tableau);
+    lehmerCoder.altPermute(tableauOrder, permdexes, i -> Card.CARDS_BY_ORD.get(nthSetBit(tableauCards, i)));
+    List<List<Card>> columns = new ArrayList<>(FreeCell.TABLEAU_COLS);
+    int start = 0;
+    for (int columnSize : columnSizes) {
+      columns.add(tableauOrder.subList(start, start += columnSize));
+    }
+    return ForkFreeCell.dealColumns(homeCells, freeCells, columns);
+  }
+
+  /**
+   * Returns the big endian bytes of a key, always {@link #KEY_BYTES} long.
+   */
+  static byte[] keyBytes(BigInteger key) {
+    if (key.signum() < 0 || key.compareTo(KEY_COUNT) >= 0) {
+      throw new IllegalArgumentException("bad key " + key);
+    }
+    byte[] bytes = key.toByteArray();
+    // toByteArray() may add a leading zero for the sign, or be shorter than needed.
+    byte[] fixed = new byte[KEY_BYTES];
+    int length = Math.min(bytes.length, KEY_BYTES);
+    System.arraycopy(bytes, bytes.length - length, fixed, KEY_BYTES - length, length);
+    return fixed;
+  }
+
+  static BigInteger fromKeyBytes(byte[] bytes) {
+    if (bytes.length != KEY_BYTES) {
+      throw new IllegalArgumentException("bad key length " + bytes.length);
+    }
+    return new BigInteger(1, bytes);
+  }
 
-    return null;
+  /**
+   * Ranks how elements are split into parts, counting through splits with the first part smallest first.
+   */
+  private static BigInteger rankSplit(BigInteger[][] divCounts, int[] parts, int elements) {
+    BigInteger rank = BigInteger.ZERO;
+    int remaining = elements;
+    for (int i = 0; i < parts.length - 1; i++) {
+      int divisions = parts.length - 2 - i;
+      for (int keep = 0; keep < parts[i]; keep++) {
+        rank = rank.add(divCounts[remaining - keep][divisions]);
+      }
+      remaining -= parts[i];
+    }
+    return rank;
+  }
+
+  private static void unrankSplit(BigInteger[][] divCounts, BigInteger rank, int elements, int[] parts) {
+    int remaining = elements;
+    for (int i = 0; i < parts.length - 1; i++) {
+      int divisions = parts.length - 2 - i;
+      int keep = 0;
+      BigInteger count;
+      while (rank.compareTo(count = divCounts[remaining - keep][divisions]) >= 0) {
+        rank = rank.subtract(count);
+        keep++;
+      }
+      parts[i] = keep;
+      remaining -= keep;
+    }
+    parts[parts.length - 1] = remaining;
+  }
+
+  /**
+   * Returns the number of ways to choose up to {@link FreeCell#FREE_CELLS} of the cards.
+   */
+  static long binomial(int cards, int chosen) {
+    return BINOMIALS[cards][chosen];
+  }
+
+  /**
+   * Ranks a subset of a set of cards, both as bitsets, in the combinatorial number system.
+   */
+  static long rankCombination(long cards, long subset) {
+    long rank = 0;
+    int k = 1;
+    for (long bits = subset; bits != 0; bits &= bits - 1, k++) {
+      int index = Long.bitCount(cards & (Long.lowestOneBit(bits) - 1));
+      rank += BINOMIALS[index][k];
+    }
+    return rank;
+  }
+
+  static long unrankCombination(long cards, int size, long rank) {
+    long subset = 0;
+    int index = Long.bitCount(cards);
+    for (int k = size; k > 0; k--) {
+      do {
+        index--;
+      } while (BINOMIALS[index][k] > rank);
+      rank -= BINOMIALS[index][k];
+      subset |= 1L << nthSetBit(cards, index);
+    }
+    return subset;
+  }
+
+  static int nthSetBit(long bits, int n) {
+    for (int i = 0; i < n; i++) {
+      bits &= bits - 1;
+    }
+    return Long.numberOfTrailingZeros(bits);
   }
 
   static int encodeZigZag(int num) {
@@ -4,12 +4,32 @@ import static com.carlmastrangelo.freecell.Card.CARDS_BY_ORD;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.function.IntFunction;
 import java.util.function.ToIntFunction;
 
 final class LehmerCoder {
+
+  /**
+   * The number of longs holding a fixed width factoradix number, least significant first.
+   */
+  static final int FIXED_WORDS = 4;
+
+  /**
+   * The most radixes a fixed width factoradix number can hold, since 57! is less than 2^256 but 58! is not.
+   */
+  static final int MAX_FIXED_RADIXES = 57;
+
+  /**
+   * Radixes are multiplied in and divided out in groups whose bases multiply to no more than this, so that a group and
+   * a 32 bit half word fit together in a long.
+   */
+  private static final long MAX_GROUP_BASE = Integer.MAX_VALUE;
+
+  private static final long HALF_MASK = 0xFFFF_FFFFL;
+
   private final List<BigInteger> factorials;
   private final List<BigInteger> numbers;
 
@@ -59,6 +79,16 @@ final class LehmerCoder {
 
   <T> int[] altPermdexes(List<? extends T> elems, ToIntFunction<? super T> ordFn) {
     int[] permdexes = new int[elems.size()];
+    altPermdexes(permdexes, elems, ordFn);
+    return permdexes;
+  }
+
+  /**
+   * Fills permdexes with the rank of each element among those not yet seen.  Ordinals must be less than 64.
+   * e.g. [0 3 1 2] becomes [0 2 0 0]
+   */
+  <T> void altPermdexes(int[] permdexes, List<? extends T> elems, ToIntFunction<? super T> ordFn) {
+    assert permdexes.length == elems.size();
     int i = 0;
     long bitset = 0;
     for (T elem : elems) {
@@ -67,7 +97,6 @@ final class LehmerCoder {
       permdexes[i++] = ord - Long.bitCount(bitset & (bit - 1));
       bitset |= bit;
     }
-    return permdexes;
   }
 
   <T> void altPermute(List<? super T> permutation, int[] permdexes, IntFunction<? extends T> ordFn) {
@@ -138,4 +167,87 @@ final class LehmerCoder {
     }
     assert factoradix.equals(BigInteger.ZERO);
   }
+
+  /**
+   * Encodes radixes into a fixed width factoradix number, the same value as {@link #encode(int[])} but without
+   * allocating.  Radixes are multiplied in a few at a time, so each group costs one pass over the words.
+   */
+  static void encode(long[] factoradix, int[] radixes) {
+    assert factoradix.length == FIXED_WORDS;
+    if (radixes.length > MAX_FIXED_RADIXES) {
+      throw new IllegalArgumentException("bad radix count " + radixes.length);
+    }
+    Arrays.fill(factoradix, 0);
+    int n = radixes.length;
+    int i = 0;
+    while (i < n) {
+      long group = 0;
+      long groupBase = 1;
+      do {
+        int base = n - i;
+        assert radixes[i] >= 0 && radixes[i] < base;
+        group = group * base + radixes[i];
+        groupBase *= base;
+        i++;
+      } while (i < n && groupBase * (n - i) <= MAX_GROUP_BASE);
+      multiplyAdd(factoradix, groupBase, group);
+    }
+  }
+
+  /**
+   * Decodes a fixed width factoradix number into radixes, the inverse of {@link #encode(long[], int[])}.  This
+   * destroys factoradix!
+   */
+  static void decode(int[] radixes, long[] factoradix) {
+    assert factoradix.length == FIXED_WORDS;
+    if (radixes.length > MAX_FIXED_RADIXES) {
+      throw new IllegalArgumentException("bad radix count " + radixes.length);
+    }
+    int n = radixes.length;
+    int i = n - 1;
+    while (i >= 0) {
+      int last = i;
+      long groupBase = 1;
+      do {
+        groupBase *= n - i;
+        i--;
+      } while (i >= 0 && groupBase * (n - i) <= MAX_GROUP_BASE);
+      long group = divide(factoradix, groupBase);
+      for (int k = last; k > i; k--) {
+        int base = n - k;
+        radixes[k] = (int) (group % base);
+        group /= base;
+      }
+    }
+    assert (factoradix[0] | factoradix[1] | factoradix[2] | factoradix[3]) == 0;
+  }
+
+  /**
+   * Sets words to {@code words * multiplier + addend}, working in 32 bit halves so no product overflows.
+   */
+  private static void multiplyAdd(long[] words, long multiplier, long addend) {
+    long carry = addend;
+    for (int w = 0; w < words.length; w++) {
+      long lo = (words[w] & HALF_MASK) * multiplier + carry;
+      long hi = (words[w] >>> 32) * multiplier + (lo >>> 32);
+      words[w] = (hi << 32) | (lo & HALF_MASK);
+      carry = hi >>> 32;
+    }
+    assert carry == 0 : "overflow";
+  }
+
+  /**
+   * Sets words to {@code words / divisor} and returns the remainder.
+   */
+  private static long divide(long[] words, long divisor) {
+    long rem = 0;
+    for (int w = words.length - 1; w >= 0; w--) {
+      long hi = (rem << 32) | (words[w] >>> 32);
+      rem = hi % divisor;
+      long lo = (rem << 32) | (words[w] & HALF_MASK);
+      rem = lo % divisor;
+      words[w] = ((hi / divisor) << 32) | (lo / divisor);
+    }
+    return rem;
+  }
 }
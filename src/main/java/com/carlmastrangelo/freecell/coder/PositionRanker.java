@@ -0,0 +1,247 @@
+package com.carlmastrangelo.freecell.coder;
+
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.Rank;
+import com.carlmastrangelo.freecell.Suit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranks the games with the same cards at home densely, from 0 up to {@link #size()}, and back.  Ranks are ordered like
+ * {@link BoardCoder} keys, but count only the games with these cards left to play, so they fit in a {@code long} and
+ * can index a bitmap of visited games directly instead of being hashed.  At most 15 cards may be left to play, since
+ * with more there are over 2^63 games.
+ *
+ * <p>Not thread safe.
+ */
+public final class PositionRanker {
+
+  /**
+   * The most cards that can be left to play.
+   */
+  public static final int MAX_CARDS = 15;
+
+  private static final long[][] COLUMN_DIV_COUNTS = new long[MAX_CARDS + 1][TABLEAU_COLS];
+  private static final long[] FACTORIALS = new long[MAX_CARDS + 1];
+
+  static {
+    for (int cards = 0; cards <= MAX_CARDS; cards++) {
+      for (int divisions = 0; divisions < TABLEAU_COLS; divisions++) {
+        COLUMN_DIV_COUNTS[cards][divisions] = BoardCoder.columnDivCount(cards, divisions).longValueExact();
+      }
+    }
+    FACTORIALS[0] = 1;
+    for (int i = 1; i < FACTORIALS.length; i++) {
+      FACTORIALS[i] = FACTORIALS[i - 1] * i;
+    }
+  }
+
+  /**
+   * The cards left to play, as a bitset of their ordinals.
+   */
+  private final long cards;
+  private final int cardCount;
+  private final List<Card> homeCells;
+  /**
+   * The first rank of the games with each number of free cards.  The last entry is the number of games.
+   */
+  private final long[] freeOffsets;
+
+  private final LehmerCoder lehmerCoder;
+  private final int[][] permdexesBySize;
+  private final int[] columnSizes = new int[TABLEAU_COLS];
+  private final List<Card> tableauOrder;
+
+  private PositionRanker(long cards) {
+    this.cards = cards;
+    this.cardCount = Long.bitCount(cards);
+    if (cardCount > MAX_CARDS) {
+      throw new IllegalArgumentException("bad card count " + cardCount);
+    }
+    List<Card> homeCells = new ArrayList<>(Suit.SUIT_COUNT);
+    for (Suit suit : Suit.SUITS_BY_ORD) {
+      int shift = suit.ordinal() * Rank.RANK_COUNT;
+      long suitCards = (cards >>> shift) & ((1L << Rank.RANK_COUNT) - 1);
+      int homeRank = Rank.RANK_COUNT - Long.bitCount(suitCards);
+      if (suitCards != ((1L << (Rank.RANK_COUNT - homeRank)) - 1) << homeRank) {
+        throw new IllegalArgumentException("bad cards for " + suit + ", lower cards left than higher ones");
+      }
+      if (homeRank != 0) {
+        homeCells.add(Card.CARDS_BY_ORD.get(shift + homeRank - 1));
+      }
+    }
+    this.homeCells = List.copyOf(homeCells);
+
+    int maxFree = Math.min(FREE_CELLS, cardCount);
+    this.freeOffsets = new long[maxFree + 2];
+    for (int free = 0; free <= maxFree; free++) {
+      int tableau = cardCount - free;
+      long games = BoardCoder.binomial(cardCount, free);
+      games = Math.multiplyExact(games, COLUMN_DIV_COUNTS[tableau][TABLEAU_COLS - 1]);
+      games = Math.multiplyExact(games, FACTORIALS[tableau]);
+      freeOffsets[free + 1] = Math.addExact(freeOffsets[free], games);
+    }
+
+    this.lehmerCoder = new LehmerCoder(cardCount);
+    this.permdexesBySize = new int[cardCount + 1][];
+    for (int size = 0; size <= cardCount; size++) {
+      permdexesBySize[size] = new int[size];
+    }
+    this.tableauOrder = new ArrayList<>(cardCount);
+  }
+
+  /**
+   * Returns a ranker for the games with the same cards at home as this one.
+   */
+  public static PositionRanker forGame(FreeCell game) {
+    return new PositionRanker(remainingCards(game));
+  }
+
+  /**
+   * Returns a ranker for the games with these cards left to play, as a bitset of their ordinals.  For each suit, the
+   * cards must be its highest ranks.
+   */
+  public static PositionRanker forCards(long cards) {
+    if ((cards >>> Card.CARD_COUNT) != 0) {
+      throw new IllegalArgumentException("bad cards " + Long.toHexString(cards));
+    }
+    return new PositionRanker(cards);
+  }
+
+  /**
+   * Returns the cards not at home in the game, as a bitset of their ordinals.
+   */
+  public static long remainingCards(FreeCell game) {
+    long cards = 0;
+    for (Suit suit : Suit.SUITS_BY_ORD) {
+      Card top = game.topHomeCell(suit);
+      int homeRank = top != null ? top.rank().num() : 0;
+      cards |= ((1L << (Rank.RANK_COUNT - homeRank)) - 1) << (suit.ordinal() * Rank.RANK_COUNT + homeRank);
+    }
+    return cards;
+  }
+
+  /**
+   * Returns the cards left to play, as a bitset of their ordinals.
+   */
+  public long cards() {
+    return cards;
+  }
+
+  /**
+   * Returns the number of games, one more than the largest rank.
+   */
+  public long size() {
+    return freeOffsets[freeOffsets.length - 1];
+  }
+
+  public long rank(FreeCell game) {
+    if (remainingCards(game) != cards) {
+      throw new IllegalArgumentException("bad game, wrong cards at home");
+    }
+    long freeCards = 0;
+    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
+      Card card = game.peekFreeCell(freeCol);
+      if (card != null) {
+        freeCards |= 1L << card.ordinal();
+      }
+    }
+    int free = Long.bitCount(freeCards);
+    int tableau = cardCount - free;
+
+    tableauOrder.clear();
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      int before = tableauOrder.size();
+      game.readTableau(tableauOrder, col);
+      columnSizes[col] = tableauOrder.size() - before;
+      if (columnSizes[col] > BoardCoder.MAX_COLUMN_SIZE) {
+        throw new IllegalArgumentException("bad column " + col + " has " + columnSizes[col] + " cards");
+      }
+    }
+    long tableauCards = cards & ~freeCards;
+    int[] permdexes = permdexesBySize[tableau];
+    lehmerCoder.altPermdexes(
+        permdexes, tableauOrder, card -> Long.bitCount(tableauCards & ((1L << card.ordinal()) - 1)));
+    long permRank = 0;
+    for (int i = 0; i < tableau; i++) {
+      permRank = permRank * (tableau - i) + permdexes[i];
+    }
+
+    long rank = BoardCoder.rankCombination(cards, freeCards);
+    rank = rank * COLUMN_DIV_COUNTS[tableau][TABLEAU_COLS - 1] + rankSplit(tableau);
+    return freeOffsets[free] + rank * FACTORIALS[tableau] + permRank;
+  }
+
+  public FreeCell unrank(long rank) {
+    if (rank < 0 || rank >= size()) {
+      throw new IllegalArgumentException("bad rank " + rank);
+    }
+    int free = 0;
+    while (rank >= freeOffsets[free + 1]) {
+      free++;
+    }
+    rank -= freeOffsets[free];
+    int tableau = cardCount - free;
+    long permRank = rank % FACTORIALS[tableau];
+    rank /= FACTORIALS[tableau];
+    long splits = COLUMN_DIV_COUNTS[tableau][TABLEAU_COLS - 1];
+    unrankSplit(rank % splits, tableau);
+
+    long freeCards = BoardCoder.unrankCombination(cards, free, rank / splits);
+    List<Card> freeCells = new ArrayList<>(free);
+    for (long bits = freeCards; bits != 0; bits &= bits - 1) {
+      freeCells.add(Card.CARDS_BY_ORD.get(Long.numberOfTrailingZeros(bits)));
+    }
+
+    long tableauCards = cards & ~freeCards;
+    int[] permdexes = permdexesBySize[tableau];
+    for (int i = tableau - 1; i >= 0; i--) {
+      int base = tableau - i;
+      permdexes[i] = (int) (permRank % base);
+      permRank /= base;
+    }
+    tableauOrder.clear();
+    lehmerCoder.altPermute(
+        tableauOrder, permdexes, i -> Card.CARDS_BY_ORD.get(BoardCoder.nthSetBit(tableauCards, i)));
+    List<List<Card>> columns = new ArrayList<>(TABLEAU_COLS);
+    int start = 0;
+    for (int columnSize : columnSizes) {
+      columns.add(tableauOrder.subList(start, start += columnSize));
+    }
+    return ForkFreeCell.dealColumns(homeCells, freeCells, columns);
+  }
+
+  private long rankSplit(int tableau) {
+    long rank = 0;
+    int remaining = tableau;
+    for (int col = 0; col < TABLEAU_COLS - 1; col++) {
+      int divisions = TABLEAU_COLS - 2 - col;
+      for (int keep = 0; keep < columnSizes[col]; keep++) {
+        rank += COLUMN_DIV_COUNTS[remaining - keep][divisions];
+      }
+      remaining -= columnSizes[col];
+    }
+    return rank;
+  }
+
+  private void unrankSplit(long rank, int tableau) {
+    int remaining = tableau;
+    for (int col = 0; col < TABLEAU_COLS - 1; col++) {
+      int divisions = TABLEAU_COLS - 2 - col;
+      int keep = 0;
+      long count;
+      while (rank >= (count = COLUMN_DIV_COUNTS[remaining - keep][divisions])) {
+        rank -= count;
+        keep++;
+      }
+      columnSizes[col] = keep;
+      remaining -= keep;
+    }
+    columnSizes[TABLEAU_COLS - 1] = remaining;
+  }
+}
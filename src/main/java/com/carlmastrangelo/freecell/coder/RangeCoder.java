@@ -0,0 +1,283 @@
+package com.carlmastrangelo.freecell.coder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A range coder in the style of LZMA's, working with integer symbol frequencies rather than probabilities.  The range
+ * is kept in 32 bits and renormalized a byte at a time, and carries out of the low end are held back in a cached byte
+ * until they can no longer change it, so every symbol costs a few integer operations no matter how long the input is.
+ *
+ * <p>The encoder writes whole bytes to a {@link ByteBuffer}, and the decoder reads back exactly the bytes written.
+ * Both sides must use the same frequencies, symbol for symbol.
+ */
+public final class RangeCoder {
+
+  /**
+   * The largest total frequency of a table.  The range never drops below 2^24, so this leaves at least 8 bits of it
+   * for each unit of frequency.
+   */
+  public static final int MAX_TOTAL = 1 << 16;
+
+  private static final long TOP = 1L << 24;
+  private static final long MASK_32 = 0xFFFF_FFFFL;
+
+  /**
+   * The frequencies of the symbols {@code 0} to {@code size() - 1}.  Symbols with a frequency of zero can't be encoded.
+   * Immutable.
+   */
+  public static final class FrequencyTable {
+    /**
+     * The sum of the frequencies of the symbols before each symbol, followed by the total.
+     */
+    private final int[] cumFreqs;
+    /**
+     * The symbol covering each value from 0 to the total, so decoding is a single lookup.
+     */
+    private final int[] symbolsByValue;
+
+    private FrequencyTable(int[] cumFreqs) {
+      this.cumFreqs = cumFreqs;
+      this.symbolsByValue = new int[total()];
+      for (int symbol = 0; symbol < size(); symbol++) {
+        Arrays.fill(symbolsByValue, cumFreqs[symbol], cumFreqs[symbol + 1], symbol);
+      }
+    }
+
+    /**
+     * Builds a table from the exact frequencies, which must add up to no more than {@link #MAX_TOTAL}.
+     */
+    public static FrequencyTable of(int... freqs) {
+      if (freqs.length == 0) {
+        throw new IllegalArgumentException("no frequencies");
+      }
+      int[] cumFreqs = new int[freqs.length + 1];
+      for (int i = 0; i < freqs.length; i++) {
+        if (freqs[i] < 0) {
+          throw new IllegalArgumentException("bad frequency " + freqs[i]);
+        }
+        if (freqs[i] > MAX_TOTAL - cumFreqs[i]) {
+          throw new IllegalArgumentException("total frequency over " + MAX_TOTAL);
+        }
+        cumFreqs[i + 1] = cumFreqs[i] + freqs[i];
+      }
+      if (cumFreqs[freqs.length] == 0) {
+        throw new IllegalArgumentException("all frequencies zero");
+      }
+      return new FrequencyTable(cumFreqs);
+    }
+
+    /**
+     * Builds a table from counts of any size, scaled down to fit in {@link #MAX_TOTAL}.  Every symbol with a nonzero
+     * count keeps a frequency of at least one.
+     */
+    public static FrequencyTable scaled(long... counts) {
+      long sum = 0;
+      int nonzero = 0;
+      for (long count : counts) {
+        if (count < 0) {
+          throw new IllegalArgumentException("bad count " + count);
+        }
+        sum = Math.addExact(sum, count);
+        if (count != 0) {
+          nonzero++;
+        }
+      }
+      if (nonzero > MAX_TOTAL) {
+        throw new IllegalArgumentException("too many symbols " + nonzero);
+      }
+      if (sum <= MAX_TOTAL) {
+        int[] freqs = new int[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+          freqs[i] = (int) counts[i];
+        }
+        return of(freqs);
+      }
+      // Give each symbol one for free, and split the rest in proportion, rounding down.
+      double scale = (double) (MAX_TOTAL - nonzero) / sum;
+      int[] freqs = new int[counts.length];
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          freqs[i] = 1 + (int) (counts[i] * scale);
+        }
+      }
+      return of(freqs);
+    }
+
+    public int size() {
+      return cumFreqs.length - 1;
+    }
+
+    public int total() {
+      return cumFreqs[cumFreqs.length - 1];
+    }
+
+    public int freq(int symbol) {
+      return cumFreqs[symbol + 1] - cumFreqs[symbol];
+    }
+
+    /**
+     * Returns the sum of the frequencies of the symbols before this one.
+     */
+    public int cumFreq(int symbol) {
+      return cumFreqs[symbol];
+    }
+
+    /**
+     * Returns the symbol whose frequencies cover the value, which must be less than the total.
+     */
+    int symbolAt(int value) {
+      return symbolsByValue[value];
+    }
+  }
+
+  /**
+   * Encodes symbols into a buffer.  Call {@link #finish} after the last symbol, or the output is incomplete.  If the
+   * buffer fills, {@link java.nio.BufferOverflowException} is thrown and the encoder can't be used further.
+   */
+  public static final class Encoder {
+    private final ByteBuffer out;
+    /**
+     * The bottom of the range.  Only the low 32 bits are pending output, and bit 32 is a carry into the cached byte.
+     */
+    private long low;
+    private long range = MASK_32;
+    /**
+     * The last byte shifted out, not yet written because a carry may still reach it.
+     */
+    private int cache;
+    /**
+     * The number of bytes held back: the cached byte plus a run of 0xFF bytes after it, which a carry would all roll
+     * over.
+     */
+    private long cacheSize = 1;
+
+    public Encoder(ByteBuffer out) {
+      this.out = Objects.requireNonNull(out);
+    }
+
+    public void encode(FrequencyTable table, int symbol) {
+      int freq = table.freq(symbol);
+      if (freq == 0) {
+        throw new IllegalArgumentException("bad symbol " + symbol + " has no frequency");
+      }
+      encode(table.cumFreq(symbol), freq, table.total());
+    }
+
+    /**
+     * Encodes a symbol by its frequency, the sum of the frequencies before it, and the total frequency.
+     */
+    public void encode(int cumFreq, int freq, int total) {
+      checkFreqs(cumFreq, freq, total);
+      long r = range / total;
+      low += r * cumFreq;
+      range = r * freq;
+      while (range < TOP) {
+        range <<= 8;
+        shiftLow();
+      }
+    }
+
+    /**
+     * Writes the rest of the pending bytes.  No more symbols may be encoded afterwards.
+     */
+    public void finish() {
+      for (int i = 0; i < 5; i++) {
+        shiftLow();
+      }
+    }
+
+    private void shiftLow() {
+      int carry = (int) (low >>> 32);
+      if (carry != 0 || low < 0xFF00_0000L) {
+        // The top byte of low can no longer become 0xFF and take a carry, so everything held back is settled.
+        int pending = cache;
+        do {
+          out.put((byte) (pending + carry));
+          pending = 0xFF;
+        } while (--cacheSize != 0);
+        cache = (int) (low >>> 24) & 0xFF;
+      }
+      cacheSize++;
+      low = (low & 0x00FF_FFFFL) << 8;
+    }
+  }
+
+  /**
+   * Decodes symbols from a buffer written by an {@link Encoder}.  Each symbol is decoded either from a table with
+   * {@link #decode(FrequencyTable)}, or by its frequencies with {@link #decodeFreq} followed by {@link #consume}.
+   * Reading past the end of the buffer throws {@link java.nio.BufferUnderflowException}.
+   */
+  public static final class Decoder {
+    private final ByteBuffer in;
+    private long range = MASK_32;
+    /**
+     * The offset of the encoded value from the bottom of the range, always less than the range.
+     */
+    private long code;
+    /**
+     * The range divided by the total of the symbol being decoded.
+     */
+    private long scale;
+
+    public Decoder(ByteBuffer in) {
+      this.in = Objects.requireNonNull(in);
+      // The encoder always starts with a zero byte, from its empty cache.
+      for (int i = 0; i < 5; i++) {
+        code = ((code << 8) | (in.get() & 0xFF)) & MASK_32;
+      }
+    }
+
+    public int decode(FrequencyTable table) {
+      int symbol = table.symbolAt(decodeFreq(table.total()));
+      consume(table.cumFreq(symbol), table.freq(symbol));
+      return symbol;
+    }
+
+    /**
+     * Returns the value that the next symbol's frequencies cover, from 0 up to the total.
+     *
+     * @throws IllegalStateException if the input was not written with the same frequencies
+     */
+    public int decodeFreq(int total) {
+      if (total <= 0 || total > MAX_TOTAL) {
+        throw new IllegalArgumentException("bad total " + total);
+      }
+      scale = range / total;
+      long value = code / scale;
+      if (value >= total) {
+        throw new IllegalStateException("corrupt input");
+      }
+      return (int) value;
+    }
+
+    /**
+     * Removes the symbol covering the value last returned by {@link #decodeFreq}.
+     */
+    public void consume(int cumFreq, int freq) {
+      assert scale != 0 : "decodeFreq not called";
+      code -= scale * cumFreq;
+      range = scale * freq;
+      scale = 0;
+      if (code < 0 || code >= range) {
+        throw new IllegalStateException("corrupt input");
+      }
+      while (range < TOP) {
+        range <<= 8;
+        code = ((code << 8) | (in.get() & 0xFF)) & MASK_32;
+      }
+    }
+  }
+
+  private static void checkFreqs(int cumFreq, int freq, int total) {
+    if (total <= 0 || total > MAX_TOTAL) {
+      throw new IllegalArgumentException("bad total " + total);
+    }
+    if (freq <= 0 || cumFreq < 0 || cumFreq > total - freq) {
+      throw new IllegalArgumentException("bad frequencies " + cumFreq + ", " + freq + " of " + total);
+    }
+  }
+
+  private RangeCoder() {}
+}
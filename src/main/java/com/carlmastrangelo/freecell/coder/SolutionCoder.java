@@ -0,0 +1,293 @@
+package com.carlmastrangelo.freecell.coder;
+
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Compresses sequences of moves, one solution after another, with a {@link RangeCoder}.  Each move is picked out of
+ * the {@link FreeCell#findMoves legal moves} of the game it is played on, in two steps: first its kind, with an
+ * adaptive model for each set of kinds that are legal, and then which of the legal moves of that kind it is, with an
+ * adaptive model for each kind and number of legal moves of that kind.  No move costs much more than log2 of the
+ * branching factor in bits, and solvers' moves cost about half that once the models learn which kinds are played
+ * most.  Each solution starts with its first game as a {@link BoardCoder} key, which takes 32 bytes.
+ *
+ * <p>The models adapt across all the solutions in a stream, so solutions can only be read back in the order they were
+ * written.
+ */
+public final class SolutionCoder {
+
+  /**
+   * How much a symbol's frequency grows each time it is coded.  Symbols start with a frequency of one, so a few
+   * codings are enough to favor a symbol, without letting the first one seen dominate.
+   */
+  private static final int INCREMENT = 8;
+
+  /**
+   * The symbol of the kind models that ends a solution.
+   */
+  private static final int END = MoveCode.KIND_COUNT;
+
+  /**
+   * An adaptive frequency table, which halves all frequencies when their total gets too big, so recent symbols count
+   * for more.
+   */
+  static final class Model {
+    private final int[] freqs;
+    private int total;
+
+    Model(int symbols) {
+      freqs = new int[symbols];
+      Arrays.fill(freqs, 1);
+      total = symbols;
+    }
+
+    void encode(RangeCoder.Encoder encoder, int symbol) {
+      int cumFreq = 0;
+      for (int i = 0; i < symbol; i++) {
+        cumFreq += freqs[i];
+      }
+      encoder.encode(cumFreq, freqs[symbol], total);
+      update(symbol);
+    }
+
+    int decode(RangeCoder.Decoder decoder) {
+      int value = decoder.decodeFreq(total);
+      int symbol = 0;
+      int cumFreq = 0;
+      while (cumFreq + freqs[symbol] <= value) {
+        cumFreq += freqs[symbol++];
+      }
+      decoder.consume(cumFreq, freqs[symbol]);
+      update(symbol);
+      return symbol;
+    }
+
+    private void update(int symbol) {
+      freqs[symbol] += INCREMENT;
+      total += INCREMENT;
+      if (total > RangeCoder.MAX_TOTAL) {
+        total = 0;
+        for (int i = 0; i < freqs.length; i++) {
+          freqs[i] = (freqs[i] + 1) >>> 1;
+          total += freqs[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * The models and legal moves shared by the writer and the reader, which must change the same way on both sides.
+   *
+   * <p>Not thread safe.
+   */
+  private static final class Models {
+    /**
+     * Whether another solution follows: 0 for no, 1 for yes.
+     */
+    final Model more = new Model(2);
+    /**
+     * The models for the kind of the next move, indexed by the bitmask of legal kinds.  Symbol {@link #END} ends the
+     * solution.
+     */
+    final Model[] kinds = new Model[1 << MoveCode.KIND_COUNT];
+    /**
+     * The models for which move of a kind is played, indexed by kind and then by the number of legal moves of the kind.
+     */
+    final Model[][] movesByKind = new Model[MoveCode.KIND_COUNT][0];
+
+    final IntMoveBuffer legalMoves = new IntMoveBuffer();
+    final int[] kindCounts = new int[MoveCode.KIND_COUNT];
+    int kindMask;
+
+    /**
+     * Finds the legal moves of the game, and counts them by kind.
+     */
+    void findMoves(FreeCell game) {
+      legalMoves.clear();
+      game.findMoves(legalMoves);
+      Arrays.fill(kindCounts, 0);
+      kindMask = 0;
+      for (int i = 0; i < legalMoves.size(); i++) {
+        int kind = MoveCode.kind(legalMoves.get(i));
+        kindCounts[kind]++;
+        kindMask |= 1 << kind;
+      }
+    }
+
+    Model forKinds() {
+      Model model = kinds[kindMask];
+      if (model == null) {
+        model = kinds[kindMask] = new Model(END + 1);
+      }
+      return model;
+    }
+
+    Model forMoves(int kind) {
+      int count = kindCounts[kind];
+      if (count >= movesByKind[kind].length) {
+        movesByKind[kind] = Arrays.copyOf(movesByKind[kind], Math.max(movesByKind[kind].length * 2, count + 1));
+      }
+      Model model = movesByKind[kind][count];
+      if (model == null) {
+        model = movesByKind[kind][count] = new Model(count);
+      }
+      return model;
+    }
+  }
+
+  /**
+   * Writes solutions into a buffer.  Call {@link #finish} after the last one, or the output can't be read.
+   *
+   * <p>Not thread safe.
+   */
+  public static final class Writer {
+    private final RangeCoder.Encoder encoder;
+    private final Models models = new Models();
+    private final BoardCoder boardCoder = new BoardCoder();
+
+    public Writer(ByteBuffer out) {
+      this.encoder = new RangeCoder.Encoder(out);
+    }
+
+    /**
+     * Writes the moves, played in order starting from the game.
+     *
+     * @throws IllegalArgumentException if a move is not legal, in which case the writer can't be used further
+     */
+    public void write(ForkFreeCell start, IntMoveBuffer moves) {
+      models.more.encode(encoder, 1);
+      for (byte b : BoardCoder.keyBytes(boardCoder.encode(start))) {
+        encoder.encode(b & 0xFF, 1, 256);
+      }
+      FreeCell game = start;
+      for (int i = 0; i < moves.size(); i++) {
+        int move = moves.get(i);
+        models.findMoves(game);
+        int kind = MoveCode.kind(move);
+        int index = indexOf(models.legalMoves, move);
+        if (index == -1) {
+          throw new IllegalArgumentException("bad move " + i + " " + MoveCode.toString(move) + " is not legal");
+        }
+        models.forKinds().encode(encoder, kind);
+        models.forMoves(kind).encode(encoder, index);
+        game = game.playEncoded(move);
+      }
+      models.findMoves(game);
+      models.forKinds().encode(encoder, END);
+    }
+
+    /**
+     * Marks the end of the solutions and writes the rest of the pending bytes.
+     */
+    public void finish() {
+      models.more.encode(encoder, 0);
+      encoder.finish();
+    }
+
+    /**
+     * Returns how many legal moves of the same kind come before the move, or -1 if it isn't legal.
+     */
+    private static int indexOf(IntMoveBuffer moves, int move) {
+      int index = 0;
+      for (int i = 0; i < moves.size(); i++) {
+        int legalMove = moves.get(i);
+        if (legalMove == move) {
+          return index;
+        }
+        if (MoveCode.kind(legalMove) == MoveCode.kind(move)) {
+          index++;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Reads solutions back from a buffer written by a {@link Writer}, replaying each move as it is read.  Call
+   * {@link #nextSolution} to start each solution, then {@link #nextMove} until it returns {@link MoveCode#NONE}.
+   *
+   * <p>Not thread safe.
+   */
+  public static final class Reader {
+    private final RangeCoder.Decoder decoder;
+    private final Models models = new Models();
+    private final BoardCoder boardCoder = new BoardCoder();
+    private final byte[] keyBytes = new byte[BoardCoder.KEY_BYTES];
+    @Nullable
+    private FreeCell game;
+    private boolean solutionEnded = true;
+
+    public Reader(ByteBuffer in) {
+      this.decoder = new RangeCoder.Decoder(Objects.requireNonNull(in));
+    }
+
+    /**
+     * Starts reading the next solution, skipping the rest of the current one.  Returns its first game, or
+     * {@code null} if there are no more solutions.
+     */
+    @Nullable
+    public FreeCell nextSolution() {
+      while (!solutionEnded) {
+        nextMove();
+      }
+      if (models.more.decode(decoder) == 0) {
+        game = null;
+        return null;
+      }
+      for (int i = 0; i < keyBytes.length; i++) {
+        keyBytes[i] = (byte) decoder.decodeFreq(256);
+        decoder.consume(keyBytes[i] & 0xFF, 1);
+      }
+      BigInteger key = BoardCoder.fromKeyBytes(keyBytes);
+      game = boardCoder.decode(key);
+      solutionEnded = false;
+      return game;
+    }
+
+    /**
+     * Plays the next move of the current solution, and returns it.  Returns {@link MoveCode#NONE} once the solution has
+     * no more moves.
+     */
+    public int nextMove() {
+      if (solutionEnded) {
+        return MoveCode.NONE;
+      }
+      models.findMoves(game);
+      int kind = models.forKinds().decode(decoder);
+      if (kind == END) {
+        solutionEnded = true;
+        return MoveCode.NONE;
+      }
+      if (models.kindCounts[kind] == 0) {
+        throw new IllegalStateException("corrupt input");
+      }
+      int index = models.forMoves(kind).decode(decoder);
+      int move = MoveCode.NONE;
+      for (int i = 0; index >= 0; i++) {
+        move = models.legalMoves.get(i);
+        if (MoveCode.kind(move) == kind) {
+          index--;
+        }
+      }
+      game = game.playEncoded(move);
+      return move;
+    }
+
+    /**
+     * Returns the game reached by the moves read so far, or {@code null} if there are no more solutions.
+     */
+    @Nullable
+    public FreeCell game() {
+      return game;
+    }
+  }
+
+  private SolutionCoder() {}
+}
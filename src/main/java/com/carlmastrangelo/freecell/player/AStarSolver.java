@@ -0,0 +1,104 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Solves games with A*, expanding games in order of moves made plus {@code weight} times the {@link BlockerHeuristic}
+ * estimate of moves left.  With a weight of 1 the first solution found is as short as possible.  Larger weights expand
+ * fewer games, and find solutions at most {@code weight} times longer than the shortest, rounded up.
+ *
+ * <p>Unlike {@link GamePlay}, every legal move is considered, except that when a card can safely be moved home, that is
+ * the only move (see {@link GamePlay#findAllMoves}).
+ *
+ * <p>The open list holds no objects.  Open games are packed into a {@link FrontierArena}, and queued in a
+ * {@link LongHeap} as a single {@code long} holding f, then the moves made, then the game's slot in the arena.  Ties on
+ * f are broken towards the deeper game, which is closer to a solution.
+ */
+final class AStarSolver {
+
+  private static final int SLOT_BITS = 32;
+  private static final int G_BITS = 16;
+  private static final int MAX_F = (1 << (63 - SLOT_BITS - G_BITS)) - 1;
+
+  private final double weight;
+  private final long maxExpansions;
+  private final TranspositionTable visitedGames;
+  private final BlockerHeuristic heuristic = new BlockerHeuristic();
+  private final IntMoveBuffer movesCache = new IntMoveBuffer();
+
+  AStarSolver(double weight, long maxExpansions, TranspositionTable visitedGames) {
+    if (!(weight >= 1) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("bad weight " + weight);
+    }
+    if (maxExpansions <= 0) {
+      throw new IllegalArgumentException("bad max expansions " + maxExpansions);
+    }
+    this.weight = weight;
+    this.maxExpansions = maxExpansions;
+    this.visitedGames = Objects.requireNonNull(visitedGames);
+  }
+
+  /**
+   * @param moves the solution, if the status is {@link GamePlay.Status#SUCCESS}
+   * @param expansions the number of games whose moves were generated
+   */
+  record Result(GamePlay.Status status, @Nullable GamePlayer.MoveList moves, long expansions) {}
+
+  Result solve(FreeCell start) {
+    var open = new LongHeap();
+    var openGames = new FrontierArena();
+    var moveTree = new MoveTree();
+    visitedGames.visit(start.zobrist(), 0);
+    open.add(key(f(0, start), 0, openGames.add(start, moveTree.addRoot())));
+    long expansions = 0;
+    while (!open.isEmpty()) {
+      int slot = (int) open.poll();
+      FreeCell game = openGames.game(slot);
+      int moveNode = openGames.moveNode(slot);
+      openGames.free(slot);
+      // Test on expansion rather than generation, so that no shorter solution is still waiting in the queue.
+      if (game.gameWon()) {
+        var moves = moveTree.moves(moveNode, new GamePlayer.MoveList(null, 0, MoveCode.NONE));
+        return new Result(GamePlay.Status.SUCCESS, moves, expansions);
+      }
+      if (expansions++ == maxExpansions) {
+        return new Result(GamePlay.Status.MAX_PLAYS, null, expansions);
+      }
+      if ((expansions & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+        return new Result(GamePlay.Status.INTERRUPTED, null, expansions);
+      }
+      movesCache.clear();
+      GamePlay.findAllMoves(movesCache, game);
+      int g = moveTree.depth(moveNode) + 1;
+      for (int i = 0; i < movesCache.size(); i++) {
+        int move = movesCache.get(i);
+        FreeCell child = game.playEncoded(move);
+        if (!visitedGames.visit(child.zobrist(), g)) {
+          continue;
+        }
+        open.add(key(f(g, child), g, openGames.add(child, moveTree.add(moveNode, move))));
+      }
+    }
+    return new Result(GamePlay.Status.UNWINNABLE, null, expansions);
+  }
+
+  /**
+   * Packs an open game's queue entry.  Smaller f sorts first, then larger g, and the slot is the low 32 bits.
+   */
+  static long key(int f, int g, int slot) {
+    if (f > MAX_F) {
+      throw new IllegalStateException("too many moves " + f);
+    }
+    assert f >= 0 && g >= 0 && g <= MoveTree.MAX_DEPTH && slot >= 0;
+    return (long) f << (G_BITS + SLOT_BITS) | (long) (MoveTree.MAX_DEPTH - g) << SLOT_BITS | slot;
+  }
+
+  private int f(int g, FreeCell game) {
+    int h = heuristic.estimate(game);
+    return g + (weight == 1 ? h : (int) Math.ceil(weight * h));
+  }
+}
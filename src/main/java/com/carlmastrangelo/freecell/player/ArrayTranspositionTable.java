@@ -0,0 +1,92 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A single threaded {@link TranspositionTable} backed by a {@code long[]}, in buckets of {@link #BUCKET_SIZE} entries.
+ */
+final class ArrayTranspositionTable implements TranspositionTable {
+
+  private final long[] entries;
+  private final int bucketMask;
+  private final Replacement replacement;
+
+  private long probes;
+  private long hits;
+  private long stores;
+  private long evictions;
+  private long rejections;
+
+  /**
+   * Creates a table using at most {@code maxBytes} of memory, rounded down to a power of two number of entries.
+   */
+  ArrayTranspositionTable(long maxBytes, Replacement replacement) {
+    int capacity = TranspositionTable.capacity(maxBytes);
+    this.entries = new long[capacity];
+    this.bucketMask = capacity / BUCKET_SIZE - 1;
+    this.replacement = Objects.requireNonNull(replacement);
+  }
+
+  @Override
+  public boolean visit(long hash, int depth) {
+    probes++;
+    long newEntry = TranspositionTable.entry(hash, depth);
+    long tag = newEntry & TAG_MASK;
+    long newDepth = newEntry & DEPTH_MASK;
+    int base = ((int) hash & bucketMask) * BUCKET_SIZE;
+    int deepest = base;
+    long deepestDepth = 0;
+    for (int i = base; i < base + BUCKET_SIZE; i++) {
+      long entry = entries[i];
+      if (entry == 0) {
+        // Entries are never removed individually, so nothing in the bucket after this can match.
+        entries[i] = newEntry;
+        stores++;
+        return true;
+      }
+      long entryDepth = entry & DEPTH_MASK;
+      if ((entry & TAG_MASK) == tag) {
+        if (entryDepth <= newDepth) {
+          hits++;
+          return false;
+        }
+        entries[i] = newEntry;
+        stores++;
+        return true;
+      }
+      if (entryDepth > deepestDepth) {
+        deepest = i;
+        deepestDepth = entryDepth;
+      }
+    }
+    int victim = switch (replacement) {
+      case DEPTH_PREFERRED -> deepestDepth >= newDepth ? deepest : -1;
+      case ALWAYS_REPLACE -> base + ((int) (hash >>> 32) & (BUCKET_SIZE - 1));
+    };
+    if (victim == -1) {
+      rejections++;
+    } else {
+      entries[victim] = newEntry;
+      stores++;
+      evictions++;
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(entries, 0);
+  }
+
+  @Override
+  public Stats stats() {
+    return new Stats(probes, hits, stores, evictions, rejections, 0);
+  }
+
+  @VisibleForTesting
+  int capacity() {
+    return entries.length;
+  }
+}
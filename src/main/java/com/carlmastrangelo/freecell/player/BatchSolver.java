@@ -0,0 +1,293 @@
+package com.carlmastrangelo.freecell.player;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.MicrosoftDeals;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import javax.annotation.Nullable;
+
+/**
+ * Solves many deals with {@link AStarSolver}, each on its own with a limit on expansions and time.  A fixed number of
+ * worker threads take deals one at a time from a shared iterator, so deals are read as they are needed rather than all
+ * up front, and each worker reuses one transposition table.  Results are passed to a sink as deals finish, in no
+ * particular order.
+ *
+ * <p>A deal that runs out of time is reported as {@link GamePlay.Status#INTERRUPTED}.
+ */
+final class BatchSolver {
+
+  private final int parallelism;
+  private final double weight;
+  private final long maxExpansions;
+  private final long timeoutNanos;
+  private final long tableBytes;
+
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder solved = new LongAdder();
+
+  /**
+   * @param timeout the most time to spend on each deal
+   * @param tableBytes the memory for each worker's transposition table
+   */
+  BatchSolver(int parallelism, double weight, long maxExpansions, Duration timeout, long tableBytes) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("bad parallelism " + parallelism);
+    }
+    if (!(weight >= 1) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("bad weight " + weight);
+    }
+    if (maxExpansions <= 0) {
+      throw new IllegalArgumentException("bad max expansions " + maxExpansions);
+    }
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("bad timeout " + timeout);
+    }
+    this.parallelism = parallelism;
+    this.weight = weight;
+    this.maxExpansions = maxExpansions;
+    this.timeoutNanos = timeout.toNanos();
+    this.tableBytes = tableBytes;
+  }
+
+  record Deal(String name, FreeCell game) {}
+
+  /**
+   * @param moves the length of the solution, or -1 if none was found
+   * @param expansions the number of games whose moves were generated
+   * @param nanos the time spent on the deal
+   */
+  record DealResult(String name, GamePlay.Status status, int moves, long expansions, long nanos) {
+
+    /**
+     * Returns the result as a tab separated line, with the time in milliseconds.
+     */
+    String toLine() {
+      return name + "\t" + status + "\t" + moves + "\t" + expansions + "\t" + NANOSECONDS.toMillis(nanos);
+    }
+  }
+
+  /**
+   * The deals numbered {@code first} to {@code last} inclusive, each dealt from a {@link SplittableRandom} seeded with
+   * its number.
+   */
+  static Iterator<Deal> seeds(long first, long last) {
+    return range(first, last, seed -> ForkFreeCell.dealDeck(new SplittableRandom(seed)));
+  }
+
+  /**
+   * The {@link MicrosoftDeals Microsoft deals} numbered {@code first} to {@code last} inclusive.
+   */
+  static Iterator<Deal> microsoft(int first, int last) {
+    if (first <= 0) {
+      throw new IllegalArgumentException("bad first deal " + first);
+    }
+    return range(first, last, number -> MicrosoftDeals.deal((int) number));
+  }
+
+  private static Iterator<Deal> range(long first, long last, LongFunction<FreeCell> dealer) {
+    return new Iterator<>() {
+      private long next = first;
+
+      @Override
+      public boolean hasNext() {
+        return next <= last && next >= first;
+      }
+
+      @Override
+      public Deal next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long number = next++;
+        return new Deal(Long.toString(number), dealer.apply(number));
+      }
+    };
+  }
+
+  /**
+   * The deals in the reader, one per line, named by line number.  Blank lines and lines starting with {@code #} are
+   * skipped.  Read errors are thrown as {@link UncheckedIOException}.
+   *
+   * @see #parseDeal
+   */
+  static Iterator<Deal> lines(BufferedReader reader) {
+    return new Iterator<>() {
+      private int lineNumber;
+      @Nullable
+      private Deal next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null) {
+          String line;
+          try {
+            line = reader.readLine();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          if (line == null) {
+            return false;
+          }
+          lineNumber++;
+          line = line.strip();
+          if (!line.isEmpty() && !line.startsWith("#")) {
+            next = new Deal(Integer.toString(lineNumber), parseDeal(line));
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public Deal next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        Deal deal = next;
+        next = null;
+        return deal;
+      }
+    };
+  }
+
+  /**
+   * Parses the symbols of all 52 cards separated by spaces, in the order they are dealt: left to right along each row
+   * of the tableau, starting with the top row.
+   */
+  static FreeCell parseDeal(String line) {
+    String[] symbols = line.strip().split("\\s+");
+    if (symbols.length != Card.CARD_COUNT) {
+      throw new IllegalArgumentException("expected " + Card.CARD_COUNT + " cards in " + line);
+    }
+    List<Card> cards = new ArrayList<>(symbols.length);
+    for (String symbol : symbols) {
+      cards.add(Card.ofSymbol(symbol));
+    }
+    return ForkFreeCell.dealDeck(List.of(), List.of(), cards);
+  }
+
+  /**
+   * Returns the number of deals finished so far, over all batches.
+   */
+  long completed() {
+    return completed.sum();
+  }
+
+  /**
+   * Returns the number of deals solved so far, over all batches.
+   */
+  long solved() {
+    return solved.sum();
+  }
+
+  /**
+   * Solves every deal, passing each result to the sink when it is ready.  The sink is called by one worker at a time.
+   */
+  void solve(Iterator<Deal> deals, Consumer<? super DealResult> sink) throws InterruptedException {
+    Objects.requireNonNull(sink);
+    var stop = new AtomicBoolean();
+    ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Callable<Void>> workers = new ArrayList<>(parallelism);
+      for (int i = 0; i < parallelism; i++) {
+        workers.add(new Worker(deals, sink, timers, stop));
+      }
+      for (Future<Void> done : executor.invokeAll(workers)) {
+        done.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      stop.set(true);
+      executor.shutdownNow();
+      timers.shutdownNow();
+    }
+  }
+
+  private final class Worker implements Callable<Void> {
+    private final Iterator<Deal> deals;
+    private final Consumer<? super DealResult> sink;
+    private final ScheduledExecutorService timers;
+    private final AtomicBoolean stop;
+    private final TranspositionTable visitedGames =
+        new ArrayTranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED);
+
+    Worker(
+        Iterator<Deal> deals, Consumer<? super DealResult> sink, ScheduledExecutorService timers, AtomicBoolean stop) {
+      this.deals = deals;
+      this.sink = sink;
+      this.timers = timers;
+      this.stop = stop;
+    }
+
+    @Override
+    public Void call() {
+      Deal deal;
+      while (!stop.get() && (deal = nextDeal()) != null) {
+        DealResult result = solve(deal);
+        completed.increment();
+        if (result.status() == GamePlay.Status.SUCCESS) {
+          solved.increment();
+        }
+        synchronized (sink) {
+          sink.accept(result);
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    private Deal nextDeal() {
+      synchronized (deals) {
+        return deals.hasNext() ? deals.next() : null;
+      }
+    }
+
+    private DealResult solve(Deal deal) {
+      long start = System.nanoTime();
+      Thread worker = Thread.currentThread();
+      ScheduledFuture<?> timer = timers.schedule(worker::interrupt, timeoutNanos, NANOSECONDS);
+      AStarSolver.Result result;
+      try {
+        visitedGames.clear();
+        result = new AStarSolver(weight, maxExpansions, visitedGames).solve(deal.game());
+      } finally {
+        if (!timer.cancel(false)) {
+          // Wait for the timer to finish, so that its interrupt can't land on the next deal.
+          while (!timer.isDone()) {
+            Thread.onSpinWait();
+          }
+        }
+        Thread.interrupted();
+      }
+      int moves = result.moves() != null ? result.moves().totalMoves() : -1;
+      return new DealResult(deal.name(), result.status(), moves, result.expansions(), System.nanoTime() - start);
+    }
+  }
+}
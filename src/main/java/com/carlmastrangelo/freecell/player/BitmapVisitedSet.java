@@ -0,0 +1,90 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.coder.PositionRanker;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which games have been seen exactly, with one bit for every game that has the same cards at home.  Games
+ * are found by their {@link PositionRanker rank} instead of their hash, so there are no collisions or probes.  Each
+ * set of cards at home gets its own bitmap the first time a game with it is seen.  Games are visited in their
+ * {@link FreeCell#canonical() canonical} form, so those that differ only in the order of their columns are the same.
+ *
+ * <p>This is only practical near the end of a game: a bitmap for 7 cards left to play takes about 3.4 MiB, and each
+ * card more costs about fifteen times as much.
+ *
+ * <p>Not thread safe.
+ */
+final class BitmapVisitedSet {
+
+  private final long maxBitsPerBitmap;
+  private final Map<Long, Bitmap> bitmaps = new HashMap<>();
+  private long bitsAllocated;
+
+  /**
+   * @param maxBitsPerBitmap the most games a set of cards at home may have, to bound the memory of each bitmap
+   */
+  BitmapVisitedSet(long maxBitsPerBitmap) {
+    if (maxBitsPerBitmap <= 0 || maxBitsPerBitmap > (long) Integer.MAX_VALUE * Long.SIZE) {
+      throw new IllegalArgumentException("bad max bits " + maxBitsPerBitmap);
+    }
+    this.maxBitsPerBitmap = maxBitsPerBitmap;
+  }
+
+  private static final class Bitmap {
+    final PositionRanker ranker;
+    final long[] words;
+
+    Bitmap(PositionRanker ranker) {
+      this.ranker = ranker;
+      this.words = new long[Math.toIntExact((ranker.size() + Long.SIZE - 1) / Long.SIZE)];
+    }
+  }
+
+  /**
+   * Marks the game as seen.  Returns {@code false} if it already was.
+   *
+   * @throws IllegalArgumentException if the game has too many cards left to play
+   */
+  boolean visit(FreeCell game) {
+    Bitmap bitmap = bitmaps.get(PositionRanker.remainingCards(game));
+    if (bitmap == null) {
+      bitmap = newBitmap(game);
+    }
+    long rank = bitmap.ranker.rank(game.canonical());
+    int word = (int) (rank >>> 6);
+    long bit = 1L << rank;
+    if ((bitmap.words[word] & bit) != 0) {
+      return false;
+    }
+    bitmap.words[word] |= bit;
+    return true;
+  }
+
+  private Bitmap newBitmap(FreeCell game) {
+    var ranker = PositionRanker.forGame(game);
+    if (ranker.size() > maxBitsPerBitmap) {
+      throw new IllegalArgumentException("too many games " + ranker.size() + " for the remaining cards");
+    }
+    var bitmap = new Bitmap(ranker);
+    bitmaps.put(ranker.cards(), bitmap);
+    bitsAllocated += (long) bitmap.words.length * Long.SIZE;
+    return bitmap;
+  }
+
+  /**
+   * Returns the number of bits in all the bitmaps.
+   */
+  long bitsAllocated() {
+    return bitsAllocated;
+  }
+
+  /**
+   * Forgets all games and frees the bitmaps.
+   */
+  void clear() {
+    bitmaps.clear();
+    bitsAllocated = 0;
+  }
+}
@@ -0,0 +1,55 @@
+package com.carlmastrangelo.freecell.player;
+
+import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+import static com.carlmastrangelo.freecell.Suit.SUIT_COUNT;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.FreeCellView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estimates the moves left to win a game without overestimating.  Every card not home needs a move home.  A card
+ * sitting above a lower card of its own suit can't go home until it leaves the column some other way, and since a
+ * single move only takes cards from one column, each column holding such a card needs at least one more move.
+ *
+ * <p>The estimate is also consistent: a move home lowers it by exactly one, since the card moved can't be blocking a
+ * lower card, and any other move changes it by at most one.
+ *
+ * <p>Instances reuse buffers, and are not thread safe.
+ */
+final class BlockerHeuristic {
+
+  private final List<Card> column = new ArrayList<>(CARD_COUNT);
+  private final int[] lowestRank = new int[SUIT_COUNT];
+
+  int estimate(FreeCellView game) {
+    int estimate = game.minMovesToWin();
+    for (int col = 0; col < TABLEAU_COLS; col++) {
+      column.clear();
+      game.readTableau(column, col);
+      if (isBlocked(column)) {
+        estimate++;
+      }
+    }
+    return estimate;
+  }
+
+  /**
+   * Returns if any card in the column, read from the bottom, sits above a lower card of its own suit.
+   */
+  private boolean isBlocked(List<Card> column) {
+    Arrays.fill(lowestRank, Integer.MAX_VALUE);
+    for (Card card : column) {
+      int suit = card.suit().ordinal();
+      int rank = card.rank().ordinal();
+      if (lowestRank[suit] < rank) {
+        return true;
+      }
+      lowestRank[suit] = rank;
+    }
+    return false;
+  }
+}
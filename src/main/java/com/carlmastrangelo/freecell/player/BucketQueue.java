@@ -0,0 +1,141 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * A priority queue for elements with small, non-negative integer keys, which polls the element with the lowest key.
+ * Each key has its own bucket, so adding and polling take constant time rather than the logarithmic time of
+ * {@link java.util.PriorityQueue}, and don't compare elements.  Elements with equal keys are polled in the order given
+ * by the {@link TieBreak}.
+ *
+ * <p>The key of an element is computed once, when it is added.  Memory grows with the largest key seen, so keys should
+ * be costs such as move counts, not hashes.  The iterator visits elements in key order, and doesn't support removal.
+ */
+final class BucketQueue<E> extends AbstractQueue<E> {
+
+  enum TieBreak {
+    /**
+     * Poll the earliest added of the elements with the lowest key.
+     */
+    FIFO,
+    /**
+     * Poll the latest added of the elements with the lowest key.
+     */
+    LIFO,
+  }
+
+  private final ToIntFunction<? super E> keyFunction;
+  private final TieBreak tieBreak;
+  private final List<ArrayDeque<E>> buckets = new ArrayList<>();
+
+  /**
+   * No bucket below this one has any elements.
+   */
+  private int lowestKey;
+  private int size;
+
+  BucketQueue(ToIntFunction<? super E> keyFunction, TieBreak tieBreak) {
+    this.keyFunction = Objects.requireNonNull(keyFunction);
+    this.tieBreak = Objects.requireNonNull(tieBreak);
+  }
+
+  @Override
+  public boolean offer(E e) {
+    Objects.requireNonNull(e);
+    int key = keyFunction.applyAsInt(e);
+    if (key < 0) {
+      throw new IllegalArgumentException("bad key " + key + " for " + e);
+    }
+    while (buckets.size() <= key) {
+      buckets.add(new ArrayDeque<>());
+    }
+    buckets.get(key).addLast(e);
+    lowestKey = Math.min(lowestKey, key);
+    size++;
+    return true;
+  }
+
+  @Override
+  public E poll() {
+    if (size == 0) {
+      return null;
+    }
+    ArrayDeque<E> bucket = lowestBucket();
+    size--;
+    return switch (tieBreak) {
+      case FIFO -> bucket.pollFirst();
+      case LIFO -> bucket.pollLast();
+    };
+  }
+
+  @Override
+  public E peek() {
+    if (size == 0) {
+      return null;
+    }
+    ArrayDeque<E> bucket = lowestBucket();
+    return switch (tieBreak) {
+      case FIFO -> bucket.peekFirst();
+      case LIFO -> bucket.peekLast();
+    };
+  }
+
+  private ArrayDeque<E> lowestBucket() {
+    assert size != 0;
+    ArrayDeque<E> bucket;
+    while ((bucket = buckets.get(lowestKey)).isEmpty()) {
+      lowestKey++;
+    }
+    return bucket;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    for (ArrayDeque<E> bucket : buckets) {
+      bucket.clear();
+    }
+    lowestKey = 0;
+    size = 0;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<>() {
+      private int key = lowestKey;
+      private Iterator<E> bucket = Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!bucket.hasNext()) {
+          if (key >= buckets.size()) {
+            return false;
+          }
+          ArrayDeque<E> next = buckets.get(key++);
+          bucket = tieBreak == TieBreak.FIFO ? next.iterator() : next.descendingIterator();
+        }
+        return true;
+      }
+
+      @Override
+      public E next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return bucket.next();
+      }
+    };
+  }
+}
@@ -0,0 +1,122 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link TranspositionTable} that can be shared between threads without locking.  Entries have the shared layout
+ * described in {@link TranspositionTable}, and are updated with a compare-and-set on each slot.  Failed
+ * compare-and-sets are retried on the same slot, except when replacing a game in a full bucket, where losing the race
+ * just means the new game isn't stored.
+ */
+final class ConcurrentTranspositionTable implements TranspositionTable {
+
+  private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final long[] entries;
+  private final int bucketMask;
+  private final Replacement replacement;
+
+  private final LongAdder probes = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder stores = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder contention = new LongAdder();
+
+  /**
+   * Creates a table using at most {@code maxBytes} of memory, rounded down to a power of two number of entries.
+   */
+  ConcurrentTranspositionTable(long maxBytes, Replacement replacement) {
+    int capacity = TranspositionTable.capacity(maxBytes);
+    this.entries = new long[capacity];
+    this.bucketMask = capacity / BUCKET_SIZE - 1;
+    this.replacement = Objects.requireNonNull(replacement);
+  }
+
+  @Override
+  public boolean visit(long hash, int depth) {
+    return visit(hash, depth, true);
+  }
+
+  /**
+   * Records the game as reached at the given depth, like {@link #visit(long, int)}.  If {@code pruneSameDepth} is
+   * {@code false}, only returns {@code false} if the game has been reached at a strictly shallower depth.  This lets
+   * a worker re-explore games that another worker (or an earlier round) reached at the same depth, without letting it
+   * explore games that are known to be reachable in fewer moves.
+   */
+  boolean visit(long hash, int depth, boolean pruneSameDepth) {
+    probes.increment();
+    long newEntry = TranspositionTable.entry(hash, depth);
+    long tag = newEntry & TAG_MASK;
+    long newDepth = newEntry & DEPTH_MASK;
+    int base = ((int) hash & bucketMask) * BUCKET_SIZE;
+    int deepest = base;
+    long deepestEntry = 0;
+    for (int i = base; i < base + BUCKET_SIZE; i++) {
+      long entry = (long) ENTRIES.getAcquire(entries, i);
+      if (entry == 0) {
+        if (ENTRIES.compareAndSet(entries, i, 0L, newEntry)) {
+          stores.increment();
+          return true;
+        }
+        contention.increment();
+        // Another thread just filled this slot, possibly with this game.
+        i--;
+        continue;
+      }
+      long entryDepth = entry & DEPTH_MASK;
+      if ((entry & TAG_MASK) == tag) {
+        if (entryDepth < newDepth || (pruneSameDepth && entryDepth == newDepth)) {
+          hits.increment();
+          return false;
+        }
+        if (entryDepth == newDepth) {
+          return true;
+        }
+        if (ENTRIES.compareAndSet(entries, i, entry, newEntry)) {
+          stores.increment();
+          return true;
+        }
+        contention.increment();
+        i--;
+        continue;
+      }
+      if (entryDepth > (deepestEntry & DEPTH_MASK)) {
+        deepest = i;
+        deepestEntry = entry;
+      }
+    }
+    int victim = switch (replacement) {
+      case DEPTH_PREFERRED -> (deepestEntry & DEPTH_MASK) >= newDepth ? deepest : -1;
+      case ALWAYS_REPLACE -> base + ((int) (hash >>> 32) & (BUCKET_SIZE - 1));
+    };
+    if (victim == -1) {
+      rejections.increment();
+      return true;
+    }
+    long expected = victim == deepest ? deepestEntry : (long) ENTRIES.getAcquire(entries, victim);
+    if (ENTRIES.compareAndSet(entries, victim, expected, newEntry)) {
+      stores.increment();
+      evictions.increment();
+    } else {
+      contention.increment();
+      rejections.increment();
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < entries.length; i++) {
+      ENTRIES.setRelease(entries, i, 0L);
+    }
+  }
+
+  @Override
+  public Stats stats() {
+    return new Stats(probes.sum(), hits.sum(), stores.sum(), evictions.sum(), rejections.sum(), contention.sum());
+  }
+}
@@ -0,0 +1,274 @@
+package com.carlmastrangelo.freecell.player;
+
+import static com.carlmastrangelo.freecell.PackedFreeCell.PACKED_LONGS;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.PackedFreeCell;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+
+/**
+ * Decides whether a game can be won by searching every game reachable from it breadth first, keeping the games on disk
+ * rather than in memory.  Each layer of games, those first reached after the same number of moves, is a file of
+ * {@link PackedFreeCell#pack packed}, {@link FreeCell#canonical() canonical} games sorted by {@link LongRecords}.
+ *
+ * <p>The next layer is built by expanding the games of the current one into a fixed size buffer, which is sorted and
+ * spilled to a run file each time it fills up.  Duplicates are only removed afterwards: the runs are merged, dropping
+ * repeats and any game already in an earlier layer.  Moves other than moving cards home can be undone, so a game may
+ * come back many layers later, and each merge reads every earlier layer.  Heap use is fixed by the buffer size no
+ * matter how many games are searched; the disk needs room for all of them.
+ *
+ * <p>Successors come from {@link GamePlay#findAllMoves}, so a game with a card that can safely be moved home is only
+ * expanded by that move.
+ */
+final class ExternalBfsSolver {
+
+  private final Path directory;
+  private final int bufferGames;
+  private final long maxGames;
+
+  /**
+   * @param directory where to keep the layer and run files, which are deleted when solving ends
+   * @param bufferGames how many games to expand before sorting and spilling them, taking 56 bytes each
+   * @param maxGames the most games to keep in layers before giving up
+   */
+  ExternalBfsSolver(Path directory, int bufferGames, long maxGames) {
+    if (bufferGames <= 0 || (long) bufferGames * PACKED_LONGS > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("bad buffer games " + bufferGames);
+    }
+    if (maxGames <= 0) {
+      throw new IllegalArgumentException("bad max games " + maxGames);
+    }
+    this.directory = Objects.requireNonNull(directory);
+    this.bufferGames = bufferGames;
+    this.maxGames = maxGames;
+  }
+
+  /**
+   * @param moves the number of moves in the shortest win found, if the status is {@link GamePlay.Status#SUCCESS}
+   * @param games the number of distinct games stored in layers
+   * @param layers the number of layers written
+   */
+  record Result(GamePlay.Status status, int moves, long games, int layers) {}
+
+  Result solve(FreeCell start) throws IOException {
+    if (start.gameWon()) {
+      return new Result(GamePlay.Status.SUCCESS, 0, 0, 0);
+    }
+    Path workDir = Files.createTempDirectory(directory, "bfs");
+    try {
+      return new Search(workDir).run(PackedFreeCell.copyOf(start).canonical());
+    } finally {
+      deleteAll(workDir);
+    }
+  }
+
+  private final class Search {
+    private final Path workDir;
+    private final List<Path> layers = new ArrayList<>();
+    private final long[] buffer = new long[bufferGames * PACKED_LONGS];
+    private final IntMoveBuffer moves = new IntMoveBuffer();
+    private int buffered;
+    private final List<Path> runs = new ArrayList<>();
+    private long games;
+
+    Search(Path workDir) {
+      this.workDir = workDir;
+    }
+
+    Result run(PackedFreeCell start) throws IOException {
+      long[] record = new long[PACKED_LONGS];
+      start.pack(record, 0);
+      Path first = workDir.resolve("layer-0");
+      try (var writer = new RecordWriter(first, PACKED_LONGS)) {
+        writer.write(record, 0);
+      }
+      layers.add(first);
+      games = 1;
+      for (int depth = 0; ; depth++) {
+        GamePlay.Status status = expand(layers.get(depth));
+        if (status == GamePlay.Status.SUCCESS) {
+          return new Result(status, depth + 1, games, layers.size());
+        } else if (status == GamePlay.Status.INTERRUPTED) {
+          return new Result(status, -1, games, layers.size());
+        }
+        long added = mergeRuns(workDir.resolve("layer-" + (depth + 1)));
+        if (added == 0) {
+          return new Result(GamePlay.Status.UNWINNABLE, -1, games, layers.size());
+        }
+        games += added;
+        if (games >= maxGames) {
+          return new Result(GamePlay.Status.MAX_PLAYS, -1, games, layers.size());
+        }
+      }
+    }
+
+    /**
+     * Spills the canonical games one move away from each game in the layer to runs.
+     *
+     * @return {@link GamePlay.Status#SUCCESS} if a won game was found, {@link GamePlay.Status#INTERRUPTED} if the thread
+     *     was interrupted, or else {@code null}
+     */
+    @Nullable
+    private GamePlay.Status expand(Path layer) throws IOException {
+      long expanded = 0;
+      try (var reader = new RecordReader(layer, PACKED_LONGS)) {
+        while (reader.next()) {
+          if ((++expanded & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+            return GamePlay.Status.INTERRUPTED;
+          }
+          PackedFreeCell game = PackedFreeCell.unpack(reader.current(), 0);
+          moves.clear();
+          GamePlay.findAllMoves(moves, game);
+          for (int i = 0; i < moves.size(); i++) {
+            PackedFreeCell next = (PackedFreeCell) game.playEncoded(moves.get(i));
+            if (next.gameWon()) {
+              return GamePlay.Status.SUCCESS;
+            }
+            if (buffered == bufferGames) {
+              spill();
+            }
+            next.canonical().pack(buffer, buffered++ * PACKED_LONGS);
+          }
+        }
+      }
+      spill();
+      return null;
+    }
+
+    private void spill() throws IOException {
+      if (buffered == 0) {
+        return;
+      }
+      LongRecords.sort(buffer, buffered, PACKED_LONGS);
+      int distinct = LongRecords.removeDuplicates(buffer, buffered, PACKED_LONGS);
+      Path run = workDir.resolve("run-" + runs.size());
+      try (var writer = new RecordWriter(run, PACKED_LONGS)) {
+        for (int i = 0; i < distinct; i++) {
+          writer.write(buffer, i * PACKED_LONGS);
+        }
+      }
+      runs.add(run);
+      buffered = 0;
+    }
+
+    /**
+     * Merges the runs into a new layer, dropping repeated games and games in earlier layers, and deletes the runs.
+     *
+     * @return the number of games in the new layer, which is only kept if it isn't empty
+     */
+    private long mergeRuns(Path layer) throws IOException {
+      var pending = new PriorityQueue<RecordReader>(
+          Math.max(1, runs.size()),
+          Comparator.comparing(RecordReader::current, (a, b) -> LongRecords.compare(a, 0, b, 0, PACKED_LONGS)));
+      List<RecordReader> earlier = new ArrayList<>(layers.size());
+      long[] last = new long[PACKED_LONGS];
+      boolean any = false;
+      long written;
+      try (var writer = new RecordWriter(layer, PACKED_LONGS)) {
+        for (Path run : runs) {
+          var reader = new RecordReader(run, PACKED_LONGS);
+          if (reader.next()) {
+            pending.add(reader);
+          } else {
+            reader.close();
+          }
+        }
+        for (Path previous : layers) {
+          var reader = new RecordReader(previous, PACKED_LONGS);
+          if (reader.next()) {
+            earlier.add(reader);
+          } else {
+            reader.close();
+          }
+        }
+        RecordReader reader;
+        while ((reader = pending.poll()) != null) {
+          long[] game = reader.current();
+          if (!any || LongRecords.compare(game, 0, last, 0, PACKED_LONGS) != 0) {
+            System.arraycopy(game, 0, last, 0, PACKED_LONGS);
+            any = true;
+            if (!seenEarlier(earlier, last)) {
+              writer.write(last, 0);
+            }
+          }
+          if (reader.next()) {
+            pending.add(reader);
+          } else {
+            reader.close();
+          }
+        }
+        written = writer.records();
+      } finally {
+        for (RecordReader reader : pending) {
+          reader.close();
+        }
+        for (RecordReader reader : earlier) {
+          if (reader != null) {
+            reader.close();
+          }
+        }
+        for (Path run : runs) {
+          Files.deleteIfExists(run);
+        }
+        runs.clear();
+      }
+      if (written == 0) {
+        Files.delete(layer);
+      } else {
+        layers.add(layer);
+      }
+      return written;
+    }
+
+    /**
+     * Advances each earlier layer up to the game, and returns if any of them holds it.  Games must be checked in
+     * sorted order.  Exhausted layers are closed and replaced with {@code null}.
+     */
+    private boolean seenEarlier(List<RecordReader> earlier, long[] game) throws IOException {
+      boolean seen = false;
+      for (int i = 0; i < earlier.size(); i++) {
+        RecordReader reader = earlier.get(i);
+        if (reader == null) {
+          continue;
+        }
+        int cmp;
+        while ((cmp = LongRecords.compare(reader.current(), 0, game, 0, PACKED_LONGS)) < 0) {
+          if (!reader.next()) {
+            reader.close();
+            earlier.set(i, null);
+            break;
+          }
+        }
+        if (earlier.get(i) != null && cmp == 0) {
+          seen = true;
+        }
+      }
+      return seen;
+    }
+  }
+
+  private static void deleteAll(Path dir) throws IOException {
+    try (var files = Files.list(dir)) {
+      files.forEach(file -> {
+        try {
+          Files.delete(file);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    Files.delete(dir);
+  }
+}
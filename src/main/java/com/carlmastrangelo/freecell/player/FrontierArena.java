@@ -0,0 +1,94 @@
+package com.carlmastrangelo.freecell.player;
+
+import static com.carlmastrangelo.freecell.PackedFreeCell.PACKED_LONGS;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.PackedFreeCell;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The games waiting in a search's frontier, kept in primitive arrays instead of as objects.  Each slot holds a game
+ * {@link PackedFreeCell#pack packed} into {@link PackedFreeCell#PACKED_LONGS} {@code long}s, followed by the index of its
+ * node in the {@link MoveTree}, so a queued game costs 64 bytes and the queue itself need only hold the slot's index.
+ *
+ * <p>A slot is freed when its game is taken for expansion, and reused by the next game added, so the arena grows with
+ * the largest the frontier has been rather than with the number of games ever queued.  Slots are kept in fixed size
+ * pages so that growing the arena doesn't copy it.
+ *
+ * <p>Not thread safe.
+ */
+final class FrontierArena {
+
+  private static final int SLOT_LONGS = PACKED_LONGS + 1;
+
+  private static final int PAGE_BITS = 13;
+  private static final int PAGE_SLOTS = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SLOTS - 1;
+
+  private long[][] pages = new long[16][];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int slots;
+
+  /**
+   * Stores the game and the index of its move tree node.
+   *
+   * @return the slot holding them, until it is {@link #free freed}
+   */
+  int add(FreeCell game, int moveNode) {
+    int slot;
+    if (freeCount != 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      if (slots == Integer.MAX_VALUE) {
+        throw new IllegalStateException("too many games");
+      }
+      int page = slots >>> PAGE_BITS;
+      if (page == pages.length) {
+        pages = Arrays.copyOf(pages, pages.length * 2);
+      }
+      if (pages[page] == null) {
+        pages[page] = new long[PAGE_SLOTS * SLOT_LONGS];
+      }
+      slot = slots++;
+    }
+    long[] page = pages[slot >>> PAGE_BITS];
+    int offset = (slot & PAGE_MASK) * SLOT_LONGS;
+    PackedFreeCell.copyOf(game).pack(page, offset);
+    page[offset + PACKED_LONGS] = moveNode;
+    return slot;
+  }
+
+  /**
+   * Returns the game in the slot.  Each call unpacks a new copy.
+   */
+  PackedFreeCell game(int slot) {
+    Objects.checkIndex(slot, slots);
+    return PackedFreeCell.unpack(pages[slot >>> PAGE_BITS], (slot & PAGE_MASK) * SLOT_LONGS);
+  }
+
+  int moveNode(int slot) {
+    Objects.checkIndex(slot, slots);
+    return (int) pages[slot >>> PAGE_BITS][(slot & PAGE_MASK) * SLOT_LONGS + PACKED_LONGS];
+  }
+
+  /**
+   * Releases the slot for reuse by a later {@link #add}.  The slot must not be read or freed again.
+   */
+  void free(int slot) {
+    Objects.checkIndex(slot, slots);
+    assert freeCount < slots;
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  /**
+   * Returns the number of slots in use.
+   */
+  int size() {
+    return slots - freeCount;
+  }
+}
@@ -1,27 +1,16 @@
 package com.carlmastrangelo.freecell.player;
 
-import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
-import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
-import static com.carlmastrangelo.freecell.Rank.RANK_COUNT;
-import static com.carlmastrangelo.freecell.Suit.SUITS_BY_ORD;
-
 import com.carlmastrangelo.freecell.Card;
 import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.FreeCellView;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
 import com.carlmastrangelo.freecell.Rank;
 import com.carlmastrangelo.freecell.Suit;
-import java.lang.ref.Reference;
-import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
-import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToDoubleFunction;
 import java.util.random.RandomGenerator;
 import javax.annotation.Nullable;
@@ -30,27 +19,51 @@ import org.HdrHistogram.IntCountsHistogram;
 
 final class GamePlay {
 
-  private final long maxMoves;
-  private final ToDoubleBiFunction<? super FreeCell, ? super GamePlayer.MoveList> scorer;
-  private final Reference<Map<FreeCell, Integer>> visitedGames = new SoftReference<>(new HashMap<>());
-  private final Queue<GamePlayer.GameProgress> nextGames;
+  /**
+   * The most moves to play.  Halved whenever the {@link Incumbent} improves, like the budget of new plays.
+   */
+  private long maxMoves;
+  private final Scorer scorer;
+  private final TranspositionTable visitedGames;
+  @Nullable
+  private final ConcurrentTranspositionTable sharedGames;
+  /**
+   * The games left to explore.  The order of the queue decides which is explored next.
+   */
+  private final Queue<Node> nextGames;
+  private final MoveTree moveTree = new MoveTree();
+  private final FrontierArena boards = new FrontierArena();
+  private final MovePruner pruner;
+  private final GamePlayer.MoveList initialMoves;
   private final int bestMoveCount;
+  private final Incumbent incumbent;
   @Nullable
   private final RandomGenerator moveShuffler;
   private final ProgressReporter reporter;
 
-  private final List<Move> movesCache = new ArrayList<>();
+  private final IntMoveBuffer movesCache = new IntMoveBuffer();
+  private final IntMoveBuffer autoMovesCache = new IntMoveBuffer();
   private final Histogram moveHistogram;
 
   GamePlay(
-      GamePlayer.GameProgress initialGameProgress, long maxMoves, Comparator<GamePlayer.GameProgress> comparator,
-      ToDoubleBiFunction<? super FreeCell, ? super GamePlayer.MoveList> scorer, int bestMoveCount,
-      @Nullable RandomGenerator moveShuffler, @Nullable ProgressReporter reporter, Histogram moveHistogram) {
-    this.nextGames = new PriorityQueue<>(1000, comparator.reversed());
-    this.nextGames.add(Objects.requireNonNull(initialGameProgress));
+      GamePlayer.GameProgress initialGameProgress, long maxMoves, Queue<Node> nextGames, Scorer scorer,
+      int bestMoveCount, Incumbent incumbent,
+      @Nullable RandomGenerator moveShuffler, @Nullable ProgressReporter reporter, Histogram moveHistogram,
+      TranspositionTable visitedGames, @Nullable ConcurrentTranspositionTable sharedGames, MovePruner pruner) {
+    if (!nextGames.isEmpty()) {
+      throw new IllegalArgumentException("next games must start empty");
+    }
+    this.nextGames = nextGames;
+    this.initialMoves = initialGameProgress.moves();
     this.maxMoves = maxMoves;
     this.scorer = Objects.requireNonNull(scorer);
+    FreeCell initialGame = initialGameProgress.game();
+    int initialTotalMoves = initialMoves.totalMoves();
+    this.nextGames.add(new Node(
+        boards.add(initialGame, moveTree.addRoot()), scorer.score(initialGame, initialTotalMoves), initialTotalMoves,
+        null));
     this.bestMoveCount = bestMoveCount;
+    this.incumbent = Objects.requireNonNull(incumbent);
     this.moveShuffler = moveShuffler;
     this.reporter = reporter != null ? reporter : new ProgressReporter() {
       @Override
@@ -60,6 +73,26 @@ final class GamePlay {
       public void gameSeen() {}
     };
     this.moveHistogram = moveHistogram;
+    this.visitedGames = Objects.requireNonNull(visitedGames);
+    this.sharedGames = sharedGames;
+    this.pruner = Objects.requireNonNull(pruner);
+  }
+
+  /**
+   * A game waiting to be explored.  The game itself is packed in a {@link FrontierArena}, along with the index of the
+   * {@link MoveTree} node of the moves that reached it, so the node only holds what the frontier orders games by.
+   *
+   * @param board the game's slot in the arena
+   * @param lastCard the card moved by the last move, for the {@link MovePruner}, or {@code null} if the last move is not
+   *     known or was an automatic move home
+   */
+  record Node(int board, double score, int totalMoves, @Nullable Card lastCard) {}
+
+  /**
+   * Scores games for the frontier to order them by.  A new scorer is used for each play, so it need not be thread safe.
+   */
+  interface Scorer {
+    double score(FreeCell game, int totalMoves);
   }
 
   interface ProgressReporter {
@@ -68,17 +101,7 @@ final class GamePlay {
   }
 
   GameResult play() {
-    try {
-      return playInternal();
-    } finally {
-      //var set = visitedGames.get();
-      visitedGames.clear();
-      //if (set != null) {
-      //  set.clear();
-      //}
-      //nextGames.clear();
-      //movesCache.clear();
-    }
+    return playInternal();
   }
 
   record GameResult(Status status, GamePlayer.GameProgress gameProgress) {}
@@ -91,154 +114,195 @@ final class GamePlay {
   }
 
   private GameResult playInternal() {
-    GamePlayer.GameProgress preProgress;
-    int movesPlayed = 0;
-    while ((preProgress = nextGames.poll()) != null) {
+    Node preNode;
+    long movesPlayed = 0;
+    int improvementsSeen = incumbent.improvements();
+    while ((preNode = nextGames.poll()) != null) {
+      FreeCell preGame = boards.game(preNode.board());
+      int preMoveNode = boards.moveNode(preNode.board());
+      boards.free(preNode.board());
+      // The incumbent may have improved since the game was queued.
+      if (!couldBeatBestMoves(preGame, preNode.totalMoves())) {
+        continue;
+      }
       movesCache.clear();
-      findMoves(movesCache, preProgress.game());
+      findMoves(movesCache, preGame);
+      pruner.prune(movesCache, preGame, moveTree.move(preMoveNode), preNode.lastCard());
       if (moveShuffler != null) {
-        shuffle(movesCache, moveShuffler);
+        movesCache.shuffle(moveShuffler);
       }
 
-      for (Move move : movesCache) {
-        if (movesPlayed++ == maxMoves) {
+      for (int i = 0; i < movesCache.size(); i++) {
+        int move = movesCache.get(i);
+        if (movesPlayed++ >= maxMoves) {
           return new GameResult(Status.MAX_PLAYS, null);
         }
+        if ((movesPlayed & 0xFFF) == 0 && incumbent.improvements() != improvementsSeen) {
+          improvementsSeen = incumbent.improvements();
+          maxMoves = movesPlayed + (maxMoves - movesPlayed) / 2;
+        }
         if ((movesPlayed & 0xFFFFF) == 0xFFFFF && Thread.currentThread().isInterrupted()) {
           return new GameResult(Status.INTERRUPTED, null);
         }
 
-        FreeCell postGame = move.play(preProgress.game());
+        autoMovesCache.clear();
+        FreeCell postGame = autoPlay(preGame.playEncoded(move), autoMovesCache);
         reporter.movePlayed();
-        GamePlayer.MoveList preMoves = preProgress.moves();
-        moveHistogram.recordValue(preMoves.totalMoves() + 1);
-        if (!visitGame(postGame, preMoves.totalMoves() + 1)) {
+        int postTotalMoves = preNode.totalMoves() + 1 + autoMovesCache.size();
+        moveHistogram.recordValue(postTotalMoves);
+        if (!visitGame(postGame, postTotalMoves)) {
           continue;
         }
         reporter.gameSeen();
-        var postMoves = preMoves.branch(move);
-        double score = scorer.applyAsDouble(postGame, postMoves);
+        double score = scorer.score(postGame, postTotalMoves);
 
-        GamePlayer.GameProgress nextGameProgress =
-            new GamePlayer.GameProgress(postGame, score, postMoves);
         if (postGame.gameWon()) {
-          return new GameResult(Status.SUCCESS, nextGameProgress);
-        } else if (couldBeatBestMoves(nextGameProgress)) {
-          nextGames.add(nextGameProgress);
+          if (postTotalMoves >= incumbent.bestMoves()) {
+            continue;
+          }
+          var postMoves = moveTree.moves(addMoves(preMoveNode, move, autoMovesCache), initialMoves);
+          return new GameResult(Status.SUCCESS, new GamePlayer.GameProgress(postGame, score, postMoves));
+        } else if (couldBeatBestMoves(postGame, postTotalMoves)) {
+          int postBoard = boards.add(postGame, addMoves(preMoveNode, move, autoMovesCache));
+          Card lastCard = autoMovesCache.size() == 0 ? MovePruner.movedCard(preGame, move) : null;
+          nextGames.add(new Node(postBoard, score, postTotalMoves, lastCard));
         }
       }
     }
     return new GameResult(Status.UNWINNABLE, null);
   }
 
+  /**
+   * Adds the move and the safe moves home played after it to the move tree, returning the node of the last one.
+   */
+  private int addMoves(int parent, int move, IntMoveBuffer autoMoves) {
+    int node = moveTree.add(parent, move);
+    for (int i = 0; i < autoMoves.size(); i++) {
+      node = moveTree.add(node, autoMoves.get(i));
+    }
+    return node;
+  }
 
-
+  /**
+   * Records the game as seen at the given depth.  The hash doesn't depend on column order, so games that only differ in
+   * the order of their tableau columns are considered the same.  The game itself, with its real column order, is what
+   * gets played, so recorded moves always refer to real columns.
+   *
+   * <p>Games seen by other plays only prune this one if they were reached in strictly fewer moves.  Plays restarted
+   * from the same game would otherwise find every game already seen.
+   */
   private boolean visitGame(FreeCell game, int depth) {
-    var map = visitedGames.get();
-    if (map == null) {
-      return true;
-    }
-    Integer depthBox  = depth;
-    Integer old = map.putIfAbsent(game, depthBox);
-    if (old != null && old <= depth) {
+    long hash = game.zobrist();
+    if (!visitedGames.visit(hash, depth)) {
       return false;
     }
-    map.put(game, depthBox);
-    return true;
+    return sharedGames == null || sharedGames.visit(hash, depth, false);
+  }
+
+  /**
+   * Returns if the game could still lead to a solution within this play's bound, and shorter than the best solution
+   * found by any play.
+   */
+  private boolean couldBeatBestMoves(FreeCell game, int totalMoves) {
+    int fewestMoves = totalMoves + game.minMovesToWin();
+    return fewestMoves <= bestMoveCount && fewestMoves < incumbent.bestMoves();
   }
 
-  private boolean couldBeatBestMoves(GamePlayer.GameProgress gameProgress) {
-    int minMovesToWin = 0;
-    FreeCell game = gameProgress.game();
-    for (Suit suit : SUITS_BY_ORD) {
-      Card card = game.topHomeCell(suit);
-      if (card == null) {
-        minMovesToWin += RANK_COUNT;
-      } else {
-        minMovesToWin += Rank.KING_ORD - card.rank().ordinal();
+  /**
+   * Finds the moves worth playing.  If a card can safely be moved home, that is the only move.  Other moves home are
+   * skipped.
+   */
+  private static void findMoves(IntMoveBuffer moves, FreeCell game) {
+    game.findMoves(moves);
+    int kept = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      Card homeCard = switch (MoveCode.kind(move)) {
+        case MoveCode.HOME_FROM_TABLEAU -> game.peekTableau(MoveCode.src(move));
+        case MoveCode.HOME_FROM_FREE_CELL -> game.peekFreeCell(MoveCode.src(move));
+        default -> null;
+      };
+      if (homeCard == null) {
+        moves.set(kept++, move);
+      } else if (shouldMoveHome(homeCard, game)) {
+        moves.clear();
+        moves.add(move);
+        return;
       }
     }
-    if (gameProgress.moves() == null) {
-      return true;
-    }
-    return gameProgress.moves().totalMoves() + minMovesToWin <= bestMoveCount;
+    moves.truncate(kept);
   }
 
-  private static void findMoves(List<? super Move> moves, FreeCell game) {
-    for (int srcTableauCol = 0; srcTableauCol < TABLEAU_COLS; srcTableauCol++) {
-      Card srcCard = game.peekTableau(srcTableauCol);
-      if (srcCard == null) {
-        continue;
-      }
-      if (game.canMoveToHomeCellFromTableau(srcTableauCol)) {
-        Move moveHome = new Move.MoveToHomeCellFromTableau(srcTableauCol);
-        if (shouldMoveHome(srcCard, game)) {
-          moves.clear();
-          moves.add(moveHome);
-          return;
-        }
-      }
-      if (game.canMoveToFreeCellFromTableau(srcTableauCol)) {
-        moves.add(new Move.MoveToFreeCellFromTableau(srcTableauCol));
-      }
-      int stack = game.stackSize(srcTableauCol);
-      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
-        for (int i = 1; i <= stack; i++) {
-          if (game.canMoveToTableauFromTableau(dstTableauCol, srcTableauCol, i)) {
-            moves.add(new Move.MoveToTableauFromTableau(dstTableauCol, srcTableauCol, i));
-          }
-        }
+  /**
+   * Finds all legal moves, including unsafe moves home, unless a card can safely be moved home, in which case that is
+   * the only move.
+   */
+  static void findAllMoves(IntMoveBuffer moves, FreeCellView game) {
+    game.findMoves(moves);
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      Card homeCard = switch (MoveCode.kind(move)) {
+        case MoveCode.HOME_FROM_TABLEAU -> game.peekTableau(MoveCode.src(move));
+        case MoveCode.HOME_FROM_FREE_CELL -> game.peekFreeCell(MoveCode.src(move));
+        default -> null;
+      };
+      if (homeCard != null && shouldMoveHome(homeCard, game)) {
+        moves.clear();
+        moves.add(move);
+        return;
       }
     }
-    for (int freeCol = 0; freeCol < FREE_CELLS; freeCol++) {
-      Card srcCard = game.peekFreeCell(freeCol);
-      if (srcCard == null) {
-        continue;
-      }
-      if (game.canMoveToHomeCellFromFreeCell(freeCol)) {
-        Move moveHome = new Move.MoveToHomeCellFromFreeCell(freeCol);
-        if (shouldMoveHome(srcCard, game)) {
-          moves.clear();
-          moves.add(moveHome);
-          return;
+  }
+
+  /**
+   * Moves home every card that can safely be moved home, from the tableau and the free cells, until none are left.
+   * Each card moved home may make another safe to move, so the whole chain is played as one step, and the games in
+   * between are never hashed or queued.
+   *
+   * @param played where to add the moves played, in order
+   * @return the game after the moves
+   */
+  static FreeCell autoPlay(FreeCell game, IntMoveBuffer played) {
+    boolean moved;
+    do {
+      moved = false;
+      for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+        Card card;
+        while ((card = game.peekTableau(col)) != null
+            && game.canMoveToHomeCellFromTableau(col) && shouldMoveHome(card, game)) {
+          game = game.moveToHomeCellFromTableau(col);
+          played.add(MoveCode.homeFromTableau(col));
+          moved = true;
         }
       }
-      for (int dstTableauCol = 0; dstTableauCol < TABLEAU_COLS; dstTableauCol++) {
-        if (game.canMoveToTableauFromFreeCell(dstTableauCol, freeCol)) {
-          moves.add(new Move.MoveToTableauFromFreeCell(dstTableauCol, freeCol));
+      for (int freeCol = 0; freeCol < FreeCell.FREE_CELLS; freeCol++) {
+        Card card = game.peekFreeCell(freeCol);
+        if (card != null && game.canMoveToHomeCellFromFreeCell(freeCol) && shouldMoveHome(card, game)) {
+          game = game.moveToHomeCellFromFreeCell(freeCol);
+          played.add(MoveCode.homeFromFreeCell(freeCol));
+          moved = true;
         }
       }
-    }
+    } while (moved);
+    return game;
   }
 
-  private static boolean shouldMoveHome(Card card, FreeCell game) {
-    if (card.rank() == Rank.ACE || card.rank() == Rank.TWO) {
-      return true;
-    }
+  /**
+   * Returns if moving the card home can't make the game harder, because no card that could still be placed on it is
+   * left outside the home cells.
+   */
+  static boolean shouldMoveHome(Card card, FreeCellView game) {
     return switch (card.suit().color()) {
-      case BLACK -> {
-        Card topDiamond = game.topHomeCell(Suit.DIAMONDS);
-        Card topHeart = game.topHomeCell(Suit.HEARTS);
-        yield topDiamond != null && topDiamond.rank().num() >= card.rank().num() - 1
-            && topHeart != null && topHeart.rank().num() >= card.rank().num() - 1;
-      }
-      case RED -> {
-        Card topClub = game.topHomeCell(Suit.CLUBS);
-        Card topSpade = game.topHomeCell(Suit.SPADES);
-        yield topClub != null && topClub.rank().num() >= card.rank().num() - 1
-            && topSpade != null && topSpade.rank().num() >= card.rank().num() - 1;
-      }
+      case BLACK -> shouldMoveHome(card, game.topHomeCell(Suit.DIAMONDS), game.topHomeCell(Suit.HEARTS));
+      case RED -> shouldMoveHome(card, game.topHomeCell(Suit.CLUBS), game.topHomeCell(Suit.SPADES));
     };
   }
 
-  private static <T> void shuffle(List<T> elems, RandomGenerator rng) {
-    for (int i = elems.size(); i > 1; i--) {
-      T e1 = elems.get(i - 1);
-      int pos = rng.nextInt(i);
-      T e2 = elems.get(pos);
-
-      elems.set(i - 1, e2);
-      elems.set(pos, e1);
+  private static boolean shouldMoveHome(Card card, @Nullable Card otherColorHome1, @Nullable Card otherColorHome2) {
+    if (card.rank() == Rank.ACE || card.rank() == Rank.TWO) {
+      return true;
     }
+    return otherColorHome1 != null && otherColorHome1.rank().num() >= card.rank().num() - 1
+        && otherColorHome2 != null && otherColorHome2.rank().num() >= card.rank().num() - 1;
   }
 }
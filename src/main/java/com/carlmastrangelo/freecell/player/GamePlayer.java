@@ -7,16 +7,24 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import com.carlmastrangelo.freecell.Card;
 import com.carlmastrangelo.freecell.ForkFreeCell;
 import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.MoveCode;
 import com.carlmastrangelo.freecell.Suit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.SplittableRandom;
 import java.util.concurrent.BlockingQueue;
@@ -52,11 +60,143 @@ public final class GamePlayer {
         "KC", "8D", "2S", "3S", null, null, null, null));
 */
 
-    GamePlayer gp = new GamePlayer(game, Executors.newSingleThreadScheduledExecutor());
+    if (args.length > 0 && args[0].equals("astar")) {
+      solveAStar(game, args.length > 1 ? Double.parseDouble(args[1]) : 1);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("prove")) {
+      prove(game);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("external")) {
+      solveExternal(game, Path.of(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir")));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("batch")) {
+      solveBatch(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("hdastar")) {
+      solveHdaStar(game, args.length > 1 ? Double.parseDouble(args[1]) : 1);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("idastar")) {
+      solveIdaStar(game, args.length > 1 ? Double.parseDouble(args[1]) : 1);
+      return;
+    }
+
+    Frontier frontier = args.length > 0 ? Frontier.valueOf(args[0].toUpperCase(Locale.ROOT)) : Frontier.SCORE;
+    GamePlayer gp = new GamePlayer(game, Executors.newSingleThreadScheduledExecutor(), frontier);
 
     gp.start();
   }
 
+  /**
+   * Solves the game with {@link AStarSolver} on this thread, rather than with random playouts.
+   */
+  static void solveAStar(FreeCell game, double weight) {
+    var solver = new AStarSolver(
+        weight,
+        MAX_EXPANSIONS,
+        new ArrayTranspositionTable(VISITED_GAMES_BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED));
+    AStarSolver.Result result = solver.solve(game);
+    System.out.println(result.status() + " after " + result.expansions() + " expansions");
+    if (result.status() == GamePlay.Status.SUCCESS) {
+      System.out.println(describeGame(game, new GameProgress(game, Double.MIN_VALUE, result.moves())));
+    }
+  }
+
+  /**
+   * Solves the game with {@link IdaStarSolver} on all cores, in memory that doesn't grow with the games searched.
+   */
+  static void solveIdaStar(FreeCell game, double weight) {
+    var solver = new IdaStarSolver(
+        weight, Long.MAX_VALUE, Runtime.getRuntime().availableProcessors(), IDA_STAR_TABLE_BYTES);
+    IdaStarSolver.Result result = solver.solve(game);
+    System.out.println(
+        result.status() + " after " + result.expansions() + " expansions in " + result.iterations() + " iterations");
+    if (result.status() == GamePlay.Status.SUCCESS) {
+      System.out.println(describeGame(game, new GameProgress(game, Double.MIN_VALUE, result.moves())));
+    }
+  }
+
+  /**
+   * Solves the game with {@link HdaStarSolver} on all cores, each owning a share of the games searched.
+   */
+  static void solveHdaStar(FreeCell game, double weight) {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    var solver = new HdaStarSolver(weight, MAX_EXPANSIONS * parallelism, parallelism, VISITED_GAMES_BYTES);
+    HdaStarSolver.Result result = solver.solve(game);
+    System.out.println(result.status() + " after " + result.expansions() + " expansions");
+    if (result.status() == GamePlay.Status.SUCCESS) {
+      System.out.println(describeGame(game, new GameProgress(game, Double.MIN_VALUE, result.moves())));
+    }
+  }
+
+  /**
+   * Solves many deals with {@link BatchSolver} on all cores, printing a line per deal as it finishes and the throughput
+   * every few seconds.  Takes {@code seeds <first> <last>}, {@code ms <first> <last>} for {@link MicrosoftDeals}, or
+   * {@code file <path>}.
+   */
+  static void solveBatch(String[] args) throws IOException, InterruptedException {
+    var solver = new BatchSolver(
+        Runtime.getRuntime().availableProcessors(), BATCH_WEIGHT, MAX_EXPANSIONS, BATCH_TIMEOUT, BATCH_TABLE_BYTES);
+    var scheduler = Executors.newSingleThreadScheduledExecutor();
+    long start = System.nanoTime();
+    scheduler.scheduleAtFixedRate(() -> {
+      double seconds = (System.nanoTime() - start) / (double) SECONDS.toNanos(1);
+      System.err.printf(
+          "Solved %d of %d deals (%.1f/s)%n", solver.solved(), solver.completed(), solver.completed() / seconds);
+    }, 5, 5, SECONDS);
+    try {
+      if (args.length == 3 && args[0].equals("seeds")) {
+        solver.solve(
+            BatchSolver.seeds(Long.parseLong(args[1]), Long.parseLong(args[2])),
+            result -> System.out.println(result.toLine()));
+      } else if (args.length == 3 && args[0].equals("ms")) {
+        solver.solve(
+            BatchSolver.microsoft(Integer.parseInt(args[1]), Integer.parseInt(args[2])),
+            result -> System.out.println(result.toLine()));
+      } else if (args.length == 2 && args[0].equals("file")) {
+        try (var reader = Files.newBufferedReader(Path.of(args[1]))) {
+          solver.solve(BatchSolver.lines(reader), result -> System.out.println(result.toLine()));
+        }
+      } else {
+        throw new IllegalArgumentException("expected seeds <first> <last>, ms <first> <last> or file <path>");
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+    double seconds = (System.nanoTime() - start) / (double) SECONDS.toNanos(1);
+    System.err.printf(
+        "Solved %d of %d deals in %.1fs (%.1f/s)%n",
+        solver.solved(), solver.completed(), seconds, solver.completed() / seconds);
+  }
+
+  /**
+   * Checks whether the game can be won with {@link ExternalBfsSolver}, keeping the games searched in the directory.
+   */
+  static void solveExternal(FreeCell game, Path directory) throws IOException {
+    var solver = new ExternalBfsSolver(directory, EXTERNAL_BUFFER_GAMES, Long.MAX_VALUE);
+    ExternalBfsSolver.Result result = solver.solve(game);
+    System.out.println(result.status() + " after " + result.games() + " games in " + result.layers() + " layers");
+    if (result.status() == GamePlay.Status.SUCCESS) {
+      System.out.println(result.moves() + " moves to win");
+    }
+  }
+
+  /**
+   * Proves whether the game can be won with {@link LayeredBfsProver} on all cores, keeping every game seen in memory.
+   */
+  static void prove(FreeCell game) {
+    var prover = new LayeredBfsProver(Long.MAX_VALUE, Runtime.getRuntime().availableProcessors());
+    LayeredBfsProver.Result result = prover.prove(game);
+    System.out.println(result.status() + " after " + result.games() + " games in " + result.layers() + " layers");
+    if (result.status() == GamePlay.Status.SUCCESS) {
+      System.out.println(result.moves() + " moves to win");
+    }
+  }
+
   private static String describeGame(FreeCell game, GameProgress gameState) {
     var sb = new StringBuilder();
 
@@ -64,7 +204,7 @@ public final class GamePlayer {
     var deque = new ArrayDeque<Move>();
     MoveList list = gameState.moves();
     while (list != null  && list.totalMoves != 0) {
-      deque.addFirst(list.move());
+      deque.addFirst(Move.decode(list.move()));
       list = list.lastMove();
     }
     for (Move move : deque) {
@@ -78,18 +218,61 @@ public final class GamePlayer {
     return sb.toString();
   }
 
+  /**
+   * Memory for the games visited by each {@link GamePlay}, enough for about 8 million games.
+   */
+  private static final long VISITED_GAMES_BYTES = 64L << 20;
+
+  /**
+   * Memory for the games visited by any {@link GamePlay} in this run.
+   */
+  private static final long SHARED_GAMES_BYTES = 256L << 20;
+
+  /**
+   * The most games {@link #solveAStar} expands before giving up.  Each queued game takes a few hundred bytes.
+   */
+  private static final long MAX_EXPANSIONS = 2_000_000;
+
+  /**
+   * Memory for the games visited by each {@link #solveIdaStar} thread.
+   */
+  private static final long IDA_STAR_TABLE_BYTES = 32L << 20;
+
+  /**
+   * Games expanded by {@link #solveExternal} between spills to disk, about 450 MiB.
+   */
+  private static final int EXTERNAL_BUFFER_GAMES = 8 << 20;
+
+  /**
+   * {@link #solveBatch} favors solving many deals quickly over finding short solutions.
+   */
+  private static final double BATCH_WEIGHT = 3;
+
+  private static final Duration BATCH_TIMEOUT = Duration.ofSeconds(10);
+
+  /**
+   * Memory for the games visited by each {@link #solveBatch} thread.
+   */
+  private static final long BATCH_TABLE_BYTES = 16L << 20;
+
   private final ScheduledExecutorService scheduler;
-  private final ForkJoinPool pool = new ForkJoinPool(1);
+  private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  private final Incumbent incumbent = new Incumbent();
 
   private final ProgressReporter progressReporter = new ProgressReporter();
+  private final ConcurrentTranspositionTable sharedGames =
+      new ConcurrentTranspositionTable(SHARED_GAMES_BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED);
+  private final MovePruner pruner = MovePruner.safeRules();
   private final FreeCell startGame;
+  private final Frontier frontier;
 
   private final RandomGeneratorFactory<RandomGenerator.SplittableGenerator> randomFactory =
       RandomGeneratorFactory.of("L64X256MixRandom");
 
-  GamePlayer(FreeCell startGame, ScheduledExecutorService scheduler) {
+  GamePlayer(FreeCell startGame, ScheduledExecutorService scheduler, Frontier frontier) {
     this.startGame = Objects.requireNonNull(startGame);
     this.scheduler = Objects.requireNonNull(scheduler);
+    this.frontier = Objects.requireNonNull(frontier);
   }
 
   void start() throws Exception {
@@ -98,11 +281,12 @@ public final class GamePlayer {
 
     var rng = randomFactory.create(6);
     int bestMovesCount = Integer.MAX_VALUE;
+    int improvementsSeen = 0;
     long maxMoves = 5_000_000;
     BlockingQueue<PlayTask> tasks = new LinkedBlockingQueue<>();
     for (int i = 0; i < Runtime.getRuntime().availableProcessors() * 10; i++) {
       var gameGameArgs = new GamePlayArgs(
-          new GameProgress(startGame, Double.MIN_VALUE, new MoveList(null, 0, null)),
+          new GameProgress(startGame, Double.MIN_VALUE, new MoveList(null, 0, MoveCode.NONE)),
           maxMoves,
           bestMovesCount,
           rng.split());
@@ -115,13 +299,8 @@ public final class GamePlayer {
       GamePlay.GameResult gameResult = task.get();
       switch (gameResult.status()) {
         case SUCCESS -> {
-          var bestProgress = gameResult.gameProgress();
-          if (bestProgress.moves().totalMoves() <= bestMovesCount) {
-            bestMovesCount = bestProgress.moves().totalMoves();
-            maxMoves /= 2;
-          }
-
-          System.out.println(describeGame(startGame, bestProgress));
+          // Running plays offer their solutions as soon as they find them, so this one may already be known.
+          incumbent.offer(gameResult.gameProgress());
         }
         case UNWINNABLE -> {
           maxMoves = task.args.maxPlays() * 5 / 4;
@@ -131,6 +310,12 @@ public final class GamePlayer {
           maxMoves = task.args.maxPlays() * 5 / 4;
         }
       };
+      if (incumbent.improvements() != improvementsSeen) {
+        improvementsSeen = incumbent.improvements();
+        bestMovesCount = incumbent.bestMoves();
+        maxMoves /= 2;
+        System.out.println(describeGame(startGame, incumbent.best()));
+      }
       var gameGameArgs = new GamePlayArgs(task.args.gameProgress(), maxMoves, bestMovesCount, rng.split());
       PlayTask res = (PlayTask) pool.submit(new PlayTask(gameGameArgs, 1));
       tasks.add(res);
@@ -184,6 +369,13 @@ public final class GamePlayer {
           "Seen " + seen + " (" + seenPerSecond + "/s) Played " + played + " (" + playedPerSecond + "/s)");
       System.out.println(
           "Started " + started + " ended " + ended + " (" + (started - ended) + ")");
+      TranspositionTable.Stats shared = sharedGames.stats();
+      System.out.printf(
+          "Shared hits %d (%.1f%%) stores %d evictions %d contention %d%n",
+          shared.hits(), shared.hitRate() * 100, shared.stores(), shared.evictions(), shared.contention());
+      MovePruner.Stats pruned = pruner.stats();
+      System.out.printf(
+          "Branching %.2f -> %.2f pruned %s%n", pruned.branchingBefore(), pruned.branchingAfter(), pruned.pruned());
       //System.out.println(moveHistogram);
     }
   }
@@ -230,17 +422,21 @@ public final class GamePlayer {
       GamePlay gamePlay = new GamePlay(
           start,
           args.maxPlays(),
-          GameComparator.INSTANCE,
-          GamePlayer::score,
+          frontier.newQueue(),
+          frontier.newScorer(),
           args.bestMovesCount(),
+          incumbent,
           args.rng(),
           progressReporter,
-          progressReporter.moveHistogram);
+          progressReporter.moveHistogram,
+          new ArrayTranspositionTable(VISITED_GAMES_BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED),
+          sharedGames,
+          pruner);
       GamePlay.GameResult result = gamePlay.play();
       return switch (result.status()) {
         case SUCCESS -> {
           var gameProgress = result.gameProgress();
-          if (gameProgress.moves().totalMoves() >= args.bestMovesCount()) {
+          if (gameProgress.moves().totalMoves() >= args.bestMovesCount() || !incumbent.offer(gameProgress)) {
             yield result;
           }
           List<GameProgress> samples = sampleGames(args.gameProgress(), gameProgress);
@@ -286,8 +482,7 @@ public final class GamePlayer {
     List<GameProgress> samples = new ArrayList<>();
     GameProgress gameProgress = initialGame;
     for (MoveList moveList : moveLists) {
-      Move move = moveList.move();
-      FreeCell game = move.play(gameProgress.game());
+      FreeCell game = gameProgress.game().playEncoded(moveList.move());
       gameProgress = new GameProgress(game, Double.MIN_VALUE, moveList);
       i++;
       if ((i & (i-1)) == 0) {
@@ -299,17 +494,65 @@ public final class GamePlayer {
 
 
 
-  private static final class GameComparator implements Comparator<GameProgress> {
+  /**
+   * The order each {@link GamePlay} explores games in.
+   */
+  enum Frontier {
+    /**
+     * Highest {@link #score} first, in a {@link PriorityQueue}.
+     */
+    SCORE,
+    /**
+     * Lowest moves made plus weighted {@link BlockerHeuristic} estimate first, in a {@link BucketQueue}.  Oldest first
+     * among equals.  The cost is the node's score.
+     */
+    COST_FIFO,
+    /**
+     * Like {@link #COST_FIFO}, but newest first among equals, which tends to go deeper.
+     */
+    COST_LIFO,
+    ;
+
+    Queue<GamePlay.Node> newQueue() {
+      return switch (this) {
+        case SCORE -> new PriorityQueue<>(1000, GameComparator.INSTANCE.reversed());
+        case COST_FIFO -> newCostQueue(BucketQueue.TieBreak.FIFO);
+        case COST_LIFO -> newCostQueue(BucketQueue.TieBreak.LIFO);
+      };
+    }
+
+    GamePlay.Scorer newScorer() {
+      return switch (this) {
+        case SCORE -> GamePlayer::score;
+        case COST_FIFO, COST_LIFO -> {
+          var heuristic = new BlockerHeuristic();
+          yield (game, totalMoves) -> totalMoves + COST_WEIGHT * heuristic.estimate(game);
+        }
+      };
+    }
+
+    /**
+     * How much more the estimated moves left count than the moves made.  Like weighted A*, this explores far fewer games
+     * than an even weighting, at the cost of longer solutions.
+     */
+    private static final int COST_WEIGHT = 3;
+
+    private static Queue<GamePlay.Node> newCostQueue(BucketQueue.TieBreak tieBreak) {
+      return new BucketQueue<GamePlay.Node>(node -> (int) node.score(), tieBreak);
+    }
+  }
+
+  private static final class GameComparator implements Comparator<GamePlay.Node> {
     static GameComparator INSTANCE = new GameComparator();
 
     @Override
-    public int compare(GameProgress o1, GameProgress o2) {
-      int cmp = Double.compare(o1.score, o2.score);
+    public int compare(GamePlay.Node o1, GamePlay.Node o2) {
+      int cmp = Double.compare(o1.score(), o2.score());
       if (cmp != 0) {
         return cmp;
       }
-      var thisMoves = o1.moves().totalMoves();
-      var thatMoves = o2.moves().totalMoves();
+      var thisMoves = o1.totalMoves();
+      var thatMoves = o2.totalMoves();
       if (Math.abs(thisMoves - thatMoves) < 2) {
         return 0;
       }
@@ -352,7 +595,7 @@ public final class GamePlayer {
     throw new RuntimeException("no moves left");
   }
   
-  private static double score(FreeCell game, MoveList moves)  {
+  private static double score(FreeCell game, int totalMoves)  {
     double sum = 0;
     int[] parts = new int[4];
     for (Suit suit : Suit.values()) {
@@ -386,7 +629,7 @@ public final class GamePlayer {
     }
 
 
-    return (sum - Math.sqrt(var) - Math.sqrt(diff) / 4) / moves.totalMoves();
+    return (sum - Math.sqrt(var) - Math.sqrt(diff) / 4) / totalMoves;
   }
 
   private static List<Card> parse(String ... symbols) {
@@ -420,11 +663,14 @@ public final class GamePlayer {
     }
   }
 
-  record MoveList(@Nullable MoveList lastMove, int totalMoves, @Nullable Move move) {
+  /**
+   * @param move the last move, as a {@link MoveCode}, or {@link MoveCode#NONE} if no moves have been made
+   */
+  record MoveList(@Nullable MoveList lastMove, int totalMoves, int move) {
 
     MoveList {
-      if (lastMove == null || totalMoves == 0 || move == null) {
-        if (lastMove != null || totalMoves != 0 || move != null) {
+      if (lastMove == null || totalMoves == 0 || move == MoveCode.NONE) {
+        if (lastMove != null || totalMoves != 0 || move != MoveCode.NONE) {
           throw new IllegalArgumentException();
         }
       } else {
@@ -434,7 +680,7 @@ public final class GamePlayer {
       }
     }
 
-    MoveList branch(Move move) {
+    MoveList branch(int move) {
       return new MoveList(this, totalMoves + 1, move);
     }
 
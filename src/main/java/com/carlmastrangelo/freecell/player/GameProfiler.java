@@ -6,7 +6,8 @@ import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
 import com.carlmastrangelo.freecell.Card;
 import com.carlmastrangelo.freecell.ForkFreeCell;
 import com.carlmastrangelo.freecell.FreeCell;
-import com.carlmastrangelo.freecell.coder.ArithmeticCoder;
+import com.carlmastrangelo.freecell.coder.RangeCoder;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,14 +17,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.random.RandomGenerator;
 import java.util.random.RandomGeneratorFactory;
-import java.util.stream.Collectors;
 
 public final class GameProfiler {
 
@@ -66,39 +64,20 @@ public final class GameProfiler {
     }
 
 
-    SortedMap<Integer, Double> probabilities = new TreeMap<>();
-    double den = 5366163.0;
-    probabilities.put(-5, 1/den);
-    probabilities.put(-4, 1/den);
-    probabilities.put(-3, 26/den);
-    probabilities.put(-2, 679/den);
-    probabilities.put(-1, 48556/den);
-    probabilities.put(0, 3866788/den);
-    probabilities.put(1, 1395384/den);
-    probabilities.put(2, 53784/den);
-    probabilities.put(3, 902/den);
-    probabilities.put(4, 33/den);
-    probabilities.put(5, 1/den);
-    probabilities.put(6, 1/den);
-    probabilities.put(7, 1/den);
-    probabilities.put(8, 1/den);
-    probabilities.put(9, 1/den);
-    probabilities.put(10, 1/den);
-    probabilities.put(11, 1/den);
-    probabilities.put(12, 1/den);
-    probabilities.put(13, 1/den);
-    probabilities.put(14, 1/den);
+    // Counts of each difference from -5 to 14, from an earlier run.
+    var diffFreqs = RangeCoder.FrequencyTable.scaled(
+        1, 1, 26, 679, 48556, 3866788, 1395384, 53784, 902, 33, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
 
     Map<Integer, AtomicLong> counts = new ConcurrentSkipListMap<>();
     columnDiffs.parallelStream().forEach(cd -> {
       cd[0] = 0;
-      var enc =
-          ArithmeticCoder.arithmeticEncode(
-              Arrays.stream(cd).boxed().collect(Collectors.toList()), probabilities);
-      if (enc.bitsUsed() > 45) {
-        System.out.println("woa");
+      var buf = ByteBuffer.allocate(64);
+      var encoder = new RangeCoder.Encoder(buf);
+      for (int diff : cd) {
+        encoder.encode(diffFreqs, diff + bias);
       }
-      counts.computeIfAbsent(enc.bitsUsed(), k -> new AtomicLong()).incrementAndGet();
+      encoder.finish();
+      counts.computeIfAbsent(buf.position(), k -> new AtomicLong()).incrementAndGet();
     });
 
 
@@ -0,0 +1,341 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+
+/**
+ * Solves games with hash distributed A*, the same search as {@link AStarSolver} spread over many threads.  Each game
+ * belongs to the worker chosen by its hash, which alone keeps it in its frontier and transposition table, so no state
+ * is shared between workers except the best solution.  A worker sends the games it reaches to their owners in batches,
+ * through each owner's {@link MpscQueue}.
+ *
+ * <p>Each worker records the moves it plays in its own {@link MoveTree}, and games are sent with the worker and index of
+ * their move tree node.  A worker expanding a game from another worker's tree first links to it from its own, so no
+ * tree is ever written by more than one thread, and the trees are only read across threads to rebuild the solution
+ * after all workers are done.
+ *
+ * <p>Workers expand their best games independently, so a solution may be found before shorter ones.  The search keeps
+ * going, dropping games that can't beat the best solution found, until every frontier is empty and no batch is in
+ * flight.  With a weight of 1 the solution is as short as possible, and with larger weights at most {@code weight}
+ * times longer than the shortest, rounded up.  If the search stops early, the best solution found so far is returned.
+ */
+final class HdaStarSolver {
+
+  private static final Comparator<Node> NODE_ORDER =
+      Comparator.comparingInt(Node::f).thenComparing(Comparator.comparingInt(Node::g).reversed());
+
+  /**
+   * The most games sent to another worker at once.
+   */
+  private static final int BATCH_SIZE = 64;
+
+  /**
+   * How many games a worker expands between sending partial batches and checking whether to stop.
+   */
+  private static final int FLUSH_INTERVAL = 256;
+
+  private final double weight;
+  private final long maxExpansions;
+  private final int parallelism;
+  private final long tableBytes;
+
+  /**
+   * @param tableBytes the memory for each worker's transposition table
+   */
+  HdaStarSolver(double weight, long maxExpansions, int parallelism, long tableBytes) {
+    if (!(weight >= 1) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("bad weight " + weight);
+    }
+    if (maxExpansions <= 0) {
+      throw new IllegalArgumentException("bad max expansions " + maxExpansions);
+    }
+    if (parallelism <= 0 || parallelism > MoveTree.MAX_TREES) {
+      throw new IllegalArgumentException("bad parallelism " + parallelism);
+    }
+    this.weight = weight;
+    this.maxExpansions = maxExpansions;
+    this.parallelism = parallelism;
+    this.tableBytes = tableBytes;
+  }
+
+  /**
+   * @param g the number of moves made
+   * @param tree the worker whose move tree holds the moves made
+   * @param moveNode the index of the game's node in that tree
+   */
+  record Node(FreeCell game, int f, int g, int tree, int moveNode) {}
+
+  /**
+   * The best solution found so far, as a node of a worker's move tree.
+   */
+  private record Solution(int totalMoves, int tree, int moveNode) {}
+
+  /**
+   * @param moves the solution, if the status is {@link GamePlay.Status#SUCCESS}
+   * @param expansions the number of games whose moves were generated, by all workers
+   */
+  record Result(GamePlay.Status status, @Nullable GamePlayer.MoveList moves, long expansions) {}
+
+  Result solve(FreeCell start) {
+    var search = new Search();
+    List<Worker> workers = new ArrayList<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(new Worker(search, i));
+    }
+    search.workers = workers;
+    Worker owner = workers.get(owner(start.zobrist()));
+    owner.receive(new Node(start, f(0, owner.heuristic.estimate(start)), 0, owner.id, owner.moveTree.addRoot()));
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      try {
+        for (Future<Void> done : executor.invokeAll(workers)) {
+          done.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return new Result(GamePlay.Status.INTERRUPTED, null, search.expansions.sum());
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    long expansions = search.expansions.sum();
+    Solution solution = search.solution.get();
+    if (solution != null) {
+      // Every worker has finished, so their trees are safe to read.
+      MoveTree[] trees = workers.stream().map(worker -> worker.moveTree).toArray(MoveTree[]::new);
+      var root = new GamePlayer.MoveList(null, 0, MoveCode.NONE);
+      var moves = MoveTree.moves(trees, solution.tree(), solution.moveNode(), root);
+      return new Result(GamePlay.Status.SUCCESS, moves, expansions);
+    } else if (search.interrupted.get()) {
+      return new Result(GamePlay.Status.INTERRUPTED, null, expansions);
+    } else if (search.stop.get()) {
+      return new Result(GamePlay.Status.MAX_PLAYS, null, expansions);
+    }
+    return new Result(GamePlay.Status.UNWINNABLE, null, expansions);
+  }
+
+  private int f(int g, int h) {
+    return g + (weight == 1 ? h : (int) Math.ceil(weight * h));
+  }
+
+  /**
+   * Picks the worker for a game from the high bits of its hash.  Transposition tables index by the low bits, so those
+   * stay evenly spread within each worker.
+   */
+  private int owner(long hash) {
+    return (int) (((hash >>> 32) * parallelism) >>> 32);
+  }
+
+  /**
+   * The state shared by the workers.
+   */
+  private static final class Search {
+    List<Worker> workers;
+    final LongAdder expansions = new LongAdder();
+    final AtomicReference<Solution> solution = new AtomicReference<>();
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicBoolean interrupted = new AtomicBoolean();
+    /**
+     * The number of busy workers plus the number of batches sent but not yet taken.  Only a busy worker sends, and a
+     * worker taking a batch becomes busy before the batch stops counting, so once this reaches zero the search is over.
+     */
+    final AtomicLong active = new AtomicLong();
+
+    /**
+     * Returns the number of moves in the best solution found, or {@link Integer#MAX_VALUE} if there is none.
+     */
+    int bestMoves() {
+      Solution best = solution.get();
+      return best == null ? Integer.MAX_VALUE : best.totalMoves();
+    }
+
+    void foundSolution(Node node) {
+      var found = new Solution(node.g(), node.tree(), node.moveNode());
+      Solution best;
+      do {
+        best = solution.get();
+        if (best != null && best.totalMoves() <= found.totalMoves()) {
+          return;
+        }
+      } while (!solution.compareAndSet(best, found));
+    }
+  }
+
+  private final class Worker implements Callable<Void> {
+    private final Search search;
+    private final int id;
+    private final MpscQueue<Node[]> inbox = new MpscQueue<>();
+    private final Queue<Node> open = new PriorityQueue<>(1000, NODE_ORDER);
+    private final TranspositionTable visitedGames;
+    private final MoveTree moveTree = new MoveTree();
+    private final BlockerHeuristic heuristic = new BlockerHeuristic();
+    private final IntMoveBuffer movesCache = new IntMoveBuffer();
+    private final Node[][] outboxes;
+    private final int[] outboxSizes;
+    private boolean busy = true;
+    private long unreportedExpansions;
+
+    Worker(Search search, int id) {
+      this.search = search;
+      this.id = id;
+      this.visitedGames = new ArrayTranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED);
+      this.outboxes = new Node[parallelism][BATCH_SIZE];
+      this.outboxSizes = new int[parallelism];
+      search.active.incrementAndGet();
+    }
+
+    @Override
+    public Void call() {
+      while (!search.stop.get()) {
+        receiveAll();
+        Node node = pollOpen();
+        if (node == null) {
+          flushAll();
+          if (busy) {
+            busy = false;
+            search.active.decrementAndGet();
+          }
+          if (search.active.get() == 0) {
+            break;
+          }
+          LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+          continue;
+        }
+        if (node.game().gameWon()) {
+          search.foundSolution(node);
+          continue;
+        }
+        expand(node);
+        if (++unreportedExpansions == FLUSH_INTERVAL) {
+          flushAll();
+          search.expansions.add(unreportedExpansions);
+          unreportedExpansions = 0;
+          if (search.expansions.sum() >= maxExpansions) {
+            search.stop.set(true);
+          } else if (Thread.currentThread().isInterrupted()) {
+            search.interrupted.set(true);
+            search.stop.set(true);
+          }
+        }
+      }
+      search.expansions.add(unreportedExpansions);
+      unreportedExpansions = 0;
+      return null;
+    }
+
+    /**
+     * Returns the best game that could still beat the best solution, dropping those that can't.
+     */
+    @Nullable
+    private Node pollOpen() {
+      Node node;
+      while ((node = open.poll()) != null) {
+        if (node.f() < search.bestMoves()) {
+          return node;
+        }
+      }
+      return null;
+    }
+
+    private void expand(Node node) {
+      movesCache.clear();
+      GamePlay.findAllMoves(movesCache, node.game());
+      int g = node.g() + 1;
+      int parent = node.tree() == id ? node.moveNode() : moveTree.addLink(node.tree(), node.moveNode(), node.g());
+      for (int i = 0; i < movesCache.size(); i++) {
+        int move = movesCache.get(i);
+        FreeCell child = node.game().playEncoded(move);
+        int f = f(g, heuristic.estimate(child));
+        if (f >= search.bestMoves()) {
+          continue;
+        }
+        var childNode = new Node(child, f, g, id, moveTree.add(parent, move));
+        int owner = owner(child.zobrist());
+        if (owner == id) {
+          receive(childNode);
+        } else {
+          send(owner, childNode);
+        }
+      }
+    }
+
+    /**
+     * Adds the game to the frontier unless it was already reached in as few moves.  Only called by the owner, or
+     * before the workers start.
+     */
+    void receive(Node node) {
+      if (visitedGames.visit(node.game().zobrist(), node.g())) {
+        open.add(node);
+      }
+    }
+
+    private void receiveAll() {
+      Node[] batch;
+      while ((batch = inbox.poll()) != null) {
+        if (!busy) {
+          busy = true;
+        } else {
+          search.active.decrementAndGet();
+        }
+        for (Node node : batch) {
+          receive(node);
+        }
+      }
+    }
+
+    private void send(int owner, Node node) {
+      Node[] outbox = outboxes[owner];
+      outbox[outboxSizes[owner]++] = node;
+      if (outboxSizes[owner] == BATCH_SIZE) {
+        flush(owner);
+      }
+    }
+
+    private void flushAll() {
+      for (int owner = 0; owner < parallelism; owner++) {
+        if (outboxSizes[owner] != 0) {
+          flush(owner);
+        }
+      }
+    }
+
+    /**
+     * Sends the games waiting for the owner.  Full batches are handed over as is, and partial ones copied.
+     */
+    private void flush(int owner) {
+      Node[] batch;
+      if (outboxSizes[owner] == BATCH_SIZE) {
+        batch = outboxes[owner];
+        outboxes[owner] = new Node[BATCH_SIZE];
+      } else {
+        batch = Arrays.copyOf(outboxes[owner], outboxSizes[owner]);
+        Arrays.fill(outboxes[owner], 0, outboxSizes[owner], null);
+      }
+      outboxSizes[owner] = 0;
+      search.active.incrementAndGet();
+      search.workers.get(owner).inbox.offer(batch);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import com.carlmastrangelo.freecell.MutableFreeCell;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Solves games with iterative deepening A*.  Each iteration is a depth first search that cuts off games whose moves
+ * made plus {@code weight} times the {@link BlockerHeuristic} estimate exceed a bound, and the next iteration raises the
+ * bound to the smallest value that was cut off.  With a weight of 1 the first solution found is as short as possible.
+ *
+ * <p>Unlike {@link AStarSolver} there is no frontier.  Each worker thread edits a single {@link MutableFreeCell} in
+ * place, and remembers the games it has seen this iteration in a fixed size transposition table, so memory doesn't grow
+ * with the games searched.  The moves from the starting game are split between the workers.
+ */
+final class IdaStarSolver {
+
+  private static final int FOUND = -1;
+  private static final int STOPPED = -2;
+
+  /**
+   * How many games a worker expands between checking whether to stop.
+   */
+  private static final int CHECK_INTERVAL = 1 << 12;
+
+  private final double weight;
+  private final long maxExpansions;
+  private final int parallelism;
+  private final long tableBytes;
+
+  /**
+   * @param tableBytes the memory for each worker's transposition table
+   */
+  IdaStarSolver(double weight, long maxExpansions, int parallelism, long tableBytes) {
+    if (!(weight >= 1) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("bad weight " + weight);
+    }
+    if (maxExpansions <= 0) {
+      throw new IllegalArgumentException("bad max expansions " + maxExpansions);
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("bad parallelism " + parallelism);
+    }
+    this.weight = weight;
+    this.maxExpansions = maxExpansions;
+    this.parallelism = parallelism;
+    this.tableBytes = tableBytes;
+  }
+
+  /**
+   * @param moves the solution, if the status is {@link GamePlay.Status#SUCCESS}
+   * @param expansions the number of games whose moves were generated, over all iterations
+   * @param iterations the number of times the search was started over with a higher bound
+   */
+  record Result(GamePlay.Status status, @Nullable GamePlayer.MoveList moves, long expansions, int iterations) {}
+
+  Result solve(FreeCell start) {
+    var root = new GamePlayer.MoveList(null, 0, MoveCode.NONE);
+    if (start.gameWon()) {
+      return new Result(GamePlay.Status.SUCCESS, root, 0, 0);
+    }
+    var rootMoves = new IntMoveBuffer();
+    GamePlay.findAllMoves(rootMoves, start);
+    var search = new Search(start, rootMoves);
+    int bound = f(0, new BlockerHeuristic().estimate(start));
+    List<Worker> workers = new ArrayList<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(new Worker(search));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      for (int iteration = 1; ; iteration++) {
+        search.startIteration(bound);
+        try {
+          for (Future<Void> done : executor.invokeAll(workers)) {
+            done.get();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return new Result(GamePlay.Status.INTERRUPTED, null, search.expansions.sum(), iteration);
+        } catch (ExecutionException e) {
+          throw new RuntimeException(e.getCause());
+        }
+        long expansions = search.expansions.sum();
+        GamePlayer.MoveList solution = search.solution.get();
+        if (solution != null) {
+          return new Result(GamePlay.Status.SUCCESS, solution, expansions, iteration);
+        } else if (expansions >= maxExpansions) {
+          return new Result(GamePlay.Status.MAX_PLAYS, null, expansions, iteration);
+        } else if (search.nextBound.get() == Integer.MAX_VALUE) {
+          return new Result(GamePlay.Status.UNWINNABLE, null, expansions, iteration);
+        }
+        bound = search.nextBound.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private int f(int g, int h) {
+    return g + (weight == 1 ? h : (int) Math.ceil(weight * h));
+  }
+
+  /**
+   * The state shared by the workers.  Each iteration, workers take moves from the starting game until none are left.
+   */
+  private static final class Search {
+    final FreeCell start;
+    final IntMoveBuffer rootMoves;
+    final LongAdder expansions = new LongAdder();
+    final AtomicReference<GamePlayer.MoveList> solution = new AtomicReference<>();
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger nextRootMove = new AtomicInteger();
+    final AtomicInteger nextBound = new AtomicInteger();
+    int bound;
+
+    Search(FreeCell start, IntMoveBuffer rootMoves) {
+      this.start = Objects.requireNonNull(start);
+      this.rootMoves = Objects.requireNonNull(rootMoves);
+    }
+
+    /**
+     * Called before the workers are submitted, which makes the writes here visible to them.
+     */
+    void startIteration(int bound) {
+      this.bound = bound;
+      nextRootMove.set(0);
+      nextBound.set(Integer.MAX_VALUE);
+    }
+
+    void foundSolution(int rootMove, int[] path, int pathSize) {
+      var moves = new GamePlayer.MoveList(null, 0, MoveCode.NONE).branch(rootMove);
+      for (int i = 0; i < pathSize; i++) {
+        moves = moves.branch(path[i]);
+      }
+      if (solution.compareAndSet(null, moves)) {
+        stop.set(true);
+      }
+    }
+  }
+
+  private final class Worker implements Callable<Void> {
+    private final Search search;
+    private final MutableFreeCell game;
+    private final TranspositionTable visitedGames;
+    private final BlockerHeuristic heuristic = new BlockerHeuristic();
+    private IntMoveBuffer[] movesByDepth = new IntMoveBuffer[0];
+    private int[] path = new int[256];
+    private long unreportedExpansions;
+
+    Worker(Search search) {
+      this.search = search;
+      this.game = MutableFreeCell.copyOf(search.start);
+      this.visitedGames = new ArrayTranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    }
+
+    @Override
+    public Void call() {
+      visitedGames.clear();
+      visitedGames.visit(game.zobrist(), 0);
+      int minExceeded = Integer.MAX_VALUE;
+      int index;
+      while (!search.stop.get() && (index = search.nextRootMove.getAndIncrement()) < search.rootMoves.size()) {
+        int rootMove = search.rootMoves.get(index);
+        game.playEncoded(rootMove);
+        if (visitedGames.visit(game.zobrist(), 1)) {
+          int t = search(1, search.bound);
+          if (t == FOUND) {
+            search.foundSolution(rootMove, path, game.movesMade() - 1);
+          } else if (t != STOPPED) {
+            minExceeded = Math.min(minExceeded, t);
+          }
+        }
+        while (game.movesMade() != 0) {
+          game.undoEncoded(game.movesMade() == 1 ? rootMove : path[game.movesMade() - 2]);
+        }
+      }
+      search.nextBound.accumulateAndGet(minExceeded, Math::min);
+      search.expansions.add(unreportedExpansions);
+      unreportedExpansions = 0;
+      return null;
+    }
+
+    /**
+     * Searches below the current game, which is {@code g} moves from the start.  Returns {@link #FOUND} leaving the
+     * winning moves played, {@link #STOPPED} if the search should end, or else the smallest cost above the bound.
+     */
+    private int search(int g, int bound) {
+      int f = f(g, heuristic.estimate(game));
+      if (f > bound) {
+        return f;
+      }
+      if (game.gameWon()) {
+        return FOUND;
+      }
+      if (++unreportedExpansions == CHECK_INTERVAL) {
+        search.expansions.add(unreportedExpansions);
+        unreportedExpansions = 0;
+        if (search.expansions.sum() >= maxExpansions || Thread.currentThread().isInterrupted()) {
+          search.stop.set(true);
+        }
+      }
+      if (search.stop.get()) {
+        return STOPPED;
+      }
+      IntMoveBuffer moves = moves(g);
+      moves.clear();
+      GamePlay.findAllMoves(moves, game);
+      int minExceeded = Integer.MAX_VALUE;
+      for (int i = 0; i < moves.size(); i++) {
+        int move = moves.get(i);
+        game.playEncoded(move);
+        if (visitedGames.visit(game.zobrist(), g + 1)) {
+          if (g - 1 == path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
+          }
+          path[g - 1] = move;
+          int t = search(g + 1, bound);
+          if (t < 0) {
+            return t;
+          }
+          minExceeded = Math.min(minExceeded, t);
+        }
+        game.undoEncoded(move);
+      }
+      return minExceeded;
+    }
+
+    private IntMoveBuffer moves(int depth) {
+      if (depth >= movesByDepth.length) {
+        int oldLength = movesByDepth.length;
+        movesByDepth = Arrays.copyOf(movesByDepth, Math.max(depth + 1, oldLength * 2));
+        for (int i = oldLength; i < movesByDepth.length; i++) {
+          movesByDepth[i] = new IntMoveBuffer();
+        }
+      }
+      return movesByDepth[depth];
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * The shortest solution found by any search in a run.  Every running {@link GamePlay} reads it, so a solution found on
+ * one thread immediately prunes the games searched on all the others.
+ *
+ * <p>Thread safe.
+ */
+final class Incumbent {
+
+  private final AtomicReference<GamePlayer.GameProgress> best = new AtomicReference<>();
+  private final AtomicInteger bestMoves = new AtomicInteger(Integer.MAX_VALUE);
+  private final AtomicInteger improvements = new AtomicInteger();
+
+  /**
+   * Returns the number of moves in the best solution, or {@link Integer#MAX_VALUE} if there is none yet.
+   */
+  int bestMoves() {
+    return bestMoves.get();
+  }
+
+  @Nullable
+  GamePlayer.GameProgress best() {
+    return best.get();
+  }
+
+  /**
+   * Returns the number of times a better solution was offered, so searches can tell that it changed.
+   */
+  int improvements() {
+    return improvements.get();
+  }
+
+  /**
+   * Replaces the best solution if the won game was reached in fewer moves.
+   *
+   * @return {@code true} if the solution was better
+   */
+  boolean offer(GamePlayer.GameProgress solution) {
+    Objects.requireNonNull(solution);
+    int moves = solution.moves().totalMoves();
+    GamePlayer.GameProgress current;
+    do {
+      current = best.get();
+      if (current != null && current.moves().totalMoves() <= moves) {
+        return false;
+      }
+    } while (!best.compareAndSet(current, solution));
+    // Offers may race past each other here, so only ever lower the count.
+    bestMoves.accumulateAndGet(moves, Math::min);
+    improvements.incrementAndGet();
+    return true;
+  }
+}
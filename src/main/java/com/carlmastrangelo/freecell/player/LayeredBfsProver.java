@@ -0,0 +1,191 @@
+package com.carlmastrangelo.freecell.player;
+
+import static com.carlmastrangelo.freecell.PackedFreeCell.PACKED_LONGS;
+
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.PackedFreeCell;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proves whether a game can be won by visiting every game reachable from it, breadth first.  Unlike {@link GamePlay},
+ * no game is ever forgotten, so {@link GamePlay.Status#UNWINNABLE} means there is no way to win.
+ *
+ * <p>Games are {@link FreeCell#canonical() canonical} and {@link PackedFreeCell#pack packed} into seven {@code long}s,
+ * and kept in {@link LongRecordSet}s sharded by hash.  Each layer is expanded by all threads at once, each taking
+ * slices of the layer in turn.  A thread adds the games it reaches to their shard under the shard's lock, and new games
+ * go into the shard's part of the next layer.
+ *
+ * <p>Threads expand games with {@link GamePlay#findAllMoves}, which plays a safe move home on its own and otherwise
+ * tries every legal move.
+ */
+final class LayeredBfsProver {
+
+  private static final int SHARD_BITS = 8;
+  private static final int SHARDS = 1 << SHARD_BITS;
+
+  /**
+   * The most games a thread expands before taking the next slice of the layer.
+   */
+  private static final int SLICE_GAMES = 1 << 12;
+
+  private final long maxGames;
+  private final int parallelism;
+
+  LayeredBfsProver(long maxGames, int parallelism) {
+    if (maxGames <= 0) {
+      throw new IllegalArgumentException("bad max games " + maxGames);
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("bad parallelism " + parallelism);
+    }
+    this.maxGames = maxGames;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * @param moves the number of moves in the shortest win, if the status is {@link GamePlay.Status#SUCCESS}
+   * @param games the number of distinct games visited
+   * @param layers the number of layers expanded
+   */
+  record Result(GamePlay.Status status, int moves, long games, int layers) {}
+
+  Result prove(FreeCell start) {
+    if (start.gameWon()) {
+      return new Result(GamePlay.Status.SUCCESS, 0, 1, 0);
+    }
+    var shards = new Shard[SHARDS];
+    for (int i = 0; i < SHARDS; i++) {
+      shards[i] = new Shard();
+    }
+    long[] record = new long[PACKED_LONGS];
+    PackedFreeCell.copyOf(start).canonical().pack(record, 0);
+    long startHash = LongRecordSet.hash(record, 0, PACKED_LONGS);
+    shards[shard(startHash)].add(record, startHash);
+    long games = 1;
+
+    var won = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      for (int depth = 0; ; depth++) {
+        var slices = new ArrayList<Slice>();
+        for (Shard shard : shards) {
+          shard.startLayer();
+          for (int from = 0; from < shard.layerSize; from += SLICE_GAMES) {
+            slices.add(new Slice(shard, from, Math.min(shard.layerSize, from + SLICE_GAMES)));
+          }
+        }
+        var nextSlice = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+          workers.add(() -> {
+            expand(slices, nextSlice, shards, won);
+            return null;
+          });
+        }
+        try {
+          for (Future<Void> done : executor.invokeAll(workers)) {
+            done.get();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return new Result(GamePlay.Status.INTERRUPTED, -1, games, depth);
+        } catch (ExecutionException e) {
+          throw new RuntimeException(e.getCause());
+        }
+        if (won.get()) {
+          return new Result(GamePlay.Status.SUCCESS, depth + 1, games, depth + 1);
+        }
+        long added = 0;
+        for (Shard shard : shards) {
+          added += shard.nextSize;
+        }
+        if (added == 0) {
+          return new Result(GamePlay.Status.UNWINNABLE, -1, games, depth + 1);
+        }
+        games += added;
+        if (games >= maxGames) {
+          return new Result(GamePlay.Status.MAX_PLAYS, -1, games, depth + 1);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void expand(List<Slice> slices, AtomicInteger nextSlice, Shard[] shards, AtomicBoolean won) {
+    var moves = new IntMoveBuffer();
+    long[] record = new long[PACKED_LONGS];
+    int index;
+    while (!won.get() && (index = nextSlice.getAndIncrement()) < slices.size()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      Slice slice = slices.get(index);
+      for (int i = slice.from(); i < slice.to(); i++) {
+        PackedFreeCell game = PackedFreeCell.unpack(slice.shard().layer, i * PACKED_LONGS);
+        moves.clear();
+        GamePlay.findAllMoves(moves, game);
+        for (int m = 0; m < moves.size(); m++) {
+          PackedFreeCell next = (PackedFreeCell) game.playEncoded(moves.get(m));
+          if (next.gameWon()) {
+            won.set(true);
+            return;
+          }
+          next.canonical().pack(record, 0);
+          long hash = LongRecordSet.hash(record, 0, PACKED_LONGS);
+          shards[shard(hash)].add(record, hash);
+        }
+      }
+    }
+  }
+
+  private static int shard(long hash) {
+    return (int) (hash >>> (Long.SIZE - SHARD_BITS));
+  }
+
+  private record Slice(Shard shard, int from, int to) {}
+
+  /**
+   * The games seen whose hashes start with the same bits, and which of them were first seen in the current and next
+   * layers.  The current layer is only read while it is being expanded, and the rest only written under the lock.
+   */
+  private static final class Shard {
+    final LongRecordSet seen = new LongRecordSet(PACKED_LONGS, 0);
+    long[] layer = new long[0];
+    int layerSize;
+    long[] next = new long[PACKED_LONGS * 16];
+    int nextSize;
+
+    synchronized void add(long[] record, long hash) {
+      if (!seen.add(record, 0, hash)) {
+        return;
+      }
+      if ((nextSize + 1) * PACKED_LONGS > next.length) {
+        next = Arrays.copyOf(next, next.length * 2);
+      }
+      System.arraycopy(record, 0, next, nextSize * PACKED_LONGS, PACKED_LONGS);
+      nextSize++;
+    }
+
+    /**
+     * Makes the games added since the last call the layer to expand.
+     */
+    synchronized void startLayer() {
+      long[] old = layer;
+      layer = next;
+      layerSize = nextSize;
+      next = old.length != 0 ? old : new long[PACKED_LONGS * 16];
+      nextSize = 0;
+    }
+  }
+}
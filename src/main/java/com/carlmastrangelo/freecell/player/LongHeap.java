@@ -0,0 +1,71 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min heap of {@code long}s.  Callers pack an entry's priority into the high bits and its payload into the low
+ * bits, so that queueing an entry costs 8 bytes and allocates nothing.
+ *
+ * <p>Not thread safe.
+ */
+final class LongHeap {
+
+  private long[] heap = new long[64];
+  private int size;
+
+  void add(long value) {
+    if (size == heap.length) {
+      if (size == Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("too many values");
+      }
+      heap = Arrays.copyOf(heap, (int) Math.min(Integer.MAX_VALUE - 8, heap.length * 2L));
+    }
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heap[parent] <= value) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = value;
+  }
+
+  /**
+   * Removes and returns the smallest value.
+   *
+   * @throws NoSuchElementException if the heap is empty
+   */
+  long poll() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    long min = heap[0];
+    long value = heap[--size];
+    int i = 0;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (value <= heap[child]) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = value;
+    return min;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+}
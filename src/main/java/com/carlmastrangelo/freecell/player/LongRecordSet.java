@@ -0,0 +1,121 @@
+package com.carlmastrangelo.freecell.player;
+
+/**
+ * A hash set of fixed width records of {@code long}s.  The records are stored back to back in a single array, with a
+ * bitmap marking which slots are used, so each record costs its width plus a bit, divided by the load factor.  Uses
+ * linear probing, and doubles in size when three quarters full.
+ *
+ * <p>Not thread safe.
+ */
+final class LongRecordSet {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private final int width;
+  private final int maxCapacity;
+  private long[] records;
+  private long[] used;
+  private int mask;
+  private int size;
+
+  LongRecordSet(int width, int expectedSize) {
+    if (width <= 0) {
+      throw new IllegalArgumentException("bad width " + width);
+    }
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("bad expected size " + expectedSize);
+    }
+    this.width = width;
+    this.maxCapacity = Integer.highestOneBit((Integer.MAX_VALUE - 8) / width);
+    int capacity = MIN_CAPACITY;
+    while (capacity < maxCapacity && capacity - capacity / 4 < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * Mixes the record's values into a hash, for callers that want to pick a set to add the record to.
+   */
+  static long hash(long[] src, int offset, int width) {
+    long hash = 0;
+    for (int i = 0; i < width; i++) {
+      hash = Long.rotateLeft(hash ^ src[offset + i], 23) * 0x9E3779B97F4A7C15L;
+    }
+    return hash ^ (hash >>> 29);
+  }
+
+  /**
+   * Adds a copy of the record, unless an equal one is already present.
+   *
+   * @param hash the {@link #hash} of the record
+   * @return {@code true} if the record was added
+   */
+  boolean add(long[] src, int offset, long hash) {
+    assert hash == hash(src, offset, width);
+    int slot = find(src, offset, hash);
+    if (isUsed(slot)) {
+      return false;
+    }
+    if (size == (mask + 1) - (mask + 1) / 4) {
+      grow();
+      slot = find(src, offset, hash);
+    }
+    used[slot >>> 6] |= 1L << slot;
+    System.arraycopy(src, offset, records, slot * width, width);
+    size++;
+    return true;
+  }
+
+  boolean contains(long[] src, int offset, long hash) {
+    assert hash == hash(src, offset, width);
+    return isUsed(find(src, offset, hash));
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the slot holding the record, or the empty slot where it would go.
+   */
+  private int find(long[] src, int offset, long hash) {
+    int slot = (int) hash & mask;
+    while (isUsed(slot) && !matches(slot, src, offset)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean isUsed(int slot) {
+    return (used[slot >>> 6] & (1L << slot)) != 0;
+  }
+
+  private boolean matches(int slot, long[] src, int offset) {
+    return LongRecords.compare(records, slot * width, src, offset, width) == 0;
+  }
+
+  private void allocate(int capacity) {
+    records = new long[capacity * width];
+    used = new long[Math.max(1, capacity >>> 6)];
+    mask = capacity - 1;
+  }
+
+  private void grow() {
+    int capacity = mask + 1;
+    if (capacity == maxCapacity) {
+      throw new IllegalStateException("set is full at " + size + " records");
+    }
+    long[] oldRecords = records;
+    long[] oldUsed = used;
+    allocate(capacity << 1);
+    for (int slot = 0; slot < capacity; slot++) {
+      if ((oldUsed[slot >>> 6] & (1L << slot)) != 0) {
+        int offset = slot * width;
+        int newSlot = find(oldRecords, offset, hash(oldRecords, offset, width));
+        used[newSlot >>> 6] |= 1L << newSlot;
+        System.arraycopy(oldRecords, offset, records, newSlot * width, width);
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.util.Arrays;
+
+/**
+ * Sorts fixed width records of {@code long}s, stored back to back in an array.  Records are ordered by comparing their
+ * values in turn, as signed {@code long}s.  Any consistent order would do, since the order is only used to merge
+ * sorted runs and find duplicates.
+ */
+final class LongRecords {
+
+  private static final int INSERTION_SORT_RECORDS = 16;
+
+  static int compare(long[] a, int aOffset, long[] b, int bOffset, int width) {
+    return Arrays.compare(a, aOffset, aOffset + width, b, bOffset, bOffset + width);
+  }
+
+  /**
+   * Sorts the first {@code count} records in place.
+   */
+  static void sort(long[] records, int count, int width) {
+    assert (long) count * width <= records.length;
+    sort(records, 0, count - 1, width, new long[width]);
+  }
+
+  /**
+   * Removes repeated records from the first {@code count} records, which must be sorted.
+   *
+   * @return the number of distinct records, which are moved to the front of the array
+   */
+  static int removeDuplicates(long[] records, int count, int width) {
+    if (count == 0) {
+      return 0;
+    }
+    int kept = 1;
+    for (int i = 1; i < count; i++) {
+      if (compare(records, i * width, records, (kept - 1) * width, width) != 0) {
+        if (kept != i) {
+          System.arraycopy(records, i * width, records, kept * width, width);
+        }
+        kept++;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Quicksorts records {@code [lo, hi]}, recursing into the smaller side so the stack stays shallow.
+   */
+  private static void sort(long[] records, int lo, int hi, int width, long[] pivot) {
+    while (hi - lo >= INSERTION_SORT_RECORDS) {
+      int mid = (lo + hi) >>> 1;
+      // Median of three, left at mid.
+      if (compare(records, mid * width, records, lo * width, width) < 0) {
+        swap(records, mid, lo, width);
+      }
+      if (compare(records, hi * width, records, lo * width, width) < 0) {
+        swap(records, hi, lo, width);
+      }
+      if (compare(records, hi * width, records, mid * width, width) < 0) {
+        swap(records, hi, mid, width);
+      }
+      System.arraycopy(records, mid * width, pivot, 0, width);
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (compare(records, i * width, pivot, 0, width) < 0) {
+          i++;
+        }
+        while (compare(records, j * width, pivot, 0, width) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          swap(records, i++, j--, width);
+        }
+      }
+      if (j - lo < hi - i) {
+        sort(records, lo, j, width, pivot);
+        lo = i;
+      } else {
+        sort(records, i, hi, width, pivot);
+        hi = j;
+      }
+    }
+    for (int i = lo + 1; i <= hi; i++) {
+      for (int j = i; j > lo && compare(records, (j - 1) * width, records, j * width, width) > 0; j--) {
+        swap(records, j - 1, j, width);
+      }
+    }
+  }
+
+  private static void swap(long[] records, int i, int j, int width) {
+    int a = i * width;
+    int b = j * width;
+    for (int k = 0; k < width; k++) {
+      long tmp = records[a + k];
+      records[a + k] = records[b + k];
+      records[b + k] = tmp;
+    }
+  }
+
+  private LongRecords() {}
+}
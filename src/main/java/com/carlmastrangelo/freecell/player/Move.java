@@ -2,12 +2,40 @@ package com.carlmastrangelo.freecell.player;
 
 import com.carlmastrangelo.freecell.Card;
 import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.MoveCode;
+import com.carlmastrangelo.freecell.MutableFreeCell;
 
 sealed interface Move
     permits Move.MoveToHomeCellFromTableau, Move.MoveToFreeCellFromTableau, Move.MoveToTableauFromTableau,
     Move.MoveToHomeCellFromFreeCell, Move.MoveToTableauFromFreeCell {
+
+  /**
+   * Converts a {@link MoveCode encoded move} back into a move, such as for describing it.
+   */
+  static Move decode(int move) {
+    return switch (MoveCode.kind(move)) {
+      case MoveCode.HOME_FROM_TABLEAU -> new MoveToHomeCellFromTableau(MoveCode.src(move));
+      case MoveCode.FREE_CELL_FROM_TABLEAU -> new MoveToFreeCellFromTableau(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_TABLEAU ->
+          new MoveToTableauFromTableau(MoveCode.dst(move), MoveCode.src(move), MoveCode.count(move));
+      case MoveCode.HOME_FROM_FREE_CELL -> new MoveToHomeCellFromFreeCell(MoveCode.src(move));
+      case MoveCode.TABLEAU_FROM_FREE_CELL -> new MoveToTableauFromFreeCell(MoveCode.dst(move), MoveCode.src(move));
+      default -> throw new IllegalArgumentException("bad move " + move);
+    };
+  }
+
   FreeCell play(FreeCell game);
 
+  /**
+   * Plays this move on the board in place.
+   */
+  void apply(MutableFreeCell game);
+
+  /**
+   * Reverts this move, which must be the most recent move applied to the board.
+   */
+  void undo(MutableFreeCell game);
+
   /**
    * May be called before {@link #play(FreeCell)}, but not after.  Describes the move about to be done.
    */
@@ -19,6 +47,16 @@ sealed interface Move
       return game.moveToHomeCellFromTableau(tableauCol);
     }
 
+    @Override
+    public void apply(MutableFreeCell game) {
+      game.moveToHomeCellFromTableau(tableauCol);
+    }
+
+    @Override
+    public void undo(MutableFreeCell game) {
+      game.undoMoveToHomeCellFromTableau(tableauCol);
+    }
+
     @Override
     public void describe(StringBuilder sb, FreeCell game) {
       Card card = game.peekTableau(tableauCol);
@@ -32,6 +70,16 @@ sealed interface Move
       return game.moveToFreeCellFromTableau(tableauCol);
     }
 
+    @Override
+    public void apply(MutableFreeCell game) {
+      game.moveToFreeCellFromTableau(tableauCol);
+    }
+
+    @Override
+    public void undo(MutableFreeCell game) {
+      game.undoMoveToFreeCellFromTableau(tableauCol);
+    }
+
     @Override
     public void describe(StringBuilder sb, FreeCell game) {
       Card card = game.peekTableau(tableauCol);
@@ -47,6 +95,16 @@ sealed interface Move
       return game.moveToTableauFromTableau(dstTableauCol, srcTableauCol, count);
     }
 
+    @Override
+    public void apply(MutableFreeCell game) {
+      game.moveToTableauFromTableau(dstTableauCol, srcTableauCol, count);
+    }
+
+    @Override
+    public void undo(MutableFreeCell game) {
+      game.undoMoveToTableauFromTableau(dstTableauCol, srcTableauCol, count);
+    }
+
     @Override
     public void describe(StringBuilder sb, FreeCell game) {
       Card srcCard = game.peekTableau(srcTableauCol);
@@ -66,6 +124,16 @@ sealed interface Move
       return game.moveToHomeCellFromFreeCell(freeCol);
     }
 
+    @Override
+    public void apply(MutableFreeCell game) {
+      game.moveToHomeCellFromFreeCell(freeCol);
+    }
+
+    @Override
+    public void undo(MutableFreeCell game) {
+      game.undoMoveToHomeCellFromFreeCell(freeCol);
+    }
+
     @Override
     public void describe(StringBuilder sb, FreeCell game) {
       Card card = game.peekFreeCell(freeCol);
@@ -79,6 +147,16 @@ sealed interface Move
       return game.moveToTableauFromFreeCell(dstTableauCol, freeCol);
     }
 
+    @Override
+    public void apply(MutableFreeCell game) {
+      game.moveToTableauFromFreeCell(dstTableauCol, freeCol);
+    }
+
+    @Override
+    public void undo(MutableFreeCell game) {
+      game.undoMoveToTableauFromFreeCell(dstTableauCol, freeCol);
+    }
+
     @Override
     public void describe(StringBuilder sb, FreeCell game) {
       Card srcCard = game.peekFreeCell(freeCol);
@@ -0,0 +1,189 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.FreeCellView;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Drops moves that can't lead anywhere new before they are played, using a set of {@link Rule}s.  Counts the moves
+ * found and kept, so the branching factor with and without the rules can be compared.
+ *
+ * <p>Thread safe, so one pruner can count the moves of many searches.
+ */
+final class MovePruner {
+
+  enum Rule {
+    /**
+     * Don't undo the last move by moving the same cards straight back.  The game before it was already seen.  A card
+     * moved to a free cell is only known to be the one moved back if it is the last card moved, since free cells don't
+     * keep their order.
+     */
+    NO_REVERSE {
+      @Override
+      boolean prunes(FreeCell game, int move, int lastMove, @Nullable Card lastCard) {
+        return switch (MoveCode.kind(lastMove)) {
+          case MoveCode.TABLEAU_FROM_TABLEAU -> move == MoveCode.tableauFromTableau(
+              MoveCode.src(lastMove), MoveCode.dst(lastMove), MoveCode.count(lastMove));
+          case MoveCode.TABLEAU_FROM_FREE_CELL -> move == MoveCode.freeCellFromTableau(MoveCode.dst(lastMove));
+          case MoveCode.FREE_CELL_FROM_TABLEAU ->
+              MoveCode.kind(move) == MoveCode.TABLEAU_FROM_FREE_CELL
+                  && MoveCode.dst(move) == MoveCode.src(lastMove)
+                  && lastCard != null && game.peekFreeCell(MoveCode.src(move)) == lastCard;
+          default -> false;
+        };
+      }
+    },
+    /**
+     * Only move to the first empty column.  Games are hashed without regard to column order, so moving to any other
+     * empty column reaches the same game.
+     */
+    EMPTY_COLUMN_SYMMETRY {
+      @Override
+      boolean prunes(FreeCell game, int move, int lastMove, @Nullable Card lastCard) {
+        if (!movesToEmptyColumn(game, move)) {
+          return false;
+        }
+        for (int col = 0; col < MoveCode.dst(move); col++) {
+          if (game.peekTableau(col) == null) {
+            return true;
+          }
+        }
+        return false;
+      }
+    },
+    /**
+     * Don't move a whole column to an empty column, which only swaps the columns.
+     */
+    WHOLE_COLUMN_TO_EMPTY {
+      @Override
+      boolean prunes(FreeCell game, int move, int lastMove, @Nullable Card lastCard) {
+        return MoveCode.kind(move) == MoveCode.TABLEAU_FROM_TABLEAU
+            && movesToEmptyColumn(game, move)
+            && MoveCode.count(move) == game.tableauSize(MoveCode.src(move));
+      }
+    },
+    /**
+     * Only move the longest run that fits to an empty column.  Unlike the other rules, this can drop the only way to
+     * win, when part of a run needs to stay behind, but that is rare.
+     */
+    MAXIMAL_RUN_TO_EMPTY {
+      @Override
+      boolean prunes(FreeCell game, int move, int lastMove, @Nullable Card lastCard) {
+        return MoveCode.kind(move) == MoveCode.TABLEAU_FROM_TABLEAU
+            && movesToEmptyColumn(game, move)
+            && MoveCode.count(move) < game.stackSize(MoveCode.src(move))
+            && game.canMoveToTableauFromTableau(MoveCode.dst(move), MoveCode.src(move), MoveCode.count(move) + 1);
+      }
+    },
+    ;
+
+    /**
+     * Returns if the move shouldn't be played.
+     *
+     * @param lastMove the move that reached the game, or {@link MoveCode#NONE} if not known
+     * @param lastCard the {@link #movedCard card moved} by the last move, or {@code null} if not known
+     */
+    abstract boolean prunes(FreeCell game, int move, int lastMove, @Nullable Card lastCard);
+  }
+
+  private final Rule[] rules;
+  private final LongAdder expansions = new LongAdder();
+  private final LongAdder movesFound = new LongAdder();
+  private final LongAdder movesKept = new LongAdder();
+  private final EnumMap<Rule, LongAdder> pruned = new EnumMap<>(Rule.class);
+
+  MovePruner(Set<Rule> rules) {
+    this.rules = rules.toArray(new Rule[0]);
+    for (Rule rule : Rule.values()) {
+      pruned.put(rule, new LongAdder());
+    }
+  }
+
+  /**
+   * Returns a pruner with only the rules that never drop the only way to win.
+   */
+  static MovePruner safeRules() {
+    return new MovePruner(EnumSet.of(Rule.NO_REVERSE, Rule.EMPTY_COLUMN_SYMMETRY, Rule.WHOLE_COLUMN_TO_EMPTY));
+  }
+
+  /**
+   * Returns a pruner with every rule, including {@link Rule#MAXIMAL_RUN_TO_EMPTY}, which can make a game unwinnable.
+   */
+  static MovePruner allRules() {
+    return new MovePruner(EnumSet.allOf(Rule.class));
+  }
+
+  /**
+   * Removes the moves any rule prunes from the buffer, keeping the order of the rest.
+   *
+   * @param lastMove the move that reached the game, or {@link MoveCode#NONE} if not known
+   * @param lastCard the {@link #movedCard card moved} by the last move, or {@code null} if not known
+   */
+  void prune(IntMoveBuffer moves, FreeCell game, int lastMove, @Nullable Card lastCard) {
+    int found = moves.size();
+    int kept = 0;
+    nextMove:
+    for (int i = 0; i < found; i++) {
+      int move = moves.get(i);
+      for (Rule rule : rules) {
+        if (rule.prunes(game, move, lastMove, lastCard)) {
+          pruned.get(rule).increment();
+          continue nextMove;
+        }
+      }
+      moves.set(kept++, move);
+    }
+    moves.truncate(kept);
+    expansions.increment();
+    movesFound.add(found);
+    movesKept.add(kept);
+  }
+
+  /**
+   * Returns the card the move will move, given the game before it.  If the move moves several cards, returns the top
+   * one.
+   */
+  static Card movedCard(FreeCellView game, int move) {
+    return switch (MoveCode.kind(move)) {
+      case MoveCode.HOME_FROM_TABLEAU, MoveCode.FREE_CELL_FROM_TABLEAU, MoveCode.TABLEAU_FROM_TABLEAU ->
+          game.peekTableau(MoveCode.src(move));
+      case MoveCode.HOME_FROM_FREE_CELL, MoveCode.TABLEAU_FROM_FREE_CELL -> game.peekFreeCell(MoveCode.src(move));
+      default -> throw new IllegalArgumentException("bad move " + move);
+    };
+  }
+
+  Stats stats() {
+    var counts = new EnumMap<Rule, Long>(Rule.class);
+    pruned.forEach((rule, count) -> counts.put(rule, count.sum()));
+    return new Stats(expansions.sum(), movesFound.sum(), movesKept.sum(), Collections.unmodifiableMap(counts));
+  }
+
+  /**
+   * @param pruned the number of moves each rule pruned.  A move is only counted for the first rule that prunes it.
+   */
+  record Stats(long expansions, long movesFound, long movesKept, Map<Rule, Long> pruned) {
+
+    double branchingBefore() {
+      return expansions == 0 ? 0 : (double) movesFound / expansions;
+    }
+
+    double branchingAfter() {
+      return expansions == 0 ? 0 : (double) movesKept / expansions;
+    }
+  }
+
+  private static boolean movesToEmptyColumn(FreeCell game, int move) {
+    int kind = MoveCode.kind(move);
+    return (kind == MoveCode.TABLEAU_FROM_TABLEAU || kind == MoveCode.TABLEAU_FROM_FREE_CELL)
+        && game.peekTableau(MoveCode.dst(move)) == null;
+  }
+}
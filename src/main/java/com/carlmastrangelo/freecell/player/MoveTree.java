@@ -0,0 +1,187 @@
+package com.carlmastrangelo.freecell.player;
+
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The moves made in a search, kept as a tree of nodes in primitive arrays instead of as {@link GamePlayer.MoveList}
+ * objects.  Each node is a single {@code long} holding the index of its parent, its depth and its move, so queued games
+ * refer to their moves by index, and the nodes they share with other games cost 8 bytes each.  The moves leading to a
+ * node are rebuilt by walking up its parents.
+ *
+ * <p>Nodes are never removed, and are kept in fixed size pages so that growing the tree doesn't copy it.
+ *
+ * <p>Searches that spread games over threads give each thread its own tree.  A thread continuing from a game whose
+ * moves are in another thread's tree first adds a {@link #addLink link} to that node, and the moves are rebuilt across
+ * trees with {@link #moves(MoveTree[], int, int, GamePlayer.MoveList)} once the threads are done.
+ */
+final class MoveTree {
+
+  /**
+   * The parent of a root node.
+   */
+  static final int NO_PARENT = -1;
+
+  /**
+   * The most moves a node can be from its root.
+   */
+  static final int MAX_DEPTH = (1 << 16) - 1;
+
+  /**
+   * The most trees links can refer to.
+   */
+  static final int MAX_TREES = 1 << 15;
+
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private static final int MOVE_BITS = 16;
+  private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+  private static final int DEPTH_SHIFT = MOVE_BITS;
+  private static final long DEPTH_MASK = MAX_DEPTH;
+  private static final int PARENT_SHIFT = 32;
+  /**
+   * Set in the move of a link, whose other move bits hold the linked tree.  Moves never use it.
+   */
+  private static final int LINK_FLAG = 1 << 15;
+
+  private long[][] pages = new long[16][];
+  private int size;
+
+  /**
+   * Adds a root node, for the game a search starts from.
+   */
+  int addRoot() {
+    return add(NO_PARENT, 0, 0);
+  }
+
+  /**
+   * Adds a node for the game reached by playing the {@link MoveCode encoded move} in the parent node's game.
+   *
+   * @return the index of the new node
+   */
+  int add(int parent, int move) {
+    Objects.checkIndex(parent, size);
+    assert move >= 0 && move < LINK_FLAG;
+    int depth = depth(parent) + 1;
+    if (depth > MAX_DEPTH) {
+      throw new IllegalStateException("too many moves " + depth);
+    }
+    return add(parent, depth, move);
+  }
+
+  /**
+   * Adds a node standing for a node of another tree, so that games reached from it can be added to this tree.  The
+   * link has the same depth, and no move of its own.
+   *
+   * @param tree the index of the other tree, in the array later given to
+   *     {@link #moves(MoveTree[], int, int, GamePlayer.MoveList)}
+   * @param node the index of the node in the other tree
+   * @param depth the depth of the node in the other tree
+   * @return the index of the link
+   */
+  int addLink(int tree, int node, int depth) {
+    Objects.checkIndex(tree, MAX_TREES);
+    if (node < 0) {
+      throw new IllegalArgumentException("bad node " + node);
+    }
+    if (depth < 0 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("bad depth " + depth);
+    }
+    return add(node, depth, LINK_FLAG | tree);
+  }
+
+  private int add(int parent, int depth, int move) {
+    if (size == Integer.MAX_VALUE) {
+      throw new IllegalStateException("too many nodes");
+    }
+    int page = size >>> PAGE_BITS;
+    if (page == pages.length) {
+      pages = Arrays.copyOf(pages, pages.length * 2);
+    }
+    if (pages[page] == null) {
+      pages[page] = new long[PAGE_SIZE];
+    }
+    pages[page][size & PAGE_MASK] = (long) parent << PARENT_SHIFT | (long) depth << DEPTH_SHIFT | move;
+    return size++;
+  }
+
+  /**
+   * Returns the parent of the node, {@link #NO_PARENT} for a root, or the linked node in its own tree for a link.
+   */
+  int parent(int node) {
+    return (int) (entry(node) >> PARENT_SHIFT);
+  }
+
+  /**
+   * Returns the move that reached the node, or {@link MoveCode#NONE} for a root or a link.
+   */
+  int move(int node) {
+    long entry = entry(node);
+    int move = (int) (entry & MOVE_MASK);
+    return (entry >> PARENT_SHIFT) == NO_PARENT || (move & LINK_FLAG) != 0 ? MoveCode.NONE : move;
+  }
+
+  boolean isLink(int node) {
+    long entry = entry(node);
+    return (entry >> PARENT_SHIFT) != NO_PARENT && (entry & LINK_FLAG) != 0;
+  }
+
+  /**
+   * Returns the index of the tree a link refers to.
+   */
+  int linkedTree(int node) {
+    if (!isLink(node)) {
+      throw new IllegalArgumentException("not a link " + node);
+    }
+    return (int) (entry(node) & MOVE_MASK & ~LINK_FLAG);
+  }
+
+  /**
+   * Returns the number of moves from the root to the node.
+   */
+  int depth(int node) {
+    return (int) ((entry(node) >>> DEPTH_SHIFT) & DEPTH_MASK);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the moves leading to the node, added after the moves of its root.
+   */
+  GamePlayer.MoveList moves(int node, GamePlayer.MoveList rootMoves) {
+    return moves(new MoveTree[] {this}, 0, node, rootMoves);
+  }
+
+  /**
+   * Returns the moves leading to the node of one of the trees, following links between them, added after the moves of
+   * the root.  No tree may be changing.
+   */
+  static GamePlayer.MoveList moves(MoveTree[] trees, int tree, int node, GamePlayer.MoveList rootMoves) {
+    int[] moves = new int[trees[tree].depth(node)];
+    int i = moves.length;
+    while (i > 0) {
+      MoveTree current = trees[tree];
+      if (current.isLink(node)) {
+        tree = current.linkedTree(node);
+      } else {
+        moves[--i] = current.move(node);
+      }
+      node = current.parent(node);
+    }
+    GamePlayer.MoveList list = rootMoves;
+    for (int move : moves) {
+      list = list.branch(move);
+    }
+    return list;
+  }
+
+  private long entry(int node) {
+    Objects.checkIndex(node, size);
+    return pages[node >>> PAGE_BITS][node & PAGE_MASK];
+  }
+}
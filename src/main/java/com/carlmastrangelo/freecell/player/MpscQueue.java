@@ -0,0 +1,62 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * An unbounded, lock free queue that many threads may add to but only one thread may take from.  Adding is a single
+ * atomic swap of the tail, so producers never retry or wait on each other.
+ *
+ * <p>An element added by another thread may briefly not be visible to {@link #poll}, between the swap and the link
+ * from the previous element being written.  Callers that need to know that nothing is in flight must count elements
+ * themselves.
+ */
+final class MpscQueue<E> {
+
+  private static final class Link<E> {
+    @Nullable
+    E value;
+    @Nullable
+    volatile Link<E> next;
+
+    Link(@Nullable E value) {
+      this.value = value;
+    }
+  }
+
+  /**
+   * The last link taken, whose value is already cleared.  Only read and written by the consumer.
+   */
+  private Link<E> head;
+  private final AtomicReference<Link<E>> tail;
+
+  MpscQueue() {
+    head = new Link<>(null);
+    tail = new AtomicReference<>(head);
+  }
+
+  /**
+   * Adds the element.  May be called from any thread.
+   */
+  void offer(E e) {
+    var link = new Link<>(Objects.requireNonNull(e));
+    Link<E> previous = tail.getAndSet(link);
+    previous.next = link;
+  }
+
+  /**
+   * Takes the oldest visible element, or returns {@code null} if none is.  Only called by the consumer thread.
+   */
+  @Nullable
+  E poll() {
+    Link<E> next = head.next;
+    if (next == null) {
+      return null;
+    }
+    E value = next.value;
+    next.value = null;
+    head = next;
+    return value;
+  }
+}
@@ -0,0 +1,73 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records written by a {@link RecordWriter} in order.  The file is memory mapped a window at a time, so that
+ * files larger than memory, or than a single mapping, can be read without copying them onto the heap.
+ */
+final class RecordReader implements Closeable {
+
+  private static final long WINDOW_BYTES = 1L << 26;
+
+  private final FileChannel channel;
+  private final int width;
+  private final long windowBytes;
+  private final long size;
+  private final long[] current;
+  private long position;
+  private MappedByteBuffer window;
+
+  RecordReader(Path file, int width) throws IOException {
+    if (width <= 0) {
+      throw new IllegalArgumentException("bad width " + width);
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.width = width;
+    this.windowBytes = WINDOW_BYTES - WINDOW_BYTES % (width * Long.BYTES);
+    this.size = channel.size();
+    if (size % (width * Long.BYTES) != 0) {
+      channel.close();
+      throw new IOException("truncated record file " + file);
+    }
+    this.current = new long[width];
+  }
+
+  /**
+   * Reads the next record into {@link #current()}.
+   *
+   * @return {@code false} if there are no more records
+   */
+  boolean next() throws IOException {
+    if (window == null || !window.hasRemaining()) {
+      if (position == size) {
+        return false;
+      }
+      long length = Math.min(windowBytes, size - position);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      position += length;
+    }
+    for (int i = 0; i < width; i++) {
+      current[i] = window.getLong();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the record last read by {@link #next()}.  The array is reused for each record.
+   */
+  long[] current() {
+    return current;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+}
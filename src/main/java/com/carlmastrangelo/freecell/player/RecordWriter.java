@@ -0,0 +1,65 @@
+package com.carlmastrangelo.freecell.player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends fixed width records of {@code long}s to a file, for reading back with {@link RecordReader}.
+ */
+final class RecordWriter implements Closeable {
+
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private final FileChannel channel;
+  private final int width;
+  private final ByteBuffer buffer;
+  private long records;
+
+  RecordWriter(Path file, int width) throws IOException {
+    if (width <= 0) {
+      throw new IllegalArgumentException("bad width " + width);
+    }
+    this.channel = FileChannel.open(
+        file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.width = width;
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES - BUFFER_BYTES % (width * Long.BYTES));
+  }
+
+  void write(long[] src, int offset) throws IOException {
+    if (buffer.remaining() < width * Long.BYTES) {
+      flush();
+    }
+    for (int i = 0; i < width; i++) {
+      buffer.putLong(src[offset + i]);
+    }
+    records++;
+  }
+
+  /**
+   * Returns the number of records written so far.
+   */
+  long records() {
+    return records;
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.carlmastrangelo.freecell.player;
+
+/**
+ * Remembers the shallowest depth each game has been reached at, keyed by its 64-bit {@link
+ * com.carlmastrangelo.freecell.FreeCell#zobrist() hash}.  Tables have a fixed capacity, so entries may be forgotten
+ * when the table is full, which only costs re-exploring a game.  Since games are only identified by their hash, two
+ * games with the same hash are treated as the same game.
+ */
+sealed interface TranspositionTable permits ArrayTranspositionTable, ConcurrentTranspositionTable {
+
+  /*
+   * The implementations share one entry layout: the upper 48 bits of the hash together with the depth plus one in the
+   * lower 16 bits, so that zero means empty.  Entries are grouped into buckets of 4, which are picked by the low bits
+   * of the hash.
+   */
+  int BUCKET_SIZE = 4;
+  int DEPTH_BITS = 16;
+  long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+  long TAG_MASK = ~DEPTH_MASK;
+  int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * Records the game as reached at the given depth.  Returns {@code false} if the game has already been reached at the
+   * same or a shallower depth, meaning it doesn't need to be explored again.
+   */
+  boolean visit(long hash, int depth);
+
+  /**
+   * Forgets all games.
+   */
+  void clear();
+
+  Stats stats();
+
+  /**
+   * Returns the number of entries that fit in {@code maxBytes} of memory, rounded down to a power of two.
+   */
+  static int capacity(long maxBytes) {
+    if (maxBytes < (long) Long.BYTES * BUCKET_SIZE) {
+      throw new IllegalArgumentException("budget too small " + maxBytes);
+    }
+    return Integer.highestOneBit((int) Math.min(maxBytes / Long.BYTES, MAX_CAPACITY));
+  }
+
+  /**
+   * Packs the entry for a game reached at the given depth.
+   */
+  static long entry(long hash, int depth) {
+    assert depth >= 0 && depth < DEPTH_MASK;
+    return (hash & TAG_MASK) | (depth + 1);
+  }
+
+  /**
+   * What to do when a game maps to a full bucket.
+   */
+  enum Replacement {
+    /**
+     * Replace the deepest entry in the bucket, unless it is shallower than the new game.  Shallow games prune the most
+     * work, so they are the most valuable to keep.
+     */
+    DEPTH_PREFERRED,
+    /**
+     * Always replace an entry in the bucket, which favors recently seen games.
+     */
+    ALWAYS_REPLACE,
+  }
+
+  /**
+   * @param probes calls to {@link #visit}
+   * @param hits visits that found the game at the same or a shallower depth
+   * @param stores visits that recorded the game, including ones that replaced another game
+   * @param evictions stores that replaced another game
+   * @param rejections visits that didn't record the game because its bucket was full of shallower games, or because
+   *     another thread changed the entry being replaced
+   * @param contention compare-and-sets that failed because another thread changed the entry first
+   */
+  record Stats(long probes, long hits, long stores, long evictions, long rejections, long contention) {
+
+    double hitRate() {
+      return probes == 0 ? 0 : (double) hits / probes;
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.Card.CARDS_BY_ORD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.truth.Truth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Tests that should pass for every {@link FreeCell} implementation.
+ */
+@RunWith(Parameterized.class)
+public class FreeCellTest {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static List<Object[]> impls() {
+    return List.of(new Object[]{Impl.FORK}, new Object[]{Impl.PACKED});
+  }
+
+  @Parameterized.Parameter
+  public Impl impl;
+
+  @Test
+  public void dealDeck() {
+    FreeCell game = impl.dealDeck();
+    assertFalse(game.gameWon());
+  }
+
+  @Test
+  public void dealDeck_won() {
+    FreeCell game =
+        impl.dealDeck(
+            List.of(Card.KING_CLUBS, Card.KING_SPADES, Card.KING_DIAMONDS, Card.KING_HEARTS),
+            List.of(),
+            List.of());
+    assertTrue(game.gameWon());
+  }
+
+  @Test
+  public void dealDeck_homeContainsSameDuplicates() {
+    IllegalArgumentException failure = Assert.assertThrows(IllegalArgumentException.class, () -> impl.dealDeck(
+        List.of(Card.KING_CLUBS, Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS),
+        List.of(),
+        List.of()));
+    Truth.assertThat(failure).hasMessageThat().contains("Card already used");
+  }
+
+  @Test
+  public void dealDeck_homeContainsDiffDuplicates() {
+    IllegalArgumentException failure = Assert.assertThrows(IllegalArgumentException.class, () -> impl.dealDeck(
+        List.of(Card.KING_CLUBS, Card.ACE_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS),
+        List.of(),
+        List.of()));
+    Truth.assertThat(failure).hasMessageThat().contains("Card already used");
+  }
+
+  @Test
+  public void dealDeck_homeAndFreeContainsDiffDuplicates() {
+    IllegalArgumentException failure = Assert.assertThrows(IllegalArgumentException.class, () -> impl.dealDeck(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS),
+        List.of(Card.ACE_CLUBS),
+        List.of()));
+    Truth.assertThat(failure).hasMessageThat().contains("Card already used");
+  }
+
+  @Test
+  public void dealDeck_homeAndFreeContainsSameDuplicates() {
+    IllegalArgumentException failure = Assert.assertThrows(IllegalArgumentException.class, () -> impl.dealDeck(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS),
+        List.of(Card.KING_CLUBS),
+        List.of()));
+    Truth.assertThat(failure).hasMessageThat().contains("Card already used");
+  }
+
+  @Test
+  public void game_toString() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(1));
+    System.out.println(game.toString());
+    game.hashCode();
+  }
+
+  @Test
+  public void canMoveToHomeCellFromTableau() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(3));
+    System.out.println(game.toString());
+    assertTrue(game.canMoveToHomeCellFromTableau(0));
+    game = game.moveToHomeCellFromTableau(0);
+    System.out.println(game.toString());
+  }
+
+  @Test
+  public void moveToFreeCellFromTableau() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(3));
+    System.out.println(game.toString());
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+    System.out.println(game.toString());
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+    System.out.println(game.toString());
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+    System.out.println(game.toString());
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+    System.out.println(game.toString());
+
+    assertFalse(game.canMoveToFreeCellFromTableau(0));
+  }
+
+  @Test
+  public void moveToTableauCellFromFree() {
+    FreeCell game = impl.parse("""
+                          |                 \s
+        TS   TD   6D   6H   5S   3D   8S   KD
+        AS   9H   QS   4H   4S   4D   AH   JS
+        JD   JH   5C   QD   9D   AC   7C   KS
+        2S   3S   5H   6C   2D   TH   AD   7S
+        6S   QC   5D   4C   8C   QH   7D   KC
+        3H   JC   2H   8D   7H   2C   KH   TC
+        9C   8H   3C   9S                   \s
+        """);
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+
+    assertTrue(game.canMoveToFreeCellFromTableau(0));
+    game = game.moveToFreeCellFromTableau(0);
+
+    assertFalse(game.canMoveToFreeCellFromTableau(0));
+  }
+
+  @Test
+  public void parse() {
+    String board = """
+      9C   9D   8H   9S | QS   9H   KD
+                KH        JH   QH   KS   KC
+                QC        TC   JS        QD
+                JD             TH        JC
+                TS                       TD
+                  """;
+    var parsed = impl.parse(board);
+
+    var reparsed = impl.parse(parsed.toString());
+    assertEquals(parsed, reparsed);
+  }
+
+  @Test
+  public void canonical_ignoresColumnOrder() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(4));
+    List<List<Card>> columns = new ArrayList<>();
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      columns.add(game.tableauColStream(col).collect(Collectors.toList()));
+    }
+    Collections.reverse(columns);
+    FreeCell reversed = impl.dealColumns(List.of(), List.of(), columns);
+
+    assertNotEquals(game, reversed);
+    assertEquals(game.canonical(), reversed.canonical());
+    assertEquals(game.canonical(), game.canonical().canonical());
+  }
+
+  @Test
+  public void canonicalColumns_mapsToRealColumns() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(5))
+        .moveToFreeCellFromTableau(2)
+        .moveToFreeCellFromTableau(2)
+        .moveToFreeCellFromTableau(2)
+        .moveToFreeCellFromTableau(2);
+    FreeCell canonical = game.canonical();
+    int[] order = game.canonicalColumns();
+
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      assertEquals(
+          game.tableauColStream(order[col]).collect(Collectors.toList()),
+          canonical.tableauColStream(col).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void canonical_emptyColumnsFirst() {
+    FreeCell game = impl.dealColumns(
+        List.of(),
+        List.of(),
+        List.of(
+            List.of(Card.KING_HEARTS),
+            List.of(),
+            CARDS_BY_ORD.stream().filter(c -> c != Card.KING_HEARTS).collect(Collectors.toList()),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+
+    FreeCell canonical = game.canonical();
+    for (int col = 0; col < FreeCell.TABLEAU_COLS - 2; col++) {
+      assertNull(canonical.peekTableau(col));
+    }
+    assertEquals(Card.KING_SPADES, canonical.peekTableau(FreeCell.TABLEAU_COLS - 2));
+    assertEquals(Card.KING_HEARTS, canonical.peekTableau(FreeCell.TABLEAU_COLS - 1));
+  }
+
+  @Test
+  public void zobrist_matchesFromScratch() {
+    RandomGenerator rng = new SplittableRandom(7);
+    for (int round = 0; round < 50; round++) {
+      FreeCell game = impl.dealDeck(rng);
+      assertEquals(Zobrist.hash(game), game.zobrist());
+      for (int i = 0; i < 100; i++) {
+        List<FreeCell> next = new ArrayList<>();
+        for (int src = 0; src < FreeCell.TABLEAU_COLS; src++) {
+          if (game.canMoveToHomeCellFromTableau(src)) {
+            next.add(game.moveToHomeCellFromTableau(src));
+          }
+          if (game.canMoveToFreeCellFromTableau(src)) {
+            next.add(game.moveToFreeCellFromTableau(src));
+          }
+          for (int dst = 0; dst < FreeCell.TABLEAU_COLS; dst++) {
+            for (int count = 1; count <= game.stackSize(src); count++) {
+              if (game.canMoveToTableauFromTableau(dst, src, count)) {
+                next.add(game.moveToTableauFromTableau(dst, src, count));
+              }
+            }
+          }
+        }
+        for (int free = 0; free < FreeCell.FREE_CELLS; free++) {
+          if (game.canMoveToHomeCellFromFreeCell(free)) {
+            next.add(game.moveToHomeCellFromFreeCell(free));
+          }
+          for (int dst = 0; dst < FreeCell.TABLEAU_COLS; dst++) {
+            if (game.canMoveToTableauFromFreeCell(dst, free)) {
+              next.add(game.moveToTableauFromFreeCell(dst, free));
+            }
+          }
+        }
+        if (next.isEmpty()) {
+          break;
+        }
+        game = next.get(rng.nextInt(next.size()));
+        assertEquals(Zobrist.hash(game), game.zobrist());
+      }
+    }
+  }
+
+  @Test
+  public void findMoves_matchesCanMove() {
+    RandomGenerator rng = new SplittableRandom(8);
+    IntMoveBuffer moves = new IntMoveBuffer();
+    for (int round = 0; round < 50; round++) {
+      FreeCell game = impl.dealDeck(rng);
+      for (int i = 0; i < 100; i++) {
+        List<FreeCell> expected = new ArrayList<>();
+        for (int src = 0; src < FreeCell.TABLEAU_COLS; src++) {
+          if (game.canMoveToHomeCellFromTableau(src)) {
+            expected.add(game.moveToHomeCellFromTableau(src));
+          }
+          if (game.canMoveToFreeCellFromTableau(src)) {
+            expected.add(game.moveToFreeCellFromTableau(src));
+          }
+          for (int dst = 0; dst < FreeCell.TABLEAU_COLS; dst++) {
+            for (int count = 1; count <= Rank.RANK_COUNT; count++) {
+              if (game.canMoveToTableauFromTableau(dst, src, count)) {
+                expected.add(game.moveToTableauFromTableau(dst, src, count));
+              }
+            }
+          }
+        }
+        for (int free = 0; free < FreeCell.FREE_CELLS; free++) {
+          if (game.canMoveToHomeCellFromFreeCell(free)) {
+            expected.add(game.moveToHomeCellFromFreeCell(free));
+          }
+          for (int dst = 0; dst < FreeCell.TABLEAU_COLS; dst++) {
+            if (game.canMoveToTableauFromFreeCell(dst, free)) {
+              expected.add(game.moveToTableauFromFreeCell(dst, free));
+            }
+          }
+        }
+        moves.clear();
+        game.findMoves(moves);
+        List<FreeCell> actual = new ArrayList<>();
+        for (int m = 0; m < moves.size(); m++) {
+          actual.add(game.playEncoded(moves.get(m)));
+        }
+
+        assertEquals(expected, actual);
+        if (actual.isEmpty()) {
+          break;
+        }
+        game = actual.get(rng.nextInt(actual.size()));
+      }
+    }
+  }
+
+  @Test
+  public void zobrist_ignoresColumnOrder() {
+    FreeCell game = impl.dealDeck(new SplittableRandom(6));
+    List<List<Card>> columns = new ArrayList<>();
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      columns.add(game.tableauColStream(col).collect(Collectors.toList()));
+    }
+    Collections.reverse(columns);
+    FreeCell reversed = impl.dealColumns(List.of(), List.of(), columns);
+
+    assertEquals(game.zobrist(), reversed.zobrist());
+    assertEquals(game.zobrist(), game.canonical().zobrist());
+    assertNotEquals(game.zobrist(), game.moveToFreeCellFromTableau(0).zobrist());
+  }
+
+  enum Impl {
+    FORK {
+      @Override
+      FreeCell dealDeck() {
+        return ForkFreeCell.dealDeck();
+      }
+
+      @Override
+      FreeCell dealDeck(RandomGenerator rng) {
+        return ForkFreeCell.dealDeck(rng);
+      }
+
+      @Override
+      FreeCell dealDeck(List<Card> homeCells, List<Card> freeCells, List<Card> tableauCards) {
+        return ForkFreeCell.dealDeck(homeCells, freeCells, tableauCards);
+      }
+
+      @Override
+      FreeCell dealColumns(List<Card> homeCells, List<Card> freeCells, List<? extends List<Card>> tableauColumns) {
+        return ForkFreeCell.dealColumns(homeCells, freeCells, tableauColumns);
+      }
+
+      @Override
+      FreeCell parse(String s) {
+        return ForkFreeCell.parse(s);
+      }
+    },
+    PACKED {
+      @Override
+      FreeCell dealDeck() {
+        return PackedFreeCell.dealDeck();
+      }
+
+      @Override
+      FreeCell dealDeck(RandomGenerator rng) {
+        return PackedFreeCell.dealDeck(rng);
+      }
+
+      @Override
+      FreeCell dealDeck(List<Card> homeCells, List<Card> freeCells, List<Card> tableauCards) {
+        return PackedFreeCell.dealDeck(homeCells, freeCells, tableauCards);
+      }
+
+      @Override
+      FreeCell dealColumns(List<Card> homeCells, List<Card> freeCells, List<? extends List<Card>> tableauColumns) {
+        return PackedFreeCell.dealColumns(homeCells, freeCells, tableauColumns);
+      }
+
+      @Override
+      FreeCell parse(String s) {
+        return PackedFreeCell.parse(s);
+      }
+    },
+    ;
+
+    abstract FreeCell dealDeck();
+
+    abstract FreeCell dealDeck(RandomGenerator rng);
+
+    abstract FreeCell dealDeck(List<Card> homeCells, List<Card> freeCells, List<Card> tableauCards);
+
+    abstract FreeCell dealColumns(
+        List<Card> homeCells, List<Card> freeCells, List<? extends List<Card>> tableauColumns);
+
+    abstract FreeCell parse(String s);
+  }
+}
@@ -0,0 +1,68 @@
+package com.carlmastrangelo.freecell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MicrosoftDealsTest {
+
+  @Test
+  public void cards_deal1() {
+    assertEquals(
+        "JD 2D 9H JC 5D 7H 7C 5H "
+            + "KD KC 9S 5S AD QC KH 3H "
+            + "2S KS 9D QD JS AS AH 3C "
+            + "4C 5C TS QH 4H AC 4D 7S "
+            + "3S TD 4S TH 8H 2C JH 7D "
+            + "6D 8S 8D QS 6C 3D 8C TC "
+            + "6S 9C 2H 6H",
+        symbols(MicrosoftDeals.cards(1)));
+  }
+
+  @Test
+  public void cards_deal617() {
+    assertEquals(
+        "7D AD 5C 3S 5S 8C 2D AH "
+            + "TD 7S QD AC 6D 8H AS KH "
+            + "TH QC 3H 9D 6S 8D 3D TC "
+            + "KD 5H 9S 3C 8S 7H 4D JS "
+            + "4C QS 9C 9H 7C 6H 2C 2S "
+            + "4S TS 2H 5D JC 6C JH QH "
+            + "JD KS KC 4H",
+        symbols(MicrosoftDeals.cards(617)));
+  }
+
+  @Test
+  public void cards_wholeDeck() {
+    for (int deal : new int[] {11982, 32000, Integer.MAX_VALUE}) {
+      assertEquals(new HashSet<>(Card.CARDS_BY_ORD), new HashSet<>(MicrosoftDeals.cards(deal)));
+    }
+  }
+
+  @Test
+  public void deal_rowByRow() {
+    ForkFreeCell game = MicrosoftDeals.deal(1);
+
+    assertEquals(
+        List.of(Card.JACK_DIAMONDS, Card.KING_DIAMONDS, Card.TWO_SPADES, Card.FOUR_CLUBS, Card.THREE_SPADES,
+            Card.SIX_DIAMONDS, Card.SIX_SPADES),
+        game.tableauColStream(0).toList());
+  }
+
+  @Test
+  public void cards_badDealNumber() {
+    assertThrows(IllegalArgumentException.class, () -> MicrosoftDeals.cards(0));
+    assertThrows(IllegalArgumentException.class, () -> MicrosoftDeals.cards(-1));
+  }
+
+  private static String symbols(List<Card> cards) {
+    return cards.stream().map(Card::asciiSymbol).collect(Collectors.joining(" "));
+  }
+}
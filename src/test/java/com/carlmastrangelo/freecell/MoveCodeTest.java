@@ -0,0 +1,49 @@
+package com.carlmastrangelo.freecell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MoveCodeTest {
+
+  @Test
+  public void tableauFromTableau_roundTrips() {
+    for (int dst = 0; dst < FreeCell.TABLEAU_COLS; dst++) {
+      for (int src = 0; src < FreeCell.TABLEAU_COLS; src++) {
+        for (int count = 1; count <= Rank.RANK_COUNT; count++) {
+          int move = MoveCode.tableauFromTableau(dst, src, count);
+
+          assertEquals(MoveCode.TABLEAU_FROM_TABLEAU, MoveCode.kind(move));
+          assertEquals(dst, MoveCode.dst(move));
+          assertEquals(src, MoveCode.src(move));
+          assertEquals(count, MoveCode.count(move));
+          assertNotEquals(MoveCode.NONE, move);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void tableauFromFreeCell_roundTrips() {
+    int move = MoveCode.tableauFromFreeCell(7, 3);
+
+    assertEquals(MoveCode.TABLEAU_FROM_FREE_CELL, MoveCode.kind(move));
+    assertEquals(7, MoveCode.dst(move));
+    assertEquals(3, MoveCode.src(move));
+    assertEquals(1, MoveCode.count(move));
+  }
+
+  @Test
+  public void singleColumnMoves_roundTrip() {
+    assertEquals(MoveCode.HOME_FROM_TABLEAU, MoveCode.kind(MoveCode.homeFromTableau(5)));
+    assertEquals(5, MoveCode.src(MoveCode.homeFromTableau(5)));
+    assertEquals(MoveCode.FREE_CELL_FROM_TABLEAU, MoveCode.kind(MoveCode.freeCellFromTableau(6)));
+    assertEquals(6, MoveCode.src(MoveCode.freeCellFromTableau(6)));
+    assertEquals(MoveCode.HOME_FROM_FREE_CELL, MoveCode.kind(MoveCode.homeFromFreeCell(2)));
+    assertEquals(2, MoveCode.src(MoveCode.homeFromFreeCell(2)));
+  }
+}
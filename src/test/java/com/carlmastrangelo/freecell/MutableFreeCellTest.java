@@ -0,0 +1,180 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MutableFreeCellTest {
+
+  @Test
+  public void snapshot_matchesSource() {
+    ForkFreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(1));
+    MutableFreeCell mutable = MutableFreeCell.copyOf(game);
+
+    assertEquals(game, mutable.snapshot());
+    assertEquals(game.toString(), mutable.toString());
+  }
+
+  @Test
+  public void applyAndUndo_matchesFork() {
+    RandomGenerator rng = new SplittableRandom(2);
+    for (int round = 0; round < 200; round++) {
+      FreeCell game = ForkFreeCell.dealDeck(rng);
+      MutableFreeCell mutable = MutableFreeCell.copyOf(game);
+      Deque<FreeCell> games = new ArrayDeque<>();
+      Deque<TestMove> moves = new ArrayDeque<>();
+      for (int i = 0; i < 150; i++) {
+        List<TestMove> legal = legalMoves(game, mutable);
+        if (legal.isEmpty()) {
+          break;
+        }
+        TestMove move = legal.get(rng.nextInt(legal.size()));
+        games.push(game);
+        moves.push(move);
+        game = move.play(game);
+        move.apply(mutable);
+
+        assertEquals(game, mutable.snapshot());
+        assertEquals(game.zobrist(), mutable.zobrist());
+        assertEquals(((ForkFreeCell) game).minMovesToWin(), mutable.minMovesToWin());
+        assertEquals(moves.size(), mutable.movesMade());
+      }
+      while (!moves.isEmpty()) {
+        moves.pop().undo(mutable);
+        FreeCell previous = games.pop();
+        assertEquals(previous, mutable.snapshot());
+        assertEquals(previous.zobrist(), mutable.zobrist());
+      }
+      assertEquals(0, mutable.movesMade());
+    }
+  }
+
+  @Test
+  public void encodedMoves_matchFork() {
+    RandomGenerator rng = new SplittableRandom(4);
+    var moves = new IntMoveBuffer();
+    var mutableMoves = new IntMoveBuffer();
+    for (int round = 0; round < 50; round++) {
+      FreeCell start = ForkFreeCell.dealDeck(rng);
+      FreeCell game = start;
+      MutableFreeCell mutable = MutableFreeCell.copyOf(game);
+      Deque<Integer> played = new ArrayDeque<>();
+      for (int i = 0; i < 100; i++) {
+        moves.clear();
+        game.findMoves(moves);
+        mutableMoves.clear();
+        mutable.findMoves(mutableMoves);
+        assertEquals(moves.toString(), mutableMoves.toString());
+        if (moves.isEmpty()) {
+          break;
+        }
+        int move = moves.get(rng.nextInt(moves.size()));
+        game = game.playEncoded(move);
+        mutable.playEncoded(move);
+        played.push(move);
+        assertEquals(game, mutable.snapshot());
+      }
+      while (!played.isEmpty()) {
+        mutable.undoEncoded(played.pop());
+      }
+      assertEquals(start, mutable.snapshot());
+      assertEquals(0, mutable.movesMade());
+    }
+  }
+
+  @Test
+  public void undo_failsWithoutHistory() {
+    MutableFreeCell mutable = MutableFreeCell.copyOf(ForkFreeCell.dealDeck(new SplittableRandom(3)));
+
+    assertThrows(IllegalStateException.class, () -> mutable.undoMoveToFreeCellFromTableau(0));
+  }
+
+  private record TestMove(int kind, int a, int b, int c) {
+    FreeCell play(FreeCell game) {
+      return switch (kind) {
+        case 0 -> game.moveToHomeCellFromTableau(a);
+        case 1 -> game.moveToFreeCellFromTableau(a);
+        case 2 -> game.moveToTableauFromTableau(a, b, c);
+        case 3 -> game.moveToHomeCellFromFreeCell(a);
+        case 4 -> game.moveToTableauFromFreeCell(a, b);
+        default -> throw new AssertionError(kind);
+      };
+    }
+
+    void apply(MutableFreeCell game) {
+      switch (kind) {
+        case 0 -> game.moveToHomeCellFromTableau(a);
+        case 1 -> game.moveToFreeCellFromTableau(a);
+        case 2 -> game.moveToTableauFromTableau(a, b, c);
+        case 3 -> game.moveToHomeCellFromFreeCell(a);
+        case 4 -> game.moveToTableauFromFreeCell(a, b);
+        default -> throw new AssertionError(kind);
+      }
+    }
+
+    void undo(MutableFreeCell game) {
+      switch (kind) {
+        case 0 -> game.undoMoveToHomeCellFromTableau(a);
+        case 1 -> game.undoMoveToFreeCellFromTableau(a);
+        case 2 -> game.undoMoveToTableauFromTableau(a, b, c);
+        case 3 -> game.undoMoveToHomeCellFromFreeCell(a);
+        case 4 -> game.undoMoveToTableauFromFreeCell(a, b);
+        default -> throw new AssertionError(kind);
+      }
+    }
+  }
+
+  /**
+   * Finds all legal moves, asserting that the mutable board agrees on the legality of each.
+   */
+  private static List<TestMove> legalMoves(FreeCell game, MutableFreeCell mutable) {
+    List<TestMove> moves = new ArrayList<>();
+    for (int src = 0; src < TABLEAU_COLS; src++) {
+      assertEquals(game.stackSize(src), mutable.stackSize(src));
+      assertEquals(game.canMoveToHomeCellFromTableau(src), mutable.canMoveToHomeCellFromTableau(src));
+      if (game.canMoveToHomeCellFromTableau(src)) {
+        moves.add(new TestMove(0, src, 0, 0));
+      }
+      assertEquals(game.canMoveToFreeCellFromTableau(src), mutable.canMoveToFreeCellFromTableau(src));
+      if (game.canMoveToFreeCellFromTableau(src)) {
+        moves.add(new TestMove(1, src, 0, 0));
+      }
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        for (int count = 1; count <= 13; count++) {
+          boolean legal = game.canMoveToTableauFromTableau(dst, src, count);
+          assertEquals(legal, mutable.canMoveToTableauFromTableau(dst, src, count));
+          if (legal) {
+            moves.add(new TestMove(2, dst, src, count));
+          }
+        }
+      }
+    }
+    for (int free = 0; free < FREE_CELLS; free++) {
+      assertEquals(game.peekFreeCell(free), mutable.peekFreeCell(free));
+      assertEquals(game.canMoveToHomeCellFromFreeCell(free), mutable.canMoveToHomeCellFromFreeCell(free));
+      if (game.canMoveToHomeCellFromFreeCell(free)) {
+        moves.add(new TestMove(3, free, 0, 0));
+      }
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        boolean legal = game.canMoveToTableauFromFreeCell(dst, free);
+        assertEquals(legal, mutable.canMoveToTableauFromFreeCell(dst, free));
+        if (legal) {
+          moves.add(new TestMove(4, dst, free, 0));
+        }
+      }
+    }
+    return moves;
+  }
+}
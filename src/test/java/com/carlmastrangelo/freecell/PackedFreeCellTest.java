@@ -0,0 +1,132 @@
+package com.carlmastrangelo.freecell;
+
+import static com.carlmastrangelo.freecell.FreeCell.FREE_CELLS;
+import static com.carlmastrangelo.freecell.FreeCell.TABLEAU_COLS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.UnaryOperator;
+import java.util.random.RandomGenerator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PackedFreeCellTest {
+
+  @Test
+  public void copyOf_matchesFork() {
+    ForkFreeCell fork = ForkFreeCell.dealDeck(new SplittableRandom(1));
+    PackedFreeCell packed = PackedFreeCell.copyOf(fork);
+
+    assertEquals(fork.toString(), packed.toString());
+    assertEquals(packed, PackedFreeCell.parse(fork.toString()));
+  }
+
+  @Test
+  public void randomPlay_matchesFork() {
+    RandomGenerator rng = new SplittableRandom(2);
+    for (int game = 0; game < 200; game++) {
+      FreeCell fork = ForkFreeCell.dealDeck(rng);
+      FreeCell packed = PackedFreeCell.copyOf(fork);
+      for (int move = 0; move < 200; move++) {
+        List<UnaryOperator<FreeCell>> moves = legalMoves(fork);
+        if (moves.isEmpty()) {
+          break;
+        }
+        var next = moves.get(rng.nextInt(moves.size()));
+        fork = next.apply(fork);
+        packed = next.apply(packed);
+
+        assertEquals(fork.toString(), packed.toString());
+        assertEquals(PackedFreeCell.copyOf(fork), packed);
+        assertEquals(PackedFreeCell.copyOf(fork).hashCode(), packed.hashCode());
+        assertEquals(fork.zobrist(), packed.zobrist());
+        assertEquals(PackedFreeCell.copyOf(fork.canonical()), packed.canonical());
+        for (int col = 0; col < TABLEAU_COLS; col++) {
+          assertEquals(fork.stackSize(col), packed.stackSize(col));
+          assertEquals(fork.tableauColStream(col).count(), fork.tableauSize(col));
+          assertEquals(fork.tableauSize(col), packed.tableauSize(col));
+        }
+        assertEquals(((ForkFreeCell) fork).minMovesToWin(), ((PackedFreeCell) packed).minMovesToWin());
+        assertEquals(fork.gameWon(), packed.gameWon());
+        assertEquals(findMoves(fork), findMoves(packed));
+        long[] record = new long[PackedFreeCell.PACKED_LONGS + 1];
+        ((PackedFreeCell) packed).pack(record, 1);
+        PackedFreeCell unpacked = PackedFreeCell.unpack(record, 1);
+        assertEquals(packed, unpacked);
+        assertEquals(packed.zobrist(), unpacked.zobrist());
+      }
+    }
+  }
+
+  @Test
+  public void equals_differentFreeCells() {
+    PackedFreeCell game = PackedFreeCell.dealDeck(new SplittableRandom(3));
+
+    assertNotEquals(game.moveToFreeCellFromTableau(0), game.moveToFreeCellFromTableau(1));
+    assertEquals(
+        game.moveToFreeCellFromTableau(0).moveToFreeCellFromTableau(1),
+        game.moveToFreeCellFromTableau(1).moveToFreeCellFromTableau(0));
+  }
+
+  /**
+   * Finds moves with {@link ForkFreeCell}'s own generator, or {@link PackedFreeCell}'s default one.
+   */
+  private static String findMoves(FreeCell game) {
+    IntMoveBuffer moves = new IntMoveBuffer();
+    game.findMoves(moves);
+    return moves.toString();
+  }
+
+  /**
+   * Finds all legal moves, asserting that {@link PackedFreeCell} agrees on the legality of each.
+   */
+  private static List<UnaryOperator<FreeCell>> legalMoves(FreeCell game) {
+    PackedFreeCell packed = PackedFreeCell.copyOf(game);
+    List<UnaryOperator<FreeCell>> moves = new ArrayList<>();
+    for (int src = 0; src < TABLEAU_COLS; src++) {
+      final int srcCol = src;
+      assertEquals(game.peekTableau(src), packed.peekTableau(src));
+      assertEquals(game.canMoveToHomeCellFromTableau(src), packed.canMoveToHomeCellFromTableau(src));
+      if (game.canMoveToHomeCellFromTableau(src)) {
+        moves.add(g -> g.moveToHomeCellFromTableau(srcCol));
+      }
+      assertEquals(game.canMoveToFreeCellFromTableau(src), packed.canMoveToFreeCellFromTableau(src));
+      if (game.canMoveToFreeCellFromTableau(src)) {
+        moves.add(g -> g.moveToFreeCellFromTableau(srcCol));
+      }
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        final int dstCol = dst;
+        for (int count = 1; count <= 13; count++) {
+          final int cardCount = count;
+          boolean legal = game.canMoveToTableauFromTableau(dst, src, count);
+          assertEquals(legal, packed.canMoveToTableauFromTableau(dst, src, count));
+          if (legal) {
+            moves.add(g -> g.moveToTableauFromTableau(dstCol, srcCol, cardCount));
+          }
+        }
+      }
+    }
+    for (int free = 0; free < FREE_CELLS; free++) {
+      final int freeCol = free;
+      assertEquals(game.peekFreeCell(free), packed.peekFreeCell(free));
+      assertEquals(game.canMoveToHomeCellFromFreeCell(free), packed.canMoveToHomeCellFromFreeCell(free));
+      if (game.canMoveToHomeCellFromFreeCell(free)) {
+        moves.add(g -> g.moveToHomeCellFromFreeCell(freeCol));
+      }
+      for (int dst = 0; dst < TABLEAU_COLS; dst++) {
+        final int dstCol = dst;
+        boolean legal = game.canMoveToTableauFromFreeCell(dst, free);
+        assertEquals(legal, packed.canMoveToTableauFromFreeCell(dst, free));
+        if (legal) {
+          moves.add(g -> g.moveToTableauFromFreeCell(dstCol, freeCol));
+        }
+      }
+    }
+    return moves;
+  }
+}
@@ -5,7 +5,16 @@ import static com.carlmastrangelo.freecell.coder.BoardCoder.decodeZigZag;
 import static com.carlmastrangelo.freecell.coder.BoardCoder.encodeZigZag;
 import static com.carlmastrangelo.freecell.coder.BoardCoder.fibonacciEncode;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
 import java.util.SplittableRandom;
 import java.util.random.RandomGenerator;
 import org.junit.Test;
@@ -59,4 +68,82 @@ public class BoardEncoderTest {
       assertEquals("failed with seed " + seed, value, decodeZigZag(encodeZigZag(value)));
     }
   }
+
+  @Test
+  public void encodeAndDecode() {
+    var coder = new BoardCoder();
+    var rand = new SplittableRandom(1);
+    var moves = new IntMoveBuffer();
+    FreeCell game = ForkFreeCell.dealDeck(rand);
+    for (int i = 0; i < 2000; i++) {
+      BigInteger key = coder.encode(game);
+      assertTrue(key.signum() >= 0 && key.compareTo(BoardCoder.KEY_COUNT) < 0);
+      assertEquals(game, coder.decode(key));
+
+      moves.clear();
+      game.findMoves(moves);
+      if (moves.size() == 0) {
+        game = ForkFreeCell.dealDeck(rand);
+      } else {
+        game = game.playEncoded(moves.get(rand.nextInt(moves.size())));
+      }
+    }
+  }
+
+  @Test
+  public void encodeAndDecode_homeAndFreeCells() {
+    var coder = new BoardCoder();
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.FOUR_CLUBS, Card.KING_HEARTS),
+        List.of(Card.KING_CLUBS, Card.ACE_DIAMONDS, Card.QUEEN_SPADES),
+        List.of(
+            List.of(),
+            List.of(Card.FIVE_CLUBS, Card.SIX_CLUBS, Card.SEVEN_CLUBS, Card.EIGHT_CLUBS, Card.NINE_CLUBS),
+            List.of(Card.TEN_CLUBS, Card.JACK_CLUBS, Card.QUEEN_CLUBS),
+            List.of(),
+            List.of(Card.TWO_DIAMONDS, Card.THREE_DIAMONDS, Card.FOUR_DIAMONDS, Card.FIVE_DIAMONDS,
+                Card.SIX_DIAMONDS, Card.SEVEN_DIAMONDS, Card.EIGHT_DIAMONDS, Card.NINE_DIAMONDS),
+            List.of(Card.TEN_DIAMONDS, Card.JACK_DIAMONDS, Card.QUEEN_DIAMONDS, Card.KING_DIAMONDS),
+            List.of(Card.KING_SPADES, Card.JACK_SPADES, Card.TEN_SPADES, Card.NINE_SPADES, Card.EIGHT_SPADES,
+                Card.SEVEN_SPADES, Card.SIX_SPADES, Card.FIVE_SPADES, Card.FOUR_SPADES, Card.THREE_SPADES),
+            List.of(Card.TWO_SPADES, Card.ACE_SPADES)));
+
+    assertEquals(game, coder.decode(coder.encode(game)));
+  }
+
+  @Test
+  public void encodeAndDecode_won() {
+    var coder = new BoardCoder();
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES),
+        List.of(),
+        Collections.nCopies(FreeCell.TABLEAU_COLS, List.of()));
+
+    assertEquals(BoardCoder.KEY_COUNT.subtract(BigInteger.ONE), coder.encode(game));
+    assertEquals(game, coder.decode(coder.encode(game)));
+  }
+
+  @Test
+  public void decodeAndEncode_ends() {
+    var coder = new BoardCoder();
+    BigInteger last = BoardCoder.KEY_COUNT.subtract(BigInteger.ONE);
+
+    assertEquals(BigInteger.ZERO, coder.encode(coder.decode(BigInteger.ZERO)));
+    assertEquals(last, coder.encode(coder.decode(last)));
+    assertThrows(IllegalArgumentException.class, () -> coder.decode(BoardCoder.KEY_COUNT));
+    assertThrows(IllegalArgumentException.class, () -> coder.decode(BigInteger.ONE.negate()));
+  }
+
+  @Test
+  public void keyBytes() {
+    var coder = new BoardCoder();
+    BigInteger key = coder.encode(ForkFreeCell.dealDeck(new SplittableRandom(2)));
+
+    byte[] bytes = BoardCoder.keyBytes(key);
+
+    assertEquals(BoardCoder.KEY_BYTES, bytes.length);
+    assertEquals(key, BoardCoder.fromKeyBytes(bytes));
+    assertEquals(BigInteger.ZERO, BoardCoder.fromKeyBytes(BoardCoder.keyBytes(BigInteger.ZERO)));
+    assertTrue(BoardCoder.KEY_BYTES <= 32);
+  }
 }
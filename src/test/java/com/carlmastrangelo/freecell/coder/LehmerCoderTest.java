@@ -4,6 +4,7 @@ import static com.carlmastrangelo.freecell.Card.CARDS_BY_ORD;
 import static com.carlmastrangelo.freecell.Card.CARD_COUNT;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 
 import com.carlmastrangelo.freecell.Card;
 import com.carlmastrangelo.freecell.coder.LehmerCoder;
@@ -39,4 +40,55 @@ public class LehmerCoderTest {
       assertEquals(cards, newCards);
     }
   }
+
+  @Test
+  public void fixedWidthMatchesBigInteger() {
+    var cards = new ArrayList<>(CARDS_BY_ORD);
+    var rand = new Random(1);
+    var coder = new LehmerCoder(CARD_COUNT);
+    int[] permdexes = new int[CARD_COUNT];
+    long[] factoradix = new long[LehmerCoder.FIXED_WORDS];
+    int[] newPermdexes = new int[CARD_COUNT];
+    for (int i = 0; i < 10000; i++) {
+      Collections.shuffle(cards, rand);
+
+      coder.altPermdexes(permdexes, cards, Card::ordinal);
+      LehmerCoder.encode(factoradix, permdexes);
+      assertEquals(coder.encode(permdexes), toBigInteger(factoradix));
+
+      LehmerCoder.decode(newPermdexes, factoradix);
+      assertArrayEquals(permdexes, newPermdexes);
+    }
+  }
+
+  @Test
+  public void fixedWidthLargest() {
+    var coder = new LehmerCoder(LehmerCoder.MAX_FIXED_RADIXES);
+    int[] radixes = new int[LehmerCoder.MAX_FIXED_RADIXES];
+    for (int i = 0; i < radixes.length; i++) {
+      radixes[i] = radixes.length - i - 1;
+    }
+    long[] factoradix = new long[LehmerCoder.FIXED_WORDS];
+    LehmerCoder.encode(factoradix, radixes);
+    assertEquals(coder.encode(radixes), toBigInteger(factoradix));
+
+    int[] newRadixes = new int[radixes.length];
+    LehmerCoder.decode(newRadixes, factoradix);
+    assertArrayEquals(radixes, newRadixes);
+  }
+
+  @Test
+  public void fixedWidthTooManyRadixes() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LehmerCoder.encode(new long[LehmerCoder.FIXED_WORDS], new int[LehmerCoder.MAX_FIXED_RADIXES + 1]));
+  }
+
+  private static BigInteger toBigInteger(long[] words) {
+    BigInteger value = BigInteger.ZERO;
+    for (int i = words.length - 1; i >= 0; i--) {
+      value = value.shiftLeft(Long.SIZE).or(new BigInteger(Long.toUnsignedString(words[i])));
+    }
+    return value;
+  }
 }
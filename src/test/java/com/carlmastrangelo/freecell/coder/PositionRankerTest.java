@@ -0,0 +1,120 @@
+package com.carlmastrangelo.freecell.coder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PositionRankerTest {
+
+  @Test
+  public void size() {
+    // One card can be in a free cell or on any column.
+    assertEquals(9, PositionRanker.forCards(1L << Card.KING_CLUBS.ordinal()).size());
+    // Two cards can both be in free cells, one in a free cell and the other on any column, or both on the tableau in
+    // either order, together or apart.
+    long twoKings = (1L << Card.KING_CLUBS.ordinal()) | (1L << Card.KING_SPADES.ordinal());
+    assertEquals(1 + 2 * 8 + 2 * 36, PositionRanker.forCards(twoKings).size());
+  }
+
+  @Test
+  public void rankAndUnrank_all() {
+    FreeCell game = endgame(new Random(1), Card.QUEEN_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES);
+    var ranker = PositionRanker.forGame(game);
+    Set<FreeCell> games = new HashSet<>();
+    for (long rank = 0; rank < ranker.size(); rank++) {
+      FreeCell unranked = ranker.unrank(rank);
+      assertEquals(rank, ranker.rank(unranked));
+      games.add(unranked);
+    }
+
+    assertEquals(ranker.size(), games.size());
+  }
+
+  @Test
+  public void rankAndUnrank_playedGames() {
+    var rand = new Random(2);
+    var moves = new IntMoveBuffer();
+    FreeCell game = endgame(rand, Card.TEN_CLUBS, Card.TEN_DIAMONDS, Card.TEN_HEARTS, Card.TEN_SPADES);
+    var ranker = PositionRanker.forGame(game);
+    for (int i = 0; i < 1000 && !game.gameWon(); i++) {
+      if (PositionRanker.remainingCards(game) != ranker.cards()) {
+        ranker = PositionRanker.forGame(game);
+      }
+      long rank = ranker.rank(game);
+      assertEquals(game, ranker.unrank(rank));
+
+      moves.clear();
+      game.findMoves(moves);
+      game = game.playEncoded(moves.get(rand.nextInt(moves.size())));
+    }
+  }
+
+  @Test
+  public void rank_sameOrderAsBoardCoder() {
+    var rand = new Random(3);
+    var coder = new BoardCoder();
+    for (int i = 0; i < 100; i++) {
+      FreeCell game = endgame(rand, Card.JACK_CLUBS, Card.NINE_DIAMONDS, Card.KING_HEARTS, Card.TEN_SPADES);
+      var ranker = PositionRanker.forGame(game);
+      BigInteger first = coder.encode(ranker.unrank(0));
+
+      assertEquals(coder.encode(game).subtract(first).longValueExact(), ranker.rank(game));
+    }
+  }
+
+  @Test
+  public void forCards_badCards() {
+    assertThrows(IllegalArgumentException.class, () -> PositionRanker.forCards(1L << Card.QUEEN_CLUBS.ordinal()));
+    assertThrows(IllegalArgumentException.class, () -> PositionRanker.forCards(1L << Card.CARD_COUNT));
+    assertThrows(IllegalArgumentException.class, () -> PositionRanker.forCards((1L << Card.CARD_COUNT) - 1));
+  }
+
+  @Test
+  public void rank_wrongCards() {
+    FreeCell game = endgame(new Random(4), Card.QUEEN_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES);
+    var ranker = PositionRanker.forCards(1L << Card.KING_SPADES.ordinal());
+
+    assertThrows(IllegalArgumentException.class, () -> ranker.rank(game));
+    assertThrows(IllegalArgumentException.class, () -> ranker.unrank(ranker.size()));
+  }
+
+  /**
+   * Deals the cards above the home cells to the tableau and free cells at random.
+   */
+  private static FreeCell endgame(Random rand, Card... homeCells) {
+    long cards = (1L << Card.CARD_COUNT) - 1;
+    for (Card home : homeCells) {
+      cards &= ~(((1L << (home.rank().num())) - 1) << (home.ordinal() - home.rank().num() + 1));
+    }
+    List<Card> remaining = new ArrayList<>();
+    for (long bits = cards; bits != 0; bits &= bits - 1) {
+      remaining.add(Card.CARDS_BY_ORD.get(Long.numberOfTrailingZeros(bits)));
+    }
+    Collections.shuffle(remaining, rand);
+    int free = rand.nextInt(Math.min(FreeCell.FREE_CELLS, remaining.size()) + 1);
+    List<Card> freeCells = remaining.subList(0, free);
+    List<Card> tableau = new ArrayList<>();
+    for (Card card : remaining.subList(free, remaining.size())) {
+      while (rand.nextInt(3) == 0) {
+        tableau.add(null);
+      }
+      tableau.add(card);
+    }
+    return ForkFreeCell.dealDeck(List.of(homeCells), freeCells, tableau);
+  }
+}
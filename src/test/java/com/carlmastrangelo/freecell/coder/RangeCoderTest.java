@@ -0,0 +1,131 @@
+package com.carlmastrangelo.freecell.coder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RangeCoderTest {
+
+  @Test
+  public void roundTrip() {
+    var table = RangeCoder.FrequencyTable.of(500, 450, 50);
+    var rng = new SplittableRandom(1);
+    int[] symbols = new int[100_000];
+    for (int i = 0; i < symbols.length; i++) {
+      int value = rng.nextInt(table.total());
+      symbols[i] = value < 500 ? 0 : value < 950 ? 1 : 2;
+    }
+
+    ByteBuffer buf = encode(table, symbols);
+    // The entropy is about 1.24 bits per symbol.
+    assertTrue(buf.remaining() < symbols.length * 1.25 / 8);
+
+    assertArrayEquals(symbols, decode(table, buf, symbols.length));
+    assertEquals(0, buf.remaining());
+  }
+
+  @Test
+  public void roundTrip_skewed() {
+    // Long runs of the likely symbol keep the top of the range near a byte boundary, which is where carries happen.
+    var table = RangeCoder.FrequencyTable.of(RangeCoder.MAX_TOTAL - 1, 1);
+    var rng = new SplittableRandom(2);
+    int[] symbols = new int[1_000_000];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = rng.nextInt(10_000) == 0 ? 1 : 0;
+    }
+
+    ByteBuffer buf = encode(table, symbols);
+
+    assertArrayEquals(symbols, decode(table, buf, symbols.length));
+  }
+
+  @Test
+  public void roundTrip_mixedTables() {
+    var rng = new SplittableRandom(3);
+    var tables = new RangeCoder.FrequencyTable[10];
+    for (int i = 0; i < tables.length; i++) {
+      long[] counts = new long[1 + rng.nextInt(50)];
+      for (int k = 0; k < counts.length; k++) {
+        counts[k] = 1 + rng.nextLong(1_000_000);
+      }
+      tables[i] = RangeCoder.FrequencyTable.scaled(counts);
+    }
+    int[] symbols = new int[10_000];
+    var buf = ByteBuffer.allocate(symbols.length * 8);
+    var encoder = new RangeCoder.Encoder(buf);
+    for (int i = 0; i < symbols.length; i++) {
+      var table = tables[i % tables.length];
+      symbols[i] = rng.nextInt(table.size());
+      encoder.encode(table, symbols[i]);
+    }
+    encoder.finish();
+    buf.flip();
+
+    var decoder = new RangeCoder.Decoder(buf);
+    for (int i = 0; i < symbols.length; i++) {
+      assertEquals(symbols[i], decoder.decode(tables[i % tables.length]));
+    }
+  }
+
+  @Test
+  public void empty() {
+    var buf = ByteBuffer.allocate(16);
+    new RangeCoder.Encoder(buf).finish();
+
+    assertEquals(5, buf.position());
+  }
+
+  @Test
+  public void scaled_keepsRareSymbols() {
+    var table = RangeCoder.FrequencyTable.scaled(1, 0, 3_866_788, 1_395_384, 1);
+
+    assertTrue(table.total() <= RangeCoder.MAX_TOTAL);
+    assertEquals(1, table.freq(0));
+    assertEquals(0, table.freq(1));
+    assertEquals(1, table.freq(4));
+    assertEquals(table.cumFreq(2) + table.freq(2), table.cumFreq(3));
+  }
+
+  @Test
+  public void of_badFrequencies() {
+    assertThrows(IllegalArgumentException.class, () -> RangeCoder.FrequencyTable.of());
+    assertThrows(IllegalArgumentException.class, () -> RangeCoder.FrequencyTable.of(0, 0));
+    assertThrows(IllegalArgumentException.class, () -> RangeCoder.FrequencyTable.of(1, -1));
+    assertThrows(IllegalArgumentException.class, () -> RangeCoder.FrequencyTable.of(RangeCoder.MAX_TOTAL, 1));
+  }
+
+  @Test
+  public void encode_zeroFrequency() {
+    var table = RangeCoder.FrequencyTable.of(1, 0, 1);
+    var encoder = new RangeCoder.Encoder(ByteBuffer.allocate(16));
+
+    assertThrows(IllegalArgumentException.class, () -> encoder.encode(table, 1));
+  }
+
+  private static ByteBuffer encode(RangeCoder.FrequencyTable table, int[] symbols) {
+    var buf = ByteBuffer.allocate(symbols.length + 16);
+    var encoder = new RangeCoder.Encoder(buf);
+    for (int symbol : symbols) {
+      encoder.encode(table, symbol);
+    }
+    encoder.finish();
+    return buf.flip();
+  }
+
+  private static int[] decode(RangeCoder.FrequencyTable table, ByteBuffer buf, int count) {
+    var decoder = new RangeCoder.Decoder(buf);
+    int[] symbols = new int[count];
+    for (int i = 0; i < count; i++) {
+      symbols[i] = decoder.decode(table);
+    }
+    return symbols;
+  }
+}
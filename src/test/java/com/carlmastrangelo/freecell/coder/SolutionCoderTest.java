@@ -0,0 +1,132 @@
+package com.carlmastrangelo.freecell.coder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SolutionCoderTest {
+
+  @Test
+  public void writeAndRead() {
+    var rand = new SplittableRandom(1);
+    List<ForkFreeCell> starts = new ArrayList<>();
+    List<IntMoveBuffer> solutions = new ArrayList<>();
+    double uniformBits = 0;
+    var legalMoves = new IntMoveBuffer();
+    for (int i = 0; i < 100; i++) {
+      ForkFreeCell start = ForkFreeCell.dealDeck(rand);
+      var moves = new IntMoveBuffer();
+      FreeCell game = start;
+      for (int k = 0; k < 150; k++) {
+        legalMoves.clear();
+        game.findMoves(legalMoves);
+        uniformBits += Math.log(legalMoves.size() + 1) / Math.log(2);
+        if (legalMoves.isEmpty()) {
+          break;
+        }
+        int move = legalMoves.get(rand.nextInt(legalMoves.size()));
+        moves.add(move);
+        game = game.playEncoded(move);
+      }
+      starts.add(start);
+      solutions.add(moves);
+    }
+    var buf = ByteBuffer.allocate(100_000);
+    var writer = new SolutionCoder.Writer(buf);
+    for (int i = 0; i < starts.size(); i++) {
+      writer.write(starts.get(i), solutions.get(i));
+    }
+    writer.finish();
+    buf.flip();
+
+    // Moves chosen uniformly can't be compressed, so they should cost about as much as coding them uniformly.
+    assertTrue(buf.remaining() < uniformBits / 8 * 1.05 + starts.size() * BoardCoder.KEY_BYTES);
+
+    var reader = new SolutionCoder.Reader(buf);
+    for (int i = 0; i < starts.size(); i++) {
+      assertEquals(starts.get(i), reader.nextSolution());
+      IntMoveBuffer moves = solutions.get(i);
+      FreeCell game = starts.get(i);
+      for (int k = 0; k < moves.size(); k++) {
+        assertEquals(moves.get(k), reader.nextMove());
+        game = game.playEncoded(moves.get(k));
+      }
+      assertEquals(MoveCode.NONE, reader.nextMove());
+      assertEquals(game, reader.game());
+    }
+    assertNull(reader.nextSolution());
+    assertEquals(0, buf.remaining());
+  }
+
+  @Test
+  public void writeAndRead_repeatedMovesCompress() {
+    ForkFreeCell start = ForkFreeCell.dealDeck(new SplittableRandom(2));
+    var moves = new IntMoveBuffer();
+    var legalMoves = new IntMoveBuffer();
+    FreeCell game = start;
+    for (int k = 0; k < 100; k++) {
+      legalMoves.clear();
+      game.findMoves(legalMoves);
+      moves.add(legalMoves.get(0));
+      game = game.playEncoded(legalMoves.get(0));
+    }
+    var buf = ByteBuffer.allocate(100_000);
+    var writer = new SolutionCoder.Writer(buf);
+    for (int i = 0; i < 100; i++) {
+      writer.write(start, moves);
+    }
+    writer.finish();
+    buf.flip();
+
+    // Once learned, always playing the first legal move costs well under a bit a move.
+    assertTrue(buf.remaining() < 100 * (BoardCoder.KEY_BYTES + 100 / 8));
+  }
+
+  @Test
+  public void nextSolution_skipsUnreadMoves() {
+    var rand = new SplittableRandom(3);
+    ForkFreeCell first = ForkFreeCell.dealDeck(rand);
+    ForkFreeCell second = ForkFreeCell.dealDeck(rand);
+    var moves = new IntMoveBuffer();
+    var legalMoves = new IntMoveBuffer();
+    first.findMoves(legalMoves);
+    moves.add(legalMoves.get(1));
+    var buf = ByteBuffer.allocate(1000);
+    var writer = new SolutionCoder.Writer(buf);
+    writer.write(first, moves);
+    writer.write(second, new IntMoveBuffer());
+    writer.finish();
+    buf.flip();
+
+    var reader = new SolutionCoder.Reader(buf);
+
+    assertEquals(first, reader.nextSolution());
+    assertEquals(second, reader.nextSolution());
+    assertEquals(MoveCode.NONE, reader.nextMove());
+    assertNull(reader.nextSolution());
+  }
+
+  @Test
+  public void write_illegalMove() {
+    var writer = new SolutionCoder.Writer(ByteBuffer.allocate(1000));
+    var moves = new IntMoveBuffer();
+    moves.add(MoveCode.homeFromFreeCell(0));
+
+    assertThrows(
+        IllegalArgumentException.class, () -> writer.write(ForkFreeCell.dealDeck(new SplittableRandom(4)), moves));
+  }
+}
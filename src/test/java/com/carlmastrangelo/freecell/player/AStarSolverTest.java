@@ -0,0 +1,106 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AStarSolverTest {
+
+  /**
+   * Only the spades above nine are left, in one column with the ten at the bottom.  Each card has to move to its own
+   * column before the ten can go home.
+   */
+  private static final FreeCell BURIED_TEN = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.NINE_SPADES),
+      List.of(),
+      List.of(
+          List.of(Card.TEN_SPADES, Card.JACK_SPADES, Card.QUEEN_SPADES, Card.KING_SPADES),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  @Test
+  public void estimate_countsBlockedColumns() {
+    var heuristic = new BlockerHeuristic();
+
+    assertEquals(4 + 1, heuristic.estimate(BURIED_TEN));
+  }
+
+  @Test
+  public void solve_findsShortestSolution() {
+    var solver = newSolver(1);
+
+    AStarSolver.Result result = solver.solve(BURIED_TEN);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertEquals(7, result.moves().totalMoves());
+    assertTrue(replay(BURIED_TEN, result.moves()).gameWon());
+  }
+
+  @Test
+  public void solve_weightedSolutionWithinBound() {
+    double weight = 2.5;
+    var solver = newSolver(weight);
+
+    AStarSolver.Result result = solver.solve(BURIED_TEN);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertTrue(result.moves().totalMoves() <= Math.ceil(weight * 7));
+    assertTrue(replay(BURIED_TEN, result.moves()).gameWon());
+  }
+
+  @Test
+  public void solve_dealtGame() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(5));
+    var solver = newSolver(3);
+
+    AStarSolver.Result result = solver.solve(game);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertTrue(replay(game, result.moves()).gameWon());
+  }
+
+  @Test
+  public void solve_stopsAtMaxExpansions() {
+    var solver =
+        new AStarSolver(1, 1, new ArrayTranspositionTable(1 << 16, TranspositionTable.Replacement.DEPTH_PREFERRED));
+
+    AStarSolver.Result result = solver.solve(BURIED_TEN);
+
+    assertEquals(GamePlay.Status.MAX_PLAYS, result.status());
+  }
+
+  @Test
+  public void badWeight() {
+    var table = new ArrayTranspositionTable(1 << 16, TranspositionTable.Replacement.DEPTH_PREFERRED);
+
+    assertThrows(IllegalArgumentException.class, () -> new AStarSolver(0.5, 1, table));
+    assertThrows(IllegalArgumentException.class, () -> new AStarSolver(Double.NaN, 1, table));
+  }
+
+  private static AStarSolver newSolver(double weight) {
+    return new AStarSolver(
+        weight, 1_000_000, new ArrayTranspositionTable(1 << 16, TranspositionTable.Replacement.DEPTH_PREFERRED));
+  }
+
+  private static FreeCell replay(FreeCell game, GamePlayer.MoveList moves) {
+    if (moves.lastMove() == null) {
+      return game;
+    }
+    return replay(game, moves.lastMove()).playEncoded(moves.move());
+  }
+}
@@ -0,0 +1,96 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArrayTranspositionTableTest {
+
+  /**
+   * Enough memory for a single bucket, so every hash collides.
+   */
+  private static final long ONE_BUCKET = 4 * Long.BYTES;
+
+  @Test
+  public void visit_prunesSameOrDeeper() {
+    var table = new ArrayTranspositionTable(1 << 10, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    long hash = 0x1234_5678_9ABC_DEF0L;
+
+    assertTrue(table.visit(hash, 5));
+    assertFalse(table.visit(hash, 5));
+    assertFalse(table.visit(hash, 6));
+    assertTrue(table.visit(hash, 3));
+    assertFalse(table.visit(hash, 4));
+    assertEquals(new TranspositionTable.Stats(5, 3, 2, 0, 0, 0), table.stats());
+  }
+
+  @Test
+  public void visit_zeroDepth() {
+    var table = new ArrayTranspositionTable(ONE_BUCKET, TranspositionTable.Replacement.DEPTH_PREFERRED);
+
+    assertTrue(table.visit(0, 0));
+    assertFalse(table.visit(0, 0));
+  }
+
+  @Test
+  public void depthPreferred_keepsShallowGames() {
+    var table = new ArrayTranspositionTable(ONE_BUCKET, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    for (long i = 1; i <= 4; i++) {
+      assertTrue(table.visit(i << 48, 1));
+    }
+
+    assertTrue(table.visit(5L << 48, 2));
+    for (long i = 1; i <= 4; i++) {
+      assertFalse(table.visit(i << 48, 1));
+    }
+    assertEquals(1, table.stats().rejections());
+
+    assertTrue(table.visit(6L << 48, 0));
+    assertFalse(table.visit(6L << 48, 0));
+    assertEquals(1, table.stats().evictions());
+  }
+
+  @Test
+  public void alwaysReplace_evicts() {
+    var table = new ArrayTranspositionTable(ONE_BUCKET, TranspositionTable.Replacement.ALWAYS_REPLACE);
+    for (long i = 1; i <= 4; i++) {
+      assertTrue(table.visit(i << 48, 1));
+    }
+
+    assertTrue(table.visit(5L << 48, 2));
+    assertFalse(table.visit(5L << 48, 2));
+    int remembered = 0;
+    for (long i = 1; i <= 4; i++) {
+      if (!table.visit(i << 48, 1)) {
+        remembered++;
+      }
+    }
+    assertTrue(remembered < 4);
+  }
+
+  @Test
+  public void clear_forgetsGames() {
+    var table = new ArrayTranspositionTable(ONE_BUCKET, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    assertTrue(table.visit(1, 1));
+
+    table.clear();
+
+    assertTrue(table.visit(1, 1));
+  }
+
+  @Test
+  public void capacity_roundsDown() {
+    assertEquals(4, new ArrayTranspositionTable(ONE_BUCKET, TranspositionTable.Replacement.DEPTH_PREFERRED).capacity());
+    assertEquals(
+        8, new ArrayTranspositionTable(ONE_BUCKET * 3, TranspositionTable.Replacement.DEPTH_PREFERRED).capacity());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ArrayTranspositionTable(ONE_BUCKET - 1, TranspositionTable.Replacement.DEPTH_PREFERRED));
+  }
+}
@@ -0,0 +1,134 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.MicrosoftDeals;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BatchSolverTest {
+
+  private static final long TABLE_BYTES = 1 << 20;
+
+  @Test
+  public void seeds() {
+    Iterator<BatchSolver.Deal> deals = BatchSolver.seeds(7, 9);
+
+    for (long seed = 7; seed <= 9; seed++) {
+      BatchSolver.Deal deal = deals.next();
+      assertEquals(Long.toString(seed), deal.name());
+      assertEquals(ForkFreeCell.dealDeck(new SplittableRandom(seed)), deal.game());
+    }
+    assertFalse(deals.hasNext());
+    assertFalse(BatchSolver.seeds(Long.MAX_VALUE, Long.MAX_VALUE - 1).hasNext());
+  }
+
+  @Test
+  public void microsoft() {
+    Iterator<BatchSolver.Deal> deals = BatchSolver.microsoft(31999, 32000);
+
+    assertEquals(new BatchSolver.Deal("31999", MicrosoftDeals.deal(31999)), deals.next());
+    assertEquals(new BatchSolver.Deal("32000", MicrosoftDeals.deal(32000)), deals.next());
+    assertFalse(deals.hasNext());
+    assertThrows(IllegalArgumentException.class, () -> BatchSolver.microsoft(0, 1));
+  }
+
+  @Test
+  public void lines() {
+    FreeCell game1 = ForkFreeCell.dealDeck(new SplittableRandom(1));
+    FreeCell game2 = ForkFreeCell.dealDeck(new SplittableRandom(2));
+    var reader = new BufferedReader(new StringReader(
+        "# two deals\n" + dealLine(game1) + "\n\n  " + dealLine(game2) + "  \n"));
+
+    Iterator<BatchSolver.Deal> deals = BatchSolver.lines(reader);
+
+    assertEquals(new BatchSolver.Deal("2", game1), deals.next());
+    assertEquals(new BatchSolver.Deal("4", game2), deals.next());
+    assertFalse(deals.hasNext());
+  }
+
+  @Test
+  public void parseDeal_badLines() {
+    String line = dealLine(ForkFreeCell.dealDeck(new SplittableRandom(1)));
+
+    assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseDeal(line.substring(3)));
+    assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseDeal(line.replace("AS", "ZZ")));
+  }
+
+  @Test
+  public void solve_reportsEveryDeal() throws Exception {
+    var solver = new BatchSolver(2, 3, 1_000_000, Duration.ofMinutes(1), TABLE_BYTES);
+    List<BatchSolver.DealResult> results = new ArrayList<>();
+
+    solver.solve(BatchSolver.seeds(1, 5), results::add);
+
+    Map<String, BatchSolver.DealResult> byName =
+        results.stream().collect(Collectors.toMap(BatchSolver.DealResult::name, r -> r));
+    assertEquals(List.of("1", "2", "3", "4", "5"), byName.keySet().stream().sorted().toList());
+    for (BatchSolver.DealResult result : results) {
+      assertEquals(GamePlay.Status.SUCCESS, result.status());
+      assertTrue(result.moves() > 0);
+      assertTrue(result.expansions() > 0);
+    }
+    assertEquals(5, solver.completed());
+    assertEquals(5, solver.solved());
+  }
+
+  @Test
+  public void solve_timesOutEachDeal() throws Exception {
+    var solver = new BatchSolver(1, 1, Long.MAX_VALUE, Duration.ofMillis(50), TABLE_BYTES);
+    Map<String, BatchSolver.DealResult> results = new HashMap<>();
+
+    solver.solve(BatchSolver.seeds(1, 2), result -> results.put(result.name(), result));
+
+    assertEquals(2, results.size());
+    for (BatchSolver.DealResult result : results.values()) {
+      assertEquals(GamePlay.Status.INTERRUPTED, result.status());
+      assertEquals(-1, result.moves());
+    }
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void badArgs() {
+    Duration timeout = Duration.ofSeconds(1);
+
+    assertThrows(IllegalArgumentException.class, () -> new BatchSolver(0, 1, 1, timeout, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new BatchSolver(1, 0.5, 1, timeout, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new BatchSolver(1, 1, 0, timeout, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new BatchSolver(1, 1, 1, Duration.ZERO, TABLE_BYTES));
+  }
+
+  private static String dealLine(FreeCell game) {
+    List<String> symbols = new ArrayList<>();
+    for (int row = 0; ; row++) {
+      List<Card> cards = game.tableauRowStream(row).toList();
+      if (cards.stream().allMatch(card -> card == null)) {
+        return String.join(" ", symbols);
+      }
+      for (Card card : cards) {
+        if (card != null) {
+          symbols.add(card.asciiSymbol());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BitmapVisitedSetTest {
+
+  private static final List<Card> HOME =
+      List.of(Card.JACK_CLUBS, Card.QUEEN_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES);
+
+  @Test
+  public void visit() {
+    var visited = new BitmapVisitedSet(1L << 20);
+    FreeCell game = ForkFreeCell.dealColumns(HOME, List.of(Card.QUEEN_CLUBS), List.of(
+        List.of(Card.KING_CLUBS), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+        List.of(Card.KING_DIAMONDS)));
+
+    assertTrue(visited.visit(game));
+    assertFalse(visited.visit(game));
+    assertFalse(visited.visit(game.moveToTableauFromTableau(1, 7, 1).moveToTableauFromTableau(7, 0, 1)));
+    assertTrue(visited.visit(game.moveToTableauFromFreeCell(1, 0)));
+  }
+
+  @Test
+  public void visit_newBitmapForEachHome() {
+    var visited = new BitmapVisitedSet(1L << 20);
+    FreeCell game = ForkFreeCell.dealColumns(HOME, List.of(Card.QUEEN_CLUBS), List.of(
+        List.of(Card.KING_CLUBS), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+        List.of(Card.KING_DIAMONDS)));
+
+    assertTrue(visited.visit(game));
+    long bits = visited.bitsAllocated();
+    assertTrue(visited.visit(game.moveToHomeCellFromFreeCell(0)));
+    assertTrue(visited.bitsAllocated() > bits);
+
+    visited.clear();
+    assertEquals(0, visited.bitsAllocated());
+    assertTrue(visited.visit(game));
+  }
+
+  @Test
+  public void visit_tooManyGames() {
+    var visited = new BitmapVisitedSet(1000);
+
+    assertThrows(IllegalArgumentException.class, () -> visited.visit(ForkFreeCell.dealDeck()));
+  }
+}
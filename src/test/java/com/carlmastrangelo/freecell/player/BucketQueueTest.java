@@ -0,0 +1,99 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BucketQueueTest {
+
+  private record Entry(int key, int seq) {}
+
+  @Test
+  public void poll_fifoTieBreak() {
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.FIFO);
+    queue.add(new Entry(3, 0));
+    queue.add(new Entry(1, 1));
+    queue.add(new Entry(3, 2));
+    queue.add(new Entry(1, 3));
+
+    assertEquals(new Entry(1, 1), queue.poll());
+    assertEquals(new Entry(1, 3), queue.poll());
+    assertEquals(new Entry(3, 0), queue.poll());
+    assertEquals(new Entry(3, 2), queue.poll());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void poll_lifoTieBreak() {
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.LIFO);
+    queue.add(new Entry(3, 0));
+    queue.add(new Entry(1, 1));
+    queue.add(new Entry(3, 2));
+    queue.add(new Entry(1, 3));
+
+    assertEquals(new Entry(1, 3), queue.peek());
+    assertEquals(new Entry(1, 3), queue.poll());
+    assertEquals(new Entry(1, 1), queue.poll());
+    assertEquals(new Entry(3, 2), queue.poll());
+    assertEquals(new Entry(3, 0), queue.poll());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void poll_matchesPriorityQueue() {
+    var rng = new SplittableRandom(1);
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.FIFO);
+    var expected = new PriorityQueue<Entry>(Comparator.comparingInt(Entry::key).thenComparingInt(Entry::seq));
+    for (int i = 0; i < 10_000; i++) {
+      if (rng.nextInt(3) != 0) {
+        var entry = new Entry(rng.nextInt(200), i);
+        queue.add(entry);
+        expected.add(entry);
+      } else {
+        assertEquals(expected.poll(), queue.poll());
+      }
+      assertEquals(expected.size(), queue.size());
+    }
+  }
+
+  @Test
+  public void iterator_keyOrder() {
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.LIFO);
+    queue.add(new Entry(2, 0));
+    queue.add(new Entry(0, 1));
+    queue.add(new Entry(2, 2));
+    List<Entry> entries = new ArrayList<>(queue);
+
+    assertEquals(List.of(new Entry(0, 1), new Entry(2, 2), new Entry(2, 0)), entries);
+  }
+
+  @Test
+  public void clear() {
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.FIFO);
+    queue.add(new Entry(5, 0));
+    queue.clear();
+
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+    queue.add(new Entry(7, 1));
+    assertEquals(new Entry(7, 1), queue.poll());
+  }
+
+  @Test
+  public void add_failsOnNegativeKey() {
+    var queue = new BucketQueue<Entry>(Entry::key, BucketQueue.TieBreak.FIFO);
+
+    assertThrows(IllegalArgumentException.class, () -> queue.add(new Entry(-1, 0)));
+  }
+}
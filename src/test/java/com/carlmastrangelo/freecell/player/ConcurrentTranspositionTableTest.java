@@ -0,0 +1,78 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ConcurrentTranspositionTableTest {
+
+  @Test
+  public void visit_prunesSameOrDeeper() {
+    var table = new ConcurrentTranspositionTable(1 << 10, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    long hash = 0x1234_5678_9ABC_DEF0L;
+
+    assertTrue(table.visit(hash, 5));
+    assertFalse(table.visit(hash, 5));
+    assertFalse(table.visit(hash, 6));
+    assertTrue(table.visit(hash, 3));
+  }
+
+  @Test
+  public void visit_sameDepthAllowed() {
+    var table = new ConcurrentTranspositionTable(1 << 10, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    long hash = 0x1234_5678_9ABC_DEF0L;
+
+    assertTrue(table.visit(hash, 5, false));
+    assertTrue(table.visit(hash, 5, false));
+    assertFalse(table.visit(hash, 6, false));
+    assertTrue(table.visit(hash, 4, false));
+    assertFalse(table.visit(hash, 5, false));
+  }
+
+  @Test
+  public void visit_concurrentThreadsStoreOnce() throws Exception {
+    int threads = 4;
+    int games = 10_000;
+    var table = new ConcurrentTranspositionTable(1 << 22, TranspositionTable.Replacement.DEPTH_PREFERRED);
+    long[] hashes = new SplittableRandom(1).longs(games).toArray();
+    var barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> stored = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        stored.add(executor.submit(() -> {
+          barrier.await();
+          int count = 0;
+          for (long hash : hashes) {
+            if (table.visit(hash, 7)) {
+              count++;
+            }
+          }
+          return count;
+        }));
+      }
+      int total = 0;
+      for (Future<Integer> count : stored) {
+        total += count.get();
+      }
+
+      assertEquals(games, total);
+      assertEquals((long) games * threads, table.stats().probes());
+      assertEquals((long) games * (threads - 1), table.stats().hits());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
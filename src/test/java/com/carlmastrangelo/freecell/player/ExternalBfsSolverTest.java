@@ -0,0 +1,98 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ExternalBfsSolverTest {
+
+  /**
+   * The hearts and spades above eight are left, dealt so that both suits block each other.
+   */
+  private static final FreeCell CROSSED_SUITS = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.EIGHT_HEARTS, Card.EIGHT_SPADES),
+      List.of(),
+      List.of(
+          List.of(Card.NINE_SPADES, Card.QUEEN_HEARTS, Card.JACK_SPADES),
+          List.of(Card.TEN_HEARTS, Card.KING_SPADES, Card.NINE_HEARTS),
+          List.of(Card.TEN_SPADES, Card.KING_HEARTS, Card.QUEEN_SPADES, Card.JACK_HEARTS),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("external-bfs-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(directory);
+  }
+
+  @Test
+  public void solve_matchesAStarLength() throws IOException {
+    // A tiny buffer, so each layer spills many runs.
+    var solver = new ExternalBfsSolver(directory, 16, 10_000_000);
+
+    ExternalBfsSolver.Result result = solver.solve(CROSSED_SUITS);
+
+    AStarSolver.Result expected = new AStarSolver(
+            1, 10_000_000, new ArrayTranspositionTable(1 << 20, TranspositionTable.Replacement.DEPTH_PREFERRED))
+        .solve(CROSSED_SUITS);
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertEquals(expected.moves().totalMoves(), result.moves());
+    assertEquals(result.moves(), result.layers());
+  }
+
+  @Test
+  public void solve_bufferSizeDoesNotMatter() throws IOException {
+    ExternalBfsSolver.Result small = new ExternalBfsSolver(directory, 7, 10_000_000).solve(CROSSED_SUITS);
+    ExternalBfsSolver.Result large = new ExternalBfsSolver(directory, 1 << 16, 10_000_000).solve(CROSSED_SUITS);
+
+    assertEquals(large, small);
+  }
+
+  @Test
+  public void solve_stopsAtMaxGames() throws IOException {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(1));
+
+    ExternalBfsSolver.Result result = new ExternalBfsSolver(directory, 1 << 10, 1000).solve(game);
+
+    assertEquals(GamePlay.Status.MAX_PLAYS, result.status());
+  }
+
+  @Test
+  public void solve_deletesFiles() throws IOException {
+    new ExternalBfsSolver(directory, 16, 10_000_000).solve(CROSSED_SUITS);
+
+    try (var files = Files.list(directory)) {
+      assertFalse(files.findAny().isPresent());
+    }
+  }
+
+  @Test
+  public void badArgs() {
+    assertThrows(IllegalArgumentException.class, () -> new ExternalBfsSolver(directory, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new ExternalBfsSolver(directory, 1, 0));
+  }
+}
@@ -0,0 +1,61 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrontierArenaTest {
+
+  @Test
+  public void add_keepsGamesAndMoveNodesAcrossPages() {
+    var arena = new FrontierArena();
+    List<FreeCell> games = new ArrayList<>();
+    var rng = new SplittableRandom(1);
+    for (int i = 0; i < 20_000; i++) {
+      FreeCell game = ForkFreeCell.dealDeck(rng);
+      games.add(game);
+      assertEquals(i, arena.add(game, i * 3));
+    }
+
+    assertEquals(games.size(), arena.size());
+    for (int slot = 0; slot < games.size(); slot++) {
+      assertEquals(games.get(slot).toString(), arena.game(slot).toString());
+      assertEquals(games.get(slot).zobrist(), arena.game(slot).zobrist());
+      assertEquals(slot * 3, arena.moveNode(slot));
+    }
+  }
+
+  @Test
+  public void free_reusesSlot() {
+    var arena = new FrontierArena();
+    FreeCell game1 = ForkFreeCell.dealDeck(new SplittableRandom(1));
+    FreeCell game2 = ForkFreeCell.dealDeck(new SplittableRandom(2));
+    int slot1 = arena.add(game1, 7);
+    int slot2 = arena.add(game1, 8);
+    arena.free(slot1);
+
+    assertEquals(1, arena.size());
+    assertEquals(slot1, arena.add(game2, 9));
+    assertEquals(game2.toString(), arena.game(slot1).toString());
+    assertEquals(9, arena.moveNode(slot1));
+    assertEquals(8, arena.moveNode(slot2));
+    assertEquals(2, arena.size());
+  }
+
+  @Test
+  public void game_badSlot() {
+    var arena = new FrontierArena();
+    arena.add(ForkFreeCell.dealDeck(new SplittableRandom(1)), 0);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> arena.game(1));
+  }
+}
@@ -0,0 +1,146 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.List;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GamePlayTest {
+
+  @Test
+  public void autoPlay_playsWholeChain() {
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.KING_DIAMONDS, Card.KING_HEARTS, Card.NINE_SPADES),
+        List.of(Card.TWO_CLUBS),
+        List.of(
+            List.of(Card.KING_SPADES, Card.QUEEN_SPADES, Card.JACK_SPADES, Card.TEN_SPADES, Card.ACE_CLUBS),
+            List.of(
+                Card.KING_CLUBS, Card.QUEEN_CLUBS, Card.JACK_CLUBS, Card.TEN_CLUBS, Card.NINE_CLUBS, Card.EIGHT_CLUBS,
+                Card.SEVEN_CLUBS, Card.SIX_CLUBS, Card.FIVE_CLUBS, Card.FOUR_CLUBS, Card.THREE_CLUBS),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+    var played = new IntMoveBuffer();
+
+    FreeCell won = GamePlay.autoPlay(game, played);
+
+    assertTrue(won.gameWon());
+    assertEquals(17, played.size());
+    assertEquals(MoveCode.homeFromTableau(0), played.get(0));
+    FreeCell replayed = game;
+    for (int i = 0; i < played.size(); i++) {
+      replayed = replayed.playEncoded(played.get(i));
+    }
+    assertTrue(replayed.gameWon());
+  }
+
+  @Test
+  public void autoPlay_repeatsUntilNoCardIsSafe() {
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.FOUR_CLUBS, Card.TWO_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES),
+        List.of(Card.FIVE_CLUBS),
+        List.of(
+            List.of(
+                Card.KING_DIAMONDS, Card.QUEEN_DIAMONDS, Card.JACK_DIAMONDS, Card.TEN_DIAMONDS, Card.NINE_DIAMONDS,
+                Card.EIGHT_DIAMONDS, Card.SEVEN_DIAMONDS, Card.SIX_DIAMONDS, Card.FIVE_DIAMONDS, Card.FOUR_DIAMONDS,
+                Card.THREE_DIAMONDS),
+            List.of(
+                Card.KING_CLUBS, Card.QUEEN_CLUBS, Card.JACK_CLUBS, Card.TEN_CLUBS, Card.NINE_CLUBS, Card.EIGHT_CLUBS,
+                Card.SEVEN_CLUBS, Card.SIX_CLUBS),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+    var played = new IntMoveBuffer();
+
+    FreeCell won = GamePlay.autoPlay(game, played);
+
+    assertTrue(won.gameWon());
+    assertEquals(11 + 9, played.size());
+  }
+
+  @Test
+  public void autoPlay_leavesUnsafeCards() {
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.ACE_CLUBS, Card.TWO_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES),
+        List.of(),
+        List.of(
+            List.of(
+                Card.TWO_CLUBS, Card.KING_DIAMONDS, Card.QUEEN_DIAMONDS, Card.JACK_DIAMONDS, Card.TEN_DIAMONDS,
+                Card.NINE_DIAMONDS, Card.EIGHT_DIAMONDS, Card.SEVEN_DIAMONDS, Card.SIX_DIAMONDS, Card.FIVE_DIAMONDS,
+                Card.FOUR_DIAMONDS, Card.THREE_DIAMONDS),
+            List.of(
+                Card.KING_CLUBS, Card.QUEEN_CLUBS, Card.JACK_CLUBS, Card.TEN_CLUBS, Card.NINE_CLUBS, Card.EIGHT_CLUBS,
+                Card.SEVEN_CLUBS, Card.SIX_CLUBS, Card.FIVE_CLUBS, Card.FOUR_CLUBS, Card.THREE_CLUBS),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+    var played = new IntMoveBuffer();
+
+    assertSame(game, GamePlay.autoPlay(game, played));
+    assertEquals(0, played.size());
+  }
+
+  @Test
+  public void play_prunesAgainstIncumbent() {
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.NINE_SPADES),
+        List.of(),
+        List.of(
+            List.of(Card.TEN_SPADES, Card.JACK_SPADES, Card.QUEEN_SPADES, Card.KING_SPADES),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+    var incumbent = new Incumbent();
+
+    GamePlay.GameResult first = newPlay(game, incumbent).play();
+
+    assertEquals(GamePlay.Status.SUCCESS, first.status());
+    assertTrue(incumbent.offer(first.gameProgress()));
+
+    // The shortest win takes 7 moves, so nothing can beat a 7 move solution.
+    GamePlay.GameResult second = newPlay(game, incumbent).play();
+
+    assertEquals(7, incumbent.bestMoves());
+    assertEquals(GamePlay.Status.UNWINNABLE, second.status());
+  }
+
+  private static GamePlay newPlay(FreeCell game, Incumbent incumbent) {
+    return new GamePlay(
+        new GamePlayer.GameProgress(game, 0, new GamePlayer.MoveList(null, 0, MoveCode.NONE)),
+        100_000,
+        new BucketQueue<>(GamePlay.Node::totalMoves, BucketQueue.TieBreak.FIFO),
+        (g, totalMoves) -> totalMoves,
+        Integer.MAX_VALUE,
+        incumbent,
+        null,
+        null,
+        new Histogram(4000, 3),
+        new ArrayTranspositionTable(1 << 16, TranspositionTable.Replacement.DEPTH_PREFERRED),
+        null,
+        MovePruner.safeRules());
+  }
+}
@@ -0,0 +1,112 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HdaStarSolverTest {
+
+  /**
+   * Only the spades above nine are left, in one column with the ten at the bottom.  The shortest win takes 7 moves.
+   */
+  private static final FreeCell BURIED_TEN = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.NINE_SPADES),
+      List.of(),
+      List.of(
+          List.of(Card.TEN_SPADES, Card.JACK_SPADES, Card.QUEEN_SPADES, Card.KING_SPADES),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  private static final long TABLE_BYTES = 1 << 16;
+
+  @Test
+  public void solve_findsShortestSolution() {
+    for (int parallelism : new int[] {1, 2, 5}) {
+      var solver = new HdaStarSolver(1, 1_000_000, parallelism, TABLE_BYTES);
+
+      HdaStarSolver.Result result = solver.solve(BURIED_TEN);
+
+      assertEquals(GamePlay.Status.SUCCESS, result.status());
+      assertEquals(7, result.moves().totalMoves());
+      assertTrue(replay(BURIED_TEN, result.moves()).gameWon());
+    }
+  }
+
+  @Test
+  public void solve_dealtGame() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(5));
+    var solver = new HdaStarSolver(3, 1_000_000, 3, 1 << 20);
+
+    HdaStarSolver.Result result = solver.solve(game);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertTrue(replay(game, result.moves()).gameWon());
+  }
+
+  @Test
+  public void solve_noMovesIsUnwinnable() {
+    // The free cells are full, the aces are buried, and every column ends in a black card of ten or higher.
+    List<Card> freeCells = List.of(Card.TWO_CLUBS, Card.TWO_DIAMONDS, Card.TWO_HEARTS, Card.TWO_SPADES);
+    List<Card> tops = List.of(
+        Card.KING_CLUBS, Card.KING_SPADES, Card.QUEEN_CLUBS, Card.QUEEN_SPADES,
+        Card.JACK_CLUBS, Card.JACK_SPADES, Card.TEN_CLUBS, Card.TEN_SPADES);
+    List<Card> rest = new ArrayList<>(Card.CARDS_BY_ORD);
+    rest.removeAll(freeCells);
+    rest.removeAll(tops);
+    List<List<Card>> columns = new ArrayList<>();
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      List<Card> column = new ArrayList<>(rest.subList(col * 5, col * 5 + 5));
+      column.add(tops.get(col));
+      columns.add(column);
+    }
+    FreeCell game = ForkFreeCell.dealColumns(List.of(), freeCells, columns);
+
+    HdaStarSolver.Result result = new HdaStarSolver(1, 1000, 4, TABLE_BYTES).solve(game);
+
+    assertEquals(GamePlay.Status.UNWINNABLE, result.status());
+    assertNull(result.moves());
+    assertEquals(1, result.expansions());
+  }
+
+  @Test
+  public void solve_stopsAtMaxExpansions() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(1));
+    var solver = new HdaStarSolver(1, 1000, 2, TABLE_BYTES);
+
+    HdaStarSolver.Result result = solver.solve(game);
+
+    assertEquals(GamePlay.Status.MAX_PLAYS, result.status());
+  }
+
+  @Test
+  public void badArgs() {
+    assertThrows(IllegalArgumentException.class, () -> new HdaStarSolver(0.5, 1, 1, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new HdaStarSolver(Double.NaN, 1, 1, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new HdaStarSolver(1, 0, 1, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new HdaStarSolver(1, 1, 0, TABLE_BYTES));
+  }
+
+  private static FreeCell replay(FreeCell game, GamePlayer.MoveList moves) {
+    if (moves.lastMove() == null) {
+      return game;
+    }
+    return replay(game, moves.lastMove()).playEncoded(moves.move());
+  }
+}
@@ -0,0 +1,97 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IdaStarSolverTest {
+
+  /**
+   * Only the spades above nine are left, in one column with the ten at the bottom.  Each card has to move to its own
+   * column before the ten can go home.
+   */
+  private static final FreeCell BURIED_TEN = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.NINE_SPADES),
+      List.of(),
+      List.of(
+          List.of(Card.TEN_SPADES, Card.JACK_SPADES, Card.QUEEN_SPADES, Card.KING_SPADES),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  private static final long TABLE_BYTES = 1 << 16;
+
+  @Test
+  public void solve_findsShortestSolution() {
+    var solver = new IdaStarSolver(1, 1_000_000, 1, TABLE_BYTES);
+
+    IdaStarSolver.Result result = solver.solve(BURIED_TEN);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertEquals(7, result.moves().totalMoves());
+    assertTrue(replay(BURIED_TEN, result.moves()).gameWon());
+  }
+
+  @Test
+  public void solve_parallelMatchesSerialLength() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(5));
+    var serial = new IdaStarSolver(2, 10_000_000, 1, TABLE_BYTES << 4).solve(game);
+    var parallel = new IdaStarSolver(2, 10_000_000, 4, TABLE_BYTES << 4).solve(game);
+
+    assertEquals(GamePlay.Status.SUCCESS, serial.status());
+    assertEquals(GamePlay.Status.SUCCESS, parallel.status());
+    assertTrue(replay(game, serial.moves()).gameWon());
+    assertTrue(replay(game, parallel.moves()).gameWon());
+    assertEquals(serial.moves().totalMoves(), parallel.moves().totalMoves());
+  }
+
+  @Test
+  public void solve_alreadyWon() {
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.KING_HEARTS, Card.KING_SPADES),
+        List.of(),
+        Collections.nCopies(FreeCell.TABLEAU_COLS, List.<Card>of()));
+
+    IdaStarSolver.Result result = new IdaStarSolver(1, 1, 1, TABLE_BYTES).solve(game);
+
+    assertEquals(GamePlay.Status.SUCCESS, result.status());
+    assertEquals(0, result.moves().totalMoves());
+  }
+
+  @Test
+  public void solve_stopsAtMaxExpansions() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(1));
+
+    IdaStarSolver.Result result = new IdaStarSolver(1, 10_000, 2, TABLE_BYTES).solve(game);
+
+    assertEquals(GamePlay.Status.MAX_PLAYS, result.status());
+  }
+
+  @Test
+  public void badArgs() {
+    assertThrows(IllegalArgumentException.class, () -> new IdaStarSolver(0.5, 1, 1, TABLE_BYTES));
+    assertThrows(IllegalArgumentException.class, () -> new IdaStarSolver(1, 1, 0, TABLE_BYTES));
+  }
+
+  private static FreeCell replay(FreeCell game, GamePlayer.MoveList moves) {
+    if (moves.lastMove() == null) {
+      return game;
+    }
+    return replay(game, moves.lastMove()).playEncoded(moves.move());
+  }
+}
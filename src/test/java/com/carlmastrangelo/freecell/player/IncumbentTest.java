@@ -0,0 +1,77 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IncumbentTest {
+
+  @Test
+  public void offer_keepsShortest() {
+    var incumbent = new Incumbent();
+
+    assertEquals(Integer.MAX_VALUE, incumbent.bestMoves());
+    assertNull(incumbent.best());
+    GamePlayer.GameProgress ten = solution(10);
+    assertTrue(incumbent.offer(ten));
+    assertFalse(incumbent.offer(solution(10)));
+    assertFalse(incumbent.offer(solution(11)));
+    assertSame(ten, incumbent.best());
+    assertEquals(1, incumbent.improvements());
+    assertTrue(incumbent.offer(solution(9)));
+    assertEquals(9, incumbent.bestMoves());
+    assertEquals(2, incumbent.improvements());
+  }
+
+  @Test
+  public void offer_concurrentOffersKeepShortest() throws Exception {
+    int threads = 4;
+    var incumbent = new Incumbent();
+    var barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> done = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t;
+        done.add(executor.submit(() -> {
+          barrier.await();
+          for (int moves = 200 + offset; moves > 0; moves -= threads) {
+            incumbent.offer(solution(moves));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : done) {
+        f.get();
+      }
+
+      assertEquals(1, incumbent.bestMoves());
+      assertEquals(1, incumbent.best().moves().totalMoves());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static GamePlayer.GameProgress solution(int moves) {
+    var list = new GamePlayer.MoveList(null, 0, MoveCode.NONE);
+    for (int i = 0; i < moves; i++) {
+      list = list.branch(MoveCode.homeFromTableau(0));
+    }
+    return new GamePlayer.GameProgress(ForkFreeCell.dealDeck(), 0, list);
+  }
+}
@@ -0,0 +1,94 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LayeredBfsProverTest {
+
+  /**
+   * The hearts and spades above eight are left, dealt so that both suits block each other.
+   */
+  private static final FreeCell CROSSED_SUITS = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.EIGHT_HEARTS, Card.EIGHT_SPADES),
+      List.of(),
+      List.of(
+          List.of(Card.NINE_SPADES, Card.QUEEN_HEARTS, Card.JACK_SPADES),
+          List.of(Card.TEN_HEARTS, Card.KING_SPADES, Card.NINE_HEARTS),
+          List.of(Card.TEN_SPADES, Card.KING_HEARTS, Card.QUEEN_SPADES, Card.JACK_HEARTS),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  @Test
+  public void prove_matchesExternalSearch() throws IOException {
+    Path directory = Files.createTempDirectory("layered-bfs-test");
+    ExternalBfsSolver.Result expected;
+    try {
+      expected = new ExternalBfsSolver(directory, 1 << 10, 10_000_000).solve(CROSSED_SUITS);
+    } finally {
+      Files.delete(directory);
+    }
+
+    for (int parallelism : new int[] {1, 3}) {
+      LayeredBfsProver.Result result = new LayeredBfsProver(10_000_000, parallelism).prove(CROSSED_SUITS);
+
+      assertEquals(GamePlay.Status.SUCCESS, result.status());
+      assertEquals(expected.moves(), result.moves());
+      assertEquals(expected.games(), result.games());
+    }
+  }
+
+  @Test
+  public void prove_noMovesIsUnwinnable() {
+    // The free cells are full, the aces are buried, and every column ends in a black card of ten or higher.
+    List<Card> freeCells = List.of(Card.TWO_CLUBS, Card.TWO_DIAMONDS, Card.TWO_HEARTS, Card.TWO_SPADES);
+    List<Card> tops = List.of(
+        Card.KING_CLUBS, Card.KING_SPADES, Card.QUEEN_CLUBS, Card.QUEEN_SPADES,
+        Card.JACK_CLUBS, Card.JACK_SPADES, Card.TEN_CLUBS, Card.TEN_SPADES);
+    List<Card> rest = new ArrayList<>(Card.CARDS_BY_ORD);
+    rest.removeAll(freeCells);
+    rest.removeAll(tops);
+    List<List<Card>> columns = new ArrayList<>();
+    for (int col = 0; col < FreeCell.TABLEAU_COLS; col++) {
+      List<Card> column = new ArrayList<>(rest.subList(col * 5, col * 5 + 5));
+      column.add(tops.get(col));
+      columns.add(column);
+    }
+    FreeCell game = ForkFreeCell.dealColumns(List.of(), freeCells, columns);
+
+    LayeredBfsProver.Result result = new LayeredBfsProver(1000, 2).prove(game);
+
+    assertEquals(new LayeredBfsProver.Result(GamePlay.Status.UNWINNABLE, -1, 1, 1), result);
+  }
+
+  @Test
+  public void prove_stopsAtMaxGames() {
+    FreeCell game = ForkFreeCell.dealDeck(new SplittableRandom(1));
+
+    LayeredBfsProver.Result result = new LayeredBfsProver(10_000, 2).prove(game);
+
+    assertEquals(GamePlay.Status.MAX_PLAYS, result.status());
+  }
+
+  @Test
+  public void badArgs() {
+    assertThrows(IllegalArgumentException.class, () -> new LayeredBfsProver(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new LayeredBfsProver(1, 0));
+  }
+}
@@ -0,0 +1,46 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongHeapTest {
+
+  @Test
+  public void poll_matchesPriorityQueue() {
+    var heap = new LongHeap();
+    var expected = new PriorityQueue<Long>();
+    var rng = new SplittableRandom(1);
+    for (int i = 0; i < 100_000; i++) {
+      if (rng.nextInt(3) != 0 || expected.isEmpty()) {
+        long value = rng.nextLong(-1000, 1000);
+        heap.add(value);
+        expected.add(value);
+      } else {
+        assertEquals((long) expected.poll(), heap.poll());
+      }
+      assertEquals(expected.size(), heap.size());
+    }
+    while (!expected.isEmpty()) {
+      assertEquals((long) expected.poll(), heap.poll());
+    }
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  public void poll_empty() {
+    var heap = new LongHeap();
+    heap.add(1);
+    heap.poll();
+
+    assertThrows(NoSuchElementException.class, heap::poll);
+  }
+}
@@ -0,0 +1,45 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongRecordSetTest {
+
+  @Test
+  public void add_matchesHashSet() {
+    int width = 3;
+    var set = new LongRecordSet(width, 0);
+    var expected = new HashSet<List<Long>>();
+    var rng = new SplittableRandom(1);
+    long[] record = new long[width];
+    for (int i = 0; i < 100_000; i++) {
+      for (int k = 0; k < width; k++) {
+        record[k] = rng.nextInt(40);
+      }
+      long hash = LongRecordSet.hash(record, 0, width);
+
+      assertEquals(expected.add(List.of(record[0], record[1], record[2])), set.add(record, 0, hash));
+      assertTrue(set.contains(record, 0, hash));
+      assertEquals(expected.size(), set.size());
+    }
+  }
+
+  @Test
+  public void contains_missing() {
+    var set = new LongRecordSet(2, 100);
+    long[] records = {1, 2, 2, 1};
+    set.add(records, 0, LongRecordSet.hash(records, 0, 2));
+
+    assertTrue(set.contains(records, 0, LongRecordSet.hash(records, 0, 2)));
+    assertFalse(set.contains(records, 2, LongRecordSet.hash(records, 2, 2)));
+  }
+}
@@ -0,0 +1,50 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LongRecordsTest {
+
+  @Test
+  public void sortAndRemoveDuplicates_matchesTreeSet() {
+    int width = 3;
+    var rng = new SplittableRandom(1);
+    for (int count : new int[] {0, 1, 2, 15, 16, 17, 1000}) {
+      long[] records = new long[count * width + 5];
+      var expected = new TreeSet<long[]>(Arrays::compare);
+      for (int i = 0; i < count; i++) {
+        for (int k = 0; k < width; k++) {
+          // Few distinct values, so there are plenty of duplicates and ties on leading values.
+          records[i * width + k] = rng.nextInt(4) - 2;
+        }
+        expected.add(Arrays.copyOfRange(records, i * width, (i + 1) * width));
+      }
+
+      LongRecords.sort(records, count, width);
+      int distinct = LongRecords.removeDuplicates(records, count, width);
+
+      assertEquals(expected.size(), distinct);
+      int i = 0;
+      for (long[] record : expected) {
+        assertEquals(0, LongRecords.compare(record, 0, records, i++ * width, width));
+      }
+    }
+  }
+
+  @Test
+  public void compare_signedInTurn() {
+    long[] records = {1, -5, 1, 7, -1, 100};
+
+    assertTrue(LongRecords.compare(records, 0, records, 2, 2) < 0);
+    assertTrue(LongRecords.compare(records, 4, records, 0, 2) < 0);
+    assertEquals(0, LongRecords.compare(records, 0, records, 0, 2));
+  }
+}
@@ -0,0 +1,226 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.Card;
+import com.carlmastrangelo.freecell.ForkFreeCell;
+import com.carlmastrangelo.freecell.FreeCell;
+import com.carlmastrangelo.freecell.IntMoveBuffer;
+import com.carlmastrangelo.freecell.MoveCode;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MovePrunerTest {
+
+  /**
+   * Only the hearts and spades above nine are left.  Column 0 ends in a run of three on a ten, and columns 3 to 7 are
+   * empty.
+   */
+  private static final FreeCell GAME = ForkFreeCell.dealColumns(
+      List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.NINE_HEARTS, Card.NINE_SPADES),
+      List.of(Card.TEN_SPADES),
+      List.of(
+          List.of(Card.TEN_HEARTS, Card.KING_SPADES, Card.QUEEN_HEARTS, Card.JACK_SPADES),
+          List.of(Card.JACK_HEARTS),
+          List.of(Card.KING_HEARTS, Card.QUEEN_SPADES),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of(),
+          List.of()));
+
+  @Test
+  public void noReverse_tableauMoves() {
+    var rule = MovePruner.Rule.NO_REVERSE;
+    int lastMove = MoveCode.tableauFromTableau(2, 0, 1);
+
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(0, 2, 1), lastMove, Card.JACK_SPADES));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(0, 2, 2), lastMove, Card.JACK_SPADES));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 2, 1), lastMove, Card.JACK_SPADES));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(0, 2, 1), MoveCode.NONE, null));
+  }
+
+  @Test
+  public void noReverse_freeCellMoves() {
+    var rule = MovePruner.Rule.NO_REVERSE;
+    int freeCol = freeCellOf(GAME, Card.TEN_SPADES);
+
+    int toTableau = MoveCode.tableauFromFreeCell(1, 0);
+    int toFreeCell = MoveCode.freeCellFromTableau(1);
+
+    assertTrue(rule.prunes(GAME, MoveCode.freeCellFromTableau(1), toTableau, Card.JACK_HEARTS));
+    assertFalse(rule.prunes(GAME, MoveCode.freeCellFromTableau(2), toTableau, Card.JACK_HEARTS));
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromFreeCell(1, freeCol), toFreeCell, Card.TEN_SPADES));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromFreeCell(3, freeCol), toFreeCell, Card.TEN_SPADES));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromFreeCell(1, freeCol), toFreeCell, null));
+  }
+
+  @Test
+  public void noReverse_freeCellTwins() {
+    var rule = MovePruner.Rule.NO_REVERSE;
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.NINE_CLUBS, Card.KING_DIAMONDS, Card.NINE_HEARTS, Card.NINE_SPADES),
+        List.of(Card.TEN_SPADES, Card.TEN_CLUBS),
+        List.of(
+            List.of(Card.JACK_HEARTS),
+            List.of(Card.KING_CLUBS, Card.QUEEN_CLUBS, Card.JACK_CLUBS, Card.TEN_HEARTS),
+            List.of(Card.KING_HEARTS, Card.QUEEN_HEARTS, Card.JACK_SPADES, Card.QUEEN_SPADES, Card.KING_SPADES),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+
+    int lastMove = MoveCode.freeCellFromTableau(0);
+
+    // Either ten fits on the jack, but only the one that came off it is moved back.
+    assertTrue(rule.prunes(
+        game, MoveCode.tableauFromFreeCell(0, freeCellOf(game, Card.TEN_CLUBS)), lastMove, Card.TEN_CLUBS));
+    assertFalse(rule.prunes(
+        game, MoveCode.tableauFromFreeCell(0, freeCellOf(game, Card.TEN_SPADES)), lastMove, Card.TEN_CLUBS));
+  }
+
+  @Test
+  public void noReverse_keepsOtherCardsFromFreeCells() {
+    var rule = MovePruner.Rule.NO_REVERSE;
+    // The five of hearts was just moved off the king of spades, which the queen of hearts already in a free cell fits.
+    FreeCell game = ForkFreeCell.dealColumns(
+        List.of(Card.KING_CLUBS, Card.KING_DIAMONDS, Card.FOUR_HEARTS, Card.QUEEN_SPADES),
+        List.of(Card.QUEEN_HEARTS, Card.FIVE_HEARTS),
+        List.of(
+            List.of(Card.KING_SPADES),
+            List.of(
+                Card.KING_HEARTS, Card.JACK_HEARTS, Card.TEN_HEARTS, Card.NINE_HEARTS, Card.EIGHT_HEARTS,
+                Card.SEVEN_HEARTS, Card.SIX_HEARTS),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of(),
+            List.of()));
+    int lastMove = MoveCode.freeCellFromTableau(0);
+
+    assertFalse(rule.prunes(
+        game, MoveCode.tableauFromFreeCell(0, freeCellOf(game, Card.QUEEN_HEARTS)), lastMove, Card.FIVE_HEARTS));
+    assertTrue(rule.prunes(
+        game, MoveCode.tableauFromFreeCell(0, freeCellOf(game, Card.FIVE_HEARTS)), lastMove, Card.FIVE_HEARTS));
+  }
+
+  @Test
+  public void emptyColumnSymmetry() {
+    var rule = MovePruner.Rule.EMPTY_COLUMN_SYMMETRY;
+    int freeCol = freeCellOf(GAME, Card.TEN_SPADES);
+
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 0, 1), MoveCode.NONE, null));
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(4, 0, 1), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromFreeCell(3, freeCol), MoveCode.NONE, null));
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromFreeCell(7, freeCol), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromFreeCell(1, freeCol), MoveCode.NONE, null));
+  }
+
+  @Test
+  public void wholeColumnToEmpty() {
+    var rule = MovePruner.Rule.WHOLE_COLUMN_TO_EMPTY;
+
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 1, 1), MoveCode.NONE, null));
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 2, 2), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 2, 1), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 0, 3), MoveCode.NONE, null));
+  }
+
+  @Test
+  public void maximalRunToEmpty() {
+    var rule = MovePruner.Rule.MAXIMAL_RUN_TO_EMPTY;
+
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 0, 1), MoveCode.NONE, null));
+    assertTrue(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 0, 2), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(3, 0, 3), MoveCode.NONE, null));
+    assertFalse(rule.prunes(GAME, MoveCode.tableauFromTableau(1, 0, 1), MoveCode.NONE, null));
+  }
+
+  @Test
+  public void movedCard() {
+    assertEquals(Card.JACK_SPADES, MovePruner.movedCard(GAME, MoveCode.freeCellFromTableau(0)));
+    assertEquals(Card.QUEEN_SPADES, MovePruner.movedCard(GAME, MoveCode.tableauFromTableau(3, 2, 2)));
+    assertEquals(Card.TEN_SPADES, MovePruner.movedCard(GAME, MoveCode.tableauFromFreeCell(1, 0)));
+  }
+
+  @Test
+  public void prune_keepsOtherMovesInOrder() {
+    var pruner = MovePruner.allRules();
+    var moves = new IntMoveBuffer();
+    GAME.findMoves(moves);
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      boolean pruned = false;
+      for (MovePruner.Rule rule : MovePruner.Rule.values()) {
+        pruned |= rule.prunes(GAME, move, MoveCode.NONE, null);
+      }
+      if (!pruned) {
+        expected.add(move);
+      }
+    }
+    int found = moves.size();
+
+    pruner.prune(moves, GAME, MoveCode.NONE, null);
+
+    assertEquals(expected, toList(moves));
+    assertTrue(expected.contains(MoveCode.tableauFromTableau(3, 0, 3)));
+    assertFalse(expected.contains(MoveCode.tableauFromTableau(4, 0, 3)));
+    MovePruner.Stats stats = pruner.stats();
+    assertEquals(1, stats.expansions());
+    assertEquals(found, stats.movesFound());
+    assertEquals(expected.size(), stats.movesKept());
+    assertEquals(found - expected.size(), stats.pruned().values().stream().mapToLong(Long::longValue).sum());
+    assertTrue(stats.branchingAfter() < stats.branchingBefore());
+  }
+
+  @Test
+  public void safeRules_keepsPartialRunsToEmpty() {
+    var moves = new IntMoveBuffer();
+    GAME.findMoves(moves);
+
+    MovePruner.safeRules().prune(moves, GAME, MoveCode.NONE, null);
+
+    assertTrue(toList(moves).contains(MoveCode.tableauFromTableau(3, 0, 1)));
+    assertFalse(toList(moves).contains(MoveCode.tableauFromTableau(4, 0, 1)));
+  }
+
+  @Test
+  public void prune_noRules() {
+    var pruner = new MovePruner(EnumSet.noneOf(MovePruner.Rule.class));
+    var moves = new IntMoveBuffer();
+    GAME.findMoves(moves);
+    List<Integer> expected = toList(moves);
+
+    pruner.prune(moves, GAME, MoveCode.NONE, null);
+
+    assertEquals(expected, toList(moves));
+    assertEquals(pruner.stats().branchingBefore(), pruner.stats().branchingAfter(), 0);
+  }
+
+  private static int freeCellOf(FreeCell game, Card card) {
+    for (int freeCol = 0; freeCol < FreeCell.FREE_CELLS; freeCol++) {
+      if (game.peekFreeCell(freeCol) == card) {
+        return freeCol;
+      }
+    }
+    throw new AssertionError(card);
+  }
+
+  private static List<Integer> toList(IntMoveBuffer moves) {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < moves.size(); i++) {
+      list.add(moves.get(i));
+    }
+    return list;
+  }
+}
@@ -0,0 +1,99 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.carlmastrangelo.freecell.MoveCode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MoveTreeTest {
+
+  @Test
+  public void add_recordsParentMoveAndDepth() {
+    var tree = new MoveTree();
+    int root = tree.addRoot();
+    int child = tree.add(root, MoveCode.homeFromTableau(3));
+    int grandchild = tree.add(child, MoveCode.tableauFromTableau(1, 2, 4));
+
+    assertEquals(MoveTree.NO_PARENT, tree.parent(root));
+    assertEquals(MoveCode.NONE, tree.move(root));
+    assertEquals(0, tree.depth(root));
+    assertEquals(root, tree.parent(child));
+    assertEquals(MoveCode.homeFromTableau(3), tree.move(child));
+    assertEquals(1, tree.depth(child));
+    assertEquals(child, tree.parent(grandchild));
+    assertEquals(MoveCode.tableauFromTableau(1, 2, 4), tree.move(grandchild));
+    assertEquals(2, tree.depth(grandchild));
+    assertEquals(3, tree.size());
+  }
+
+  @Test
+  public void moves_walksParentsAcrossPages() {
+    var tree = new MoveTree();
+    int root = tree.addRoot();
+    int node = root;
+    for (int i = 0; i < 1000; i++) {
+      node = tree.add(node, MoveCode.freeCellFromTableau(i % 8));
+      for (int sibling = 0; sibling < 200; sibling++) {
+        tree.add(root, MoveCode.homeFromFreeCell(sibling % 4));
+      }
+    }
+    var rootMoves = new GamePlayer.MoveList(null, 0, MoveCode.NONE).branch(MoveCode.homeFromTableau(0));
+
+    GamePlayer.MoveList moves = tree.moves(node, rootMoves);
+    assertEquals(1001, moves.totalMoves());
+    for (int i = 1000 - 1; i >= 0; i--) {
+      assertEquals(MoveCode.freeCellFromTableau(i % 8), moves.move());
+      moves = moves.lastMove();
+    }
+    assertEquals(rootMoves, moves);
+  }
+
+  @Test
+  public void moves_followsLinksAcrossTrees() {
+    var trees = new MoveTree[] {new MoveTree(), new MoveTree()};
+    int root = trees[0].addRoot();
+    int node0 = trees[0].add(root, MoveCode.freeCellFromTableau(1));
+    int link = trees[1].addLink(0, node0, 1);
+    int node1 = trees[1].add(link, MoveCode.tableauFromTableau(2, 3, 1));
+    int back = trees[0].addLink(1, node1, 2);
+    int node2 = trees[0].add(back, MoveCode.homeFromFreeCell(0));
+
+    assertTrue(trees[1].isLink(link));
+    assertFalse(trees[1].isLink(node1));
+    assertFalse(trees[0].isLink(root));
+    assertEquals(0, trees[1].linkedTree(link));
+    assertEquals(node0, trees[1].parent(link));
+    assertEquals(MoveCode.NONE, trees[1].move(link));
+    assertEquals(1, trees[1].depth(link));
+    assertEquals(2, trees[1].depth(node1));
+    GamePlayer.MoveList moves = MoveTree.moves(trees, 0, node2, new GamePlayer.MoveList(null, 0, MoveCode.NONE));
+    assertEquals(3, moves.totalMoves());
+    assertEquals(MoveCode.homeFromFreeCell(0), moves.move());
+    assertEquals(MoveCode.tableauFromTableau(2, 3, 1), moves.lastMove().move());
+    assertEquals(MoveCode.freeCellFromTableau(1), moves.lastMove().lastMove().move());
+  }
+
+  @Test
+  public void addLink_badArgs() {
+    var tree = new MoveTree();
+
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.addLink(MoveTree.MAX_TREES, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> tree.addLink(0, -1, 0));
+    assertThrows(IllegalArgumentException.class, () -> tree.addLink(0, 0, MoveTree.MAX_DEPTH + 1));
+    assertThrows(IllegalArgumentException.class, () -> tree.linkedTree(tree.addRoot()));
+  }
+
+  @Test
+  public void add_failsOnMissingParent() {
+    var tree = new MoveTree();
+    tree.addRoot();
+
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.add(1, MoveCode.homeFromTableau(0)));
+  }
+}
@@ -0,0 +1,74 @@
+package com.carlmastrangelo.freecell.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MpscQueueTest {
+
+  @Test
+  public void poll_firstInFirstOut() {
+    var queue = new MpscQueue<Integer>();
+
+    assertNull(queue.poll());
+    queue.offer(1);
+    queue.offer(2);
+    assertEquals(Integer.valueOf(1), queue.poll());
+    queue.offer(3);
+    assertEquals(Integer.valueOf(2), queue.poll());
+    assertEquals(Integer.valueOf(3), queue.poll());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void offer_concurrentProducersKeepTheirOrder() throws Exception {
+    int producers = 4;
+    int elements = 100_000;
+    var queue = new MpscQueue<int[]>();
+    var barrier = new CyclicBarrier(producers);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    try {
+      List<Future<?>> done = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        int producer = p;
+        done.add(executor.submit(() -> {
+          barrier.await();
+          for (int i = 0; i < elements; i++) {
+            queue.offer(new int[] {producer, i});
+          }
+          return null;
+        }));
+      }
+      int[] next = new int[producers];
+      for (int taken = 0; taken < producers * elements; ) {
+        int[] element = queue.poll();
+        if (element == null) {
+          Thread.onSpinWait();
+          continue;
+        }
+        assertEquals(next[element[0]]++, element[1]);
+        taken++;
+      }
+      for (Future<?> f : done) {
+        f.get();
+      }
+
+      assertNull(queue.poll());
+      for (int count : next) {
+        assertEquals(elements, count);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}